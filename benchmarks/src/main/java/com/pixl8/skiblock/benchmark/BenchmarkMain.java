@@ -0,0 +1,33 @@
+package com.pixl8.skiblock.benchmark;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the benchmark jar. Runs JMH with the given arguments, but unless a result file is
+ * chosen with -rf/-rff, writes the results as JSON to results/&lt;timestamp&gt;.json so runs of
+ * different builds can be diffed or fed to a JMH visualizer.
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean listing = arguments.contains("-l") || arguments.contains("-lp") || arguments.contains("-h");
+        if (!listing && !arguments.contains("-rf") && !arguments.contains("-rff")) {
+            File results = new File("results");
+            results.mkdirs();
+            String name = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+            arguments.add("-rf");
+            arguments.add("json");
+            arguments.add("-rff");
+            arguments.add(new File(results, name).getPath());
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,155 @@
+package com.pixl8.skiblock.benchmark;
+
+import com.pixl8.skiblock.BorderEnforcer;
+import com.pixl8.skiblock.BorderVisualizer;
+import com.pixl8.skiblock.Island;
+import com.pixl8.skiblock.IslandGrid;
+import com.pixl8.skiblock.Metrics;
+import com.pixl8.skiblock.SafeLocationResolver;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the border work of a polling pass over every online player through {@link BorderEnforcer#checkBorder}:
+ * resolving the island a player stands on through its per-player cache and the {@link IslandGrid},
+ * testing the border and particle distances and recording the check.
+ * Separately measures {@link SafeLocationResolver#findSafeLocation} on a {@link StandInWorld} with
+ * one small island per cell, both searching from scratch and answered from its column cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BorderBenchmark {
+    private static final int DISTANCE = 1500;
+    private static final int RADIUS = 50;
+    private static final int ISLANDS = 64;
+    private static final int PLATFORM = 10;
+    private static final int ISLAND_Y = 100;
+
+    /**
+     * A grid of small islands in a stand-in world
+     */
+    @State(Scope.Benchmark)
+    public static class Islands {
+        private IslandGrid grid;
+        private Island[] islands;
+        private World world;
+        private SafeLocationResolver safeLocations;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            StandInWorld standIn = new StandInWorld("skiblock");
+            world = standIn.asWorld();
+            grid = new IslandGrid(0, 0, DISTANCE);
+            islands = new Island[ISLANDS];
+            for (int i = 0; i < ISLANDS; i++) {
+                int x = (i % 8) * DISTANCE;
+                int z = (i / 8) * DISTANCE;
+                islands[i] = new Island(new UUID(0L, i), "skiblock", x, ISLAND_Y, z, 0f, 0f, RADIUS);
+                grid.add(islands[i]);
+
+                // A platform around the marker, so safe spots exist only near the island center
+                for (int dx = -PLATFORM; dx <= PLATFORM; dx++) {
+                    for (int dz = -PLATFORM; dz <= PLATFORM; dz++) {
+                        standIn.setType(x + dx, ISLAND_Y - 1, z + dz, Material.GRASS_BLOCK);
+                        standIn.setType(x + dx, ISLAND_Y - 2, z + dz, Material.DIRT);
+                    }
+                }
+                standIn.setType(x, ISLAND_Y, z, Material.DIAMOND_BLOCK);
+            }
+            safeLocations = new SafeLocationResolver(grid, new Metrics());
+        }
+
+        private Island nextIsland() {
+            return islands[next++ & (ISLANDS - 1)];
+        }
+    }
+
+    /**
+     * Online players spread around the islands, some beyond the border
+     */
+    @State(Scope.Benchmark)
+    public static class Players {
+        @Param({"10", "100", "500"})
+        public int players;
+
+        private UUID[] ids;
+        private Location[] locations;
+        private BorderEnforcer enforcer;
+
+        @Setup(Level.Trial)
+        public void setUp(Islands islands) {
+            Random random = new Random(42);
+            ids = new UUID[players];
+            locations = new Location[players];
+            Map<UUID, Island> own = new HashMap<>();
+            for (int i = 0; i < players; i++) {
+                Island island = islands.islands[random.nextInt(ISLANDS)];
+                ids[i] = new UUID(1L, i);
+                own.put(ids[i], island);
+                locations[i] = new Location(islands.world,
+                        island.getX() + random.nextGaussian() * RADIUS * 0.8,
+                        ISLAND_Y + random.nextInt(20),
+                        island.getZ() + random.nextGaussian() * RADIUS * 0.8);
+            }
+            enforcer = new BorderEnforcer(islands.grid, own::get, BorderEnforcer.Mode.POLLING,
+                    new BorderVisualizer(128, 10L, 32.0), islands.safeLocations, new Metrics());
+        }
+    }
+
+    /**
+     * One polling pass: the border check of every player, without the teleports and particles it leads to
+     * @return the number of players outside their border
+     */
+    @Benchmark
+    public int checkPass(Players players) {
+        int outside = 0;
+        for (int i = 0; i < players.players; i++) {
+            if (players.enforcer.checkBorder(players.ids[i], players.locations[i]) == BorderEnforcer.Result.OUTSIDE) {
+                outside++;
+            }
+        }
+        return outside;
+    }
+
+    /**
+     * A safe spot search from a player beyond the border, with the column cache cleared first
+     */
+    @Benchmark
+    public Location findSafeLocation(Islands islands) {
+        Island island = islands.nextIsland();
+        islands.safeLocations.invalidate(island.getOwner());
+        return islands.safeLocations.findSafeLocation(island, islands.world, island.getX() + RADIUS + 5, ISLAND_Y + 3, island.getZ() + 7);
+    }
+
+    /**
+     * The same search answered from the column cache, as for repeated hits on the same stretch of border
+     */
+    @Benchmark
+    public Location findSafeLocationCached(Islands islands) {
+        Island island = islands.nextIsland();
+        return islands.safeLocations.findSafeLocation(island, islands.world, island.getX() + RADIUS + 5, ISLAND_Y + 3, island.getZ() + 7);
+    }
+}
@@ -0,0 +1,80 @@
+package com.pixl8.skiblock.benchmark;
+
+import com.pixl8.skiblock.Island;
+import com.pixl8.skiblock.IslandGrid;
+import com.pixl8.skiblock.IslandRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the in-memory island lookups behind every command and border check:
+ * by owner through the {@link IslandRegistry} and by position through the {@link IslandGrid}.
+ * Lookups hit random islands, so large counts include the cache misses a busy server sees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IslandLookupBenchmark {
+    private static final int DISTANCE = 1500;
+    private static final int RADIUS = 50;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int islands;
+
+    private IslandRegistry registry;
+    private IslandGrid grid;
+    private UUID[] owners;
+    private double[] positions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        registry = new IslandRegistry();
+        grid = new IslandGrid(0, 0, DISTANCE);
+        owners = new UUID[islands];
+        int side = (int) Math.ceil(Math.sqrt(islands));
+        for (int i = 0; i < islands; i++) {
+            owners[i] = new UUID(random.nextLong(), random.nextLong());
+            Island island = new Island(owners[i], "skiblock", (i % side) * DISTANCE, 100, (i / side) * DISTANCE, 0f, 0f, RADIUS);
+            registry.put(island);
+            grid.add(island);
+        }
+
+        // Positions near random islands, mostly inside their borders
+        positions = new double[8192 * 2];
+        for (int i = 0; i < positions.length; i += 2) {
+            int island = random.nextInt(islands);
+            positions[i] = (island % side) * DISTANCE + random.nextGaussian() * RADIUS;
+            positions[i + 1] = (island / side) * DISTANCE + random.nextGaussian() * RADIUS;
+        }
+    }
+
+    @Benchmark
+    public Island byOwner() {
+        return registry.get(owners[(next++ & Integer.MAX_VALUE) % owners.length]);
+    }
+
+    @Benchmark
+    public Island byPosition() {
+        int i = (next++ & 8191) << 1;
+        return grid.getIslandAt(positions[i], positions[i + 1]);
+    }
+}
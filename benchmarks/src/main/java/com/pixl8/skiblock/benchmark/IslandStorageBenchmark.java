@@ -0,0 +1,101 @@
+package com.pixl8.skiblock.benchmark;
+
+import com.pixl8.skiblock.BinaryIslandStorage;
+import com.pixl8.skiblock.Island;
+import com.pixl8.skiblock.IslandRegistry;
+import com.pixl8.skiblock.IslandStorage;
+import com.pixl8.skiblock.YamlIslandStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Compares full load time and single-island write cost of the YAML and binary island storage backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IslandStorageBenchmark {
+    private static final Logger LOGGER = Logger.getLogger("IslandStorageBenchmark");
+    private static final int DISTANCE = 1500;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int islands;
+
+    @Param({"yaml", "binary"})
+    public String storageType;
+
+    private File directory;
+    private IslandStorage storage;
+    private IslandRegistry registry;
+    private List<UUID> owners;
+    private int nextWrite;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("skiblock-bench").toFile();
+        storage = storageType.equals("binary")
+                ? new BinaryIslandStorage(new File(directory, "islands.dat"), LOGGER, 10)
+                : new YamlIslandStorage(new File(directory, "island_data.yml"), LOGGER, 10);
+
+        registry = new IslandRegistry();
+        owners = new ArrayList<>(islands);
+        for (int i = 0; i < islands; i++) {
+            UUID owner = UUID.randomUUID();
+            owners.add(owner);
+            registry.put(new Island(owner, "skiblock", (i % 4) * DISTANCE, 100, (i / 4) * DISTANCE, 0f, 0f, 10));
+        }
+        storage.write(owners, registry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public int loadAll() throws IOException {
+        int[] count = new int[1];
+        storage.load(island -> count[0]++);
+        return count[0];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void writeOne() throws IOException {
+        UUID owner = owners.get(nextWrite++ % owners.size());
+        Island island = registry.get(owner);
+        registry.put(new Island(owner, island.getWorldName(), island.getX(), island.getY() + 1, island.getZ(), 0f, 0f, 10));
+        storage.write(Collections.singletonList(owner), registry);
+    }
+}
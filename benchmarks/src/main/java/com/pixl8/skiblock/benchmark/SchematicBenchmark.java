@@ -0,0 +1,153 @@
+package com.pixl8.skiblock.benchmark;
+
+import com.pixl8.skiblock.BinarySchematic;
+import com.pixl8.skiblock.CompiledSchematic;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-paste cost of the original YAML schematic path (parse, split every key,
+ * resolve every material name) with iterating a {@link CompiledSchematic}.
+ * Also compares compiling from YAML with reading the binary format, plain and gzip compressed.
+ * Block placement itself is replaced by a blackhole so only the schematic handling is measured,
+ * except for {@link #paste()}, which writes into a {@link StandInWorld}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SchematicBenchmark {
+    private static final Material[] MATERIALS = {
+            Material.STONE, Material.DIRT, Material.GRASS_BLOCK, Material.OAK_LOG, Material.OAK_LEAVES
+    };
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int blocks;
+
+    private String yamlSource;
+    private CompiledSchematic compiled;
+    private byte[] binary;
+    private byte[] binaryGzip;
+    private StandInWorld world;
+    private Location origin;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        // Fill a cube around the origin with random materials, in the island1.yaml layout
+        Random random = new Random(42);
+        int side = (int) Math.ceil(Math.cbrt(blocks));
+        Map<String, String> blockEntries = new LinkedHashMap<>();
+        for (int i = 0; i < blocks; i++) {
+            int x = i % side - side / 2;
+            int y = (i / side) % side - side / 2;
+            int z = i / (side * side) - side / 2;
+            blockEntries.put(x + "," + y + "," + z, MATERIALS[random.nextInt(MATERIALS.length)].name());
+        }
+        Map<String, Object> schematic = new LinkedHashMap<>();
+        schematic.put("blocks", blockEntries);
+        yamlSource = new Yaml().dump(schematic);
+
+        Map<String, Object> parsed = new Yaml().load(yamlSource);
+        compiled = CompiledSchematic.compile((Map<String, String>) parsed.get("blocks"), null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySchematic.write(compiled, out, false);
+        binary = out.toByteArray();
+        out = new ByteArrayOutputStream();
+        BinarySchematic.write(compiled, out, true);
+        binaryGzip = out.toByteArray();
+
+        StandIns.installServer();
+        world = new StandInWorld("skiblock");
+        origin = new Location(world.asWorld(), 0, 100, 0);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void yamlPath(Blackhole blackhole) {
+        Map<String, Object> schematicData = new Yaml().load(new StringReader(yamlSource));
+        Map<String, String> blockEntries = (Map<String, String>) schematicData.get("blocks");
+        for (Map.Entry<String, String> entry : blockEntries.entrySet()) {
+            String[] coords = entry.getKey().split(",");
+            if (coords.length != 3) {
+                continue;
+            }
+
+            int x = Integer.parseInt(coords[0]);
+            int y = Integer.parseInt(coords[1]);
+            int z = Integer.parseInt(coords[2]);
+            Material material = Material.getMaterial(entry.getValue().toUpperCase());
+            if (material != null) {
+                place(blackhole, x, y, z, material);
+            }
+        }
+    }
+
+    @Benchmark
+    public void compiledPath(Blackhole blackhole) {
+        for (int i = 0, size = compiled.size(); i < size; i++) {
+            place(blackhole, compiled.getX(i), compiled.getY(i), compiled.getZ(i), compiled.getMaterial(i));
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public CompiledSchematic compile() {
+        Map<String, Object> schematicData = new Yaml().load(new StringReader(yamlSource));
+        return CompiledSchematic.compile((Map<String, String>) schematicData.get("blocks"),
+                (Map<String, List<String>>) schematicData.get("chest_contents"));
+    }
+
+    @Benchmark
+    public CompiledSchematic readBinary() throws IOException {
+        return BinarySchematic.read(new ByteArrayInputStream(binary));
+    }
+
+    @Benchmark
+    public CompiledSchematic readBinaryGzip() throws IOException {
+        return BinarySchematic.read(new ByteArrayInputStream(binaryGzip));
+    }
+
+    /**
+     * A full paste into a stand-in world, including the block lookups and block data writes
+     */
+    @Benchmark
+    public long paste() {
+        compiled.paste(origin);
+        return world.getBlockWrites();
+    }
+
+    private static void place(Blackhole blackhole, int x, int y, int z, Material material) {
+        blackhole.consume(x);
+        blackhole.consume(y);
+        blackhole.consume(z);
+        blackhole.consume(material);
+    }
+}
@@ -0,0 +1,155 @@
+package com.pixl8.skiblock.benchmark;
+
+import org.bukkit.Material;
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.material.MaterialData;
+
+/**
+ * Chunk data split into 16-block sections, allocated on the first write to them. Like the server's sections,
+ * writes of air are stored too, and a section counts as empty while it holds nothing but air.
+ * Block data is only kept for blocks written as block data; the rest report their type's default state.
+ * Also backs the chunks of {@link StandInWorld}.
+ */
+public class StandInChunkData implements ChunkGenerator.ChunkData {
+    public static final int MIN_HEIGHT = -64;
+    public static final int MAX_HEIGHT = 320;
+
+    private final Material[][] sections = new Material[(MAX_HEIGHT - MIN_HEIGHT) >> 4][];
+    private final BlockData[][] blockData = new BlockData[sections.length][];
+    // Non-air blocks per section
+    private final int[] blockCounts = new int[sections.length];
+    Biome[] biomes;
+
+    void fillVanilla() {
+        setRegion(0, MIN_HEIGHT, 0, 16, 0, 16, Material.STONE);
+    }
+
+    /**
+     * @return true if a section holds nothing but air
+     */
+    public boolean isSectionEmpty(int section) {
+        return blockCounts[section] == 0;
+    }
+
+    /**
+     * @return a deep copy, as taken by chunk snapshots
+     */
+    public StandInChunkData copy() {
+        StandInChunkData copy = new StandInChunkData();
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i] != null) {
+                copy.sections[i] = sections[i].clone();
+            }
+            if (blockData[i] != null) {
+                copy.blockData[i] = blockData[i].clone();
+            }
+        }
+        System.arraycopy(blockCounts, 0, copy.blockCounts, 0, blockCounts.length);
+        return copy;
+    }
+
+    @Override
+    public int getMinHeight() {
+        return MIN_HEIGHT;
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return MAX_HEIGHT;
+    }
+
+    @Override
+    public Biome getBiome(int x, int y, int z) {
+        return Biome.OCEAN;
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, Material material) {
+        setBlock(x, y, z, material, null);
+    }
+
+    private void setBlock(int x, int y, int z, Material material, BlockData data) {
+        if (x < 0 || x > 15 || z < 0 || z > 15 || y < MIN_HEIGHT || y >= MAX_HEIGHT) return;
+
+        int section = (y - MIN_HEIGHT) >> 4;
+        Material[] blocks = sections[section];
+        if (blocks == null) {
+            blocks = sections[section] = new Material[16 * 16 * 16];
+        }
+        int index = (y & 15) << 8 | z << 4 | x;
+        boolean wasAir = blocks[index] == null || blocks[index].isAir();
+        blocks[index] = material;
+        if (data != null || blockData[section] != null) {
+            if (blockData[section] == null) {
+                blockData[section] = new BlockData[16 * 16 * 16];
+            }
+            blockData[section][index] = data;
+        }
+        if (wasAir != material.isAir()) {
+            blockCounts[section] += wasAir ? 1 : -1;
+        }
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, MaterialData material) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, BlockData blockData) {
+        setBlock(x, y, z, blockData.getMaterial(), blockData);
+    }
+
+    @Override
+    public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, Material material) {
+        for (int y = yMin; y < yMax; y++) {
+            for (int z = zMin; z < zMax; z++) {
+                for (int x = xMin; x < xMax; x++) {
+                    setBlock(x, y, z, material);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, MaterialData material) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, BlockData blockData) {
+        setRegion(xMin, yMin, zMin, xMax, yMax, zMax, blockData.getMaterial());
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        if (y < MIN_HEIGHT || y >= MAX_HEIGHT) return Material.AIR;
+
+        Material[] blocks = sections[(y - MIN_HEIGHT) >> 4];
+        Material material = blocks == null ? null : blocks[(y & 15) << 8 | z << 4 | x];
+        return material == null ? Material.AIR : material;
+    }
+
+    @Override
+    public MaterialData getTypeAndData(int x, int y, int z) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BlockData getBlockData(int x, int y, int z) {
+        if (y >= MIN_HEIGHT && y < MAX_HEIGHT) {
+            BlockData[] data = blockData[(y - MIN_HEIGHT) >> 4];
+            if (data != null && data[(y & 15) << 8 | z << 4 | x] != null) {
+                return data[(y & 15) << 8 | z << 4 | x].clone();
+            }
+        }
+        return getType(x, y, z).createBlockData();
+    }
+
+    @Override
+    public byte getData(int x, int y, int z) {
+        return 0;
+    }
+}
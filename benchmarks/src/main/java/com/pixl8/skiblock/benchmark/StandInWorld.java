@@ -0,0 +1,365 @@
+package com.pixl8.skiblock.benchmark;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An in-memory world for benchmarking block access, with chunks stored as {@link StandInChunkData}.
+ * Every chunk counts as generated and loaded; use {@link #asWorld()} to pass it to plugin code.
+ * Block data is parsed through the stand-in server, so call {@link StandIns#installServer()} before pasting.
+ */
+public class StandInWorld {
+    private final String name;
+    private final UUID uid = UUID.randomUUID();
+    private final Map<Long, StandInChunkData> chunks = new HashMap<>();
+    private final World world;
+    private long blockWrites;
+
+    public StandInWorld(String name) {
+        this.name = name;
+        this.world = StandIns.proxy(World.class, this);
+    }
+
+    /**
+     * @return this world as a Bukkit world
+     */
+    public World asWorld() {
+        return world;
+    }
+
+    /**
+     * @return the number of block changes since the world was created
+     */
+    public long getBlockWrites() {
+        return blockWrites;
+    }
+
+    /**
+     * Removes every block
+     */
+    public void clear() {
+        chunks.clear();
+    }
+
+    private StandInChunkData chunk(int chunkX, int chunkZ) {
+        return chunks.computeIfAbsent((long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL), key -> new StandInChunkData());
+    }
+
+    public void setType(int x, int y, int z, Material material) {
+        blockWrites++;
+        chunk(x >> 4, z >> 4).setBlock(x & 15, y, z & 15, material);
+    }
+
+    public void setBlockData(int x, int y, int z, BlockData blockData) {
+        blockWrites++;
+        chunk(x >> 4, z >> 4).setBlock(x & 15, y, z & 15, blockData);
+    }
+
+    public BlockData getBlockData(int x, int y, int z) {
+        StandInChunkData chunk = chunks.get((long) (x >> 4) << 32 | ((z >> 4) & 0xFFFFFFFFL));
+        return chunk == null ? Material.AIR.createBlockData() : chunk.getBlockData(x & 15, y, z & 15);
+    }
+
+    public Material getType(int x, int y, int z) {
+        StandInChunkData chunk = chunks.get((long) (x >> 4) << 32 | ((z >> 4) & 0xFFFFFFFFL));
+        return chunk == null ? Material.AIR : chunk.getType(x & 15, y, z & 15);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public UUID getUID() {
+        return uid;
+    }
+
+    public World.Environment getEnvironment() {
+        return World.Environment.NORMAL;
+    }
+
+    public long getSeed() {
+        return 0L;
+    }
+
+    public int getMinHeight() {
+        return StandInChunkData.MIN_HEIGHT;
+    }
+
+    public int getMaxHeight() {
+        return StandInChunkData.MAX_HEIGHT;
+    }
+
+    public Block getBlockAt(int x, int y, int z) {
+        return StandIns.proxy(Block.class, new StandInBlock(x, y, z));
+    }
+
+    public Block getBlockAt(Location location) {
+        return getBlockAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public int getHighestBlockYAt(int x, int z) {
+        StandInChunkData chunk = chunks.get((long) (x >> 4) << 32 | ((z >> 4) & 0xFFFFFFFFL));
+        if (chunk == null) return getMinHeight() - 1;
+        return highestBlockY(chunk, x & 15, z & 15);
+    }
+
+    private static int highestBlockY(StandInChunkData chunk, int x, int z) {
+        for (int section = (StandInChunkData.MAX_HEIGHT - StandInChunkData.MIN_HEIGHT >> 4) - 1; section >= 0; section--) {
+            if (chunk.isSectionEmpty(section)) continue;
+
+            int base = StandInChunkData.MIN_HEIGHT + (section << 4);
+            for (int y = base + 15; y >= base; y--) {
+                if (!chunk.getType(x, y, z).isAir()) return y;
+            }
+        }
+        return StandInChunkData.MIN_HEIGHT - 1;
+    }
+
+    public Chunk getChunkAt(int chunkX, int chunkZ) {
+        return StandIns.proxy(Chunk.class, new StandInChunk(chunkX, chunkZ));
+    }
+
+    public Chunk getChunkAt(Location location) {
+        return getChunkAt(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    public boolean isChunkGenerated(int chunkX, int chunkZ) {
+        return true;
+    }
+
+    public boolean isChunkLoaded(int chunkX, int chunkZ) {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * A block position, reading and writing through the world
+     */
+    public class StandInBlock {
+        private final int x;
+        private final int y;
+        private final int z;
+
+        StandInBlock(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getZ() {
+            return z;
+        }
+
+        public World getWorld() {
+            return world;
+        }
+
+        public Location getLocation() {
+            return new Location(world, x, y, z);
+        }
+
+        public Material getType() {
+            return StandInWorld.this.getType(x, y, z);
+        }
+
+        public boolean isEmpty() {
+            return getType().isAir();
+        }
+
+        public void setType(Material material) {
+            StandInWorld.this.setType(x, y, z, material);
+        }
+
+        public void setType(Material material, boolean applyPhysics) {
+            setType(material);
+        }
+
+        public BlockData getBlockData() {
+            return StandInWorld.this.getBlockData(x, y, z);
+        }
+
+        public void setBlockData(BlockData blockData) {
+            StandInWorld.this.setBlockData(x, y, z, blockData);
+        }
+
+        public void setBlockData(BlockData blockData, boolean applyPhysics) {
+            setBlockData(blockData);
+        }
+
+        /**
+         * Tile entities are not stood in, so every block has a plain state
+         */
+        public BlockState getState() {
+            return StandIns.proxy(BlockState.class, new StandInBlockState(this));
+        }
+
+        @Override
+        public String toString() {
+            return x + "," + y + "," + z;
+        }
+    }
+
+    /**
+     * The plain state of a block, reading through to the block
+     */
+    public class StandInBlockState {
+        private final StandInBlock block;
+
+        StandInBlockState(StandInBlock block) {
+            this.block = block;
+        }
+
+        public Block getBlock() {
+            return StandIns.proxy(Block.class, block);
+        }
+
+        public Material getType() {
+            return block.getType();
+        }
+
+        public BlockData getBlockData() {
+            return block.getBlockData();
+        }
+
+        public int getX() {
+            return block.getX();
+        }
+
+        public int getY() {
+            return block.getY();
+        }
+
+        public int getZ() {
+            return block.getZ();
+        }
+
+        public World getWorld() {
+            return world;
+        }
+
+        public Location getLocation() {
+            return block.getLocation();
+        }
+
+        @Override
+        public String toString() {
+            return block.toString();
+        }
+    }
+
+    /**
+     * A chunk position, handing out snapshots of the stored blocks
+     */
+    public class StandInChunk {
+        private final int chunkX;
+        private final int chunkZ;
+
+        StandInChunk(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        public int getX() {
+            return chunkX;
+        }
+
+        public int getZ() {
+            return chunkZ;
+        }
+
+        public World getWorld() {
+            return world;
+        }
+
+        public boolean isLoaded() {
+            return true;
+        }
+
+        public Block getBlock(int x, int y, int z) {
+            return getBlockAt((chunkX << 4) + x, y, (chunkZ << 4) + z);
+        }
+
+        public ChunkSnapshot getChunkSnapshot() {
+            return getChunkSnapshot(true, false, false);
+        }
+
+        public ChunkSnapshot getChunkSnapshot(boolean includeMaxBlockY, boolean includeBiome, boolean includeBiomeTempRain) {
+            return StandIns.proxy(ChunkSnapshot.class, new StandInSnapshot(chunkX, chunkZ, chunk(chunkX, chunkZ).copy()));
+        }
+
+        @Override
+        public String toString() {
+            return chunkX + "," + chunkZ;
+        }
+    }
+
+    /**
+     * A copy of a chunk's blocks, as the server hands out
+     */
+    public class StandInSnapshot {
+        private final int chunkX;
+        private final int chunkZ;
+        private final StandInChunkData blocks;
+
+        StandInSnapshot(int chunkX, int chunkZ, StandInChunkData blocks) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.blocks = blocks;
+        }
+
+        public int getX() {
+            return chunkX;
+        }
+
+        public int getZ() {
+            return chunkZ;
+        }
+
+        public String getWorldName() {
+            return name;
+        }
+
+        public Material getBlockType(int x, int y, int z) {
+            return blocks.getType(x, y, z);
+        }
+
+        public BlockData getBlockData(int x, int y, int z) {
+            return blocks.getBlockData(x, y, z);
+        }
+
+        public int getHighestBlockYAt(int x, int z) {
+            return highestBlockY(blocks, x, z);
+        }
+
+        public boolean isSectionEmpty(int section) {
+            return blocks.isSectionEmpty(section);
+        }
+
+        @Override
+        public String toString() {
+            return chunkX + "," + chunkZ;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.pixl8.skiblock.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.block.data.BlockData;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight in-process replacements for the server objects the plugin talks to.
+ * The Bukkit interfaces have hundreds of methods, so stand-ins only implement what the benchmarked
+ * code calls, as public methods on a plain class, and are exposed through a {@link Proxy} that forwards
+ * calls by name and parameter types. Anything else throws, so a benchmark that starts using a new server
+ * method fails loudly instead of measuring a silent no-op.
+ * The forwarding adds a small constant cost per call, which is the same from build to build.
+ */
+public final class StandIns {
+    private static final Map<Method, Method> TARGETS = new ConcurrentHashMap<>();
+    private static boolean serverInstalled;
+
+    private StandIns() {
+    }
+
+    /**
+     * Wraps an object in a proxy of a server interface
+     * @param type The interface to implement
+     * @param target The object whose public methods implement it
+     * @return the proxy
+     */
+    public static <T> T proxy(Class<T> type, Object target) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    if (method.getParameterCount() == 1) return proxy == args[0];
+                    break;
+                case "hashCode":
+                    if (method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                    break;
+                case "toString":
+                    if (method.getParameterCount() == 0) return type.getSimpleName() + "[" + target + "]";
+                    break;
+            }
+
+            Method implementation = TARGETS.computeIfAbsent(method, m -> find(target.getClass(), m));
+            if (implementation == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stood in");
+            }
+            try {
+                return implementation.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }));
+    }
+
+    private static Method find(Class<?> targetClass, Method method) {
+        try {
+            Method implementation = targetClass.getMethod(method.getName(), method.getParameterTypes());
+            implementation.setAccessible(true);
+            return implementation;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Installs a stand-in server so code that goes through {@link Bukkit}, such as block data parsing, works
+     */
+    public static synchronized void installServer() {
+        if (serverInstalled) return;
+        Bukkit.setServer(proxy(Server.class, new StandInServer()));
+        serverInstalled = true;
+    }
+
+    /**
+     * Only handles block data creation, plus what {@link Bukkit#setServer} logs
+     */
+    public static class StandInServer {
+        private final Logger logger = Logger.getLogger("StandInServer");
+
+        public Logger getLogger() {
+            return logger;
+        }
+
+        public String getName() {
+            return "StandIn";
+        }
+
+        public String getVersion() {
+            return "benchmark";
+        }
+
+        public String getBukkitVersion() {
+            return "benchmark";
+        }
+
+        public BlockData createBlockData(Material material) {
+            return blockData(material, "minecraft:" + material.name().toLowerCase(Locale.ROOT));
+        }
+
+        public BlockData createBlockData(String data) {
+            int states = data.indexOf('[');
+            Material material = Material.matchMaterial(states < 0 ? data : data.substring(0, states));
+            if (material == null) {
+                throw new IllegalArgumentException("Unknown block data " + data);
+            }
+            return blockData(material, data);
+        }
+    }
+
+    private static BlockData blockData(Material material, String data) {
+        return proxy(BlockData.class, new StandInBlockData(material, data));
+    }
+
+    /**
+     * Block data holding only its type and state string
+     */
+    public static class StandInBlockData {
+        private final Material material;
+        private final String data;
+
+        StandInBlockData(Material material, String data) {
+            this.material = material;
+            this.data = data;
+        }
+
+        public Material getMaterial() {
+            return material;
+        }
+
+        public String getAsString() {
+            return data;
+        }
+
+        public BlockData clone() {
+            return blockData(material, data);
+        }
+
+        @Override
+        public String toString() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.pixl8.skiblock.benchmark;
+
+import com.pixl8.skiblock.VoidGenerator;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.generator.BiomeProvider;
+import org.bukkit.generator.WorldInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures void chunks generated per second with the original per-voxel generateChunkData loop
+ * and with the {@link VoidGenerator} hooks as the server drives them.
+ * Chunks are written into a {@link StandInChunkData}, which allocates a section on the first write to it, air included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VoidGeneratorBenchmark {
+    private static final int MIN_HEIGHT = StandInChunkData.MIN_HEIGHT;
+    private static final int MAX_HEIGHT = StandInChunkData.MAX_HEIGHT;
+
+    private final WorldInfo worldInfo = new StandInWorldInfo();
+    private final Random random = new Random();
+    private VoidGenerator generator;
+    private BiomeProvider biomes;
+    private int chunk;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = new VoidGenerator();
+        biomes = generator.getDefaultBiomeProvider(worldInfo);
+    }
+
+    /**
+     * The generator as it was: every voxel from 0 to the max height set to air, then a BiomeGrid fill
+     */
+    @Benchmark
+    public StandInChunkData legacy() {
+        StandInChunkData chunkData = new StandInChunkData();
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = 0; y < MAX_HEIGHT; y++) {
+                    chunkData.setBlock(x, y, z, Material.AIR);
+                }
+            }
+        }
+
+        Biome[] biomeGrid = new Biome[16 * 16];
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                biomeGrid[x << 4 | z] = Biome.OCEAN;
+            }
+        }
+        chunkData.biomes = biomeGrid;
+        return chunkData;
+    }
+
+    /**
+     * The generation steps the server runs for a modern generator, with the vanilla steps skipped
+     * whenever the generator opts out of them
+     */
+    @Benchmark
+    public StandInChunkData hooks() {
+        int chunkX = chunk++ & 0xFFFF;
+        int chunkZ = chunkX >> 8;
+        random.setSeed((long) chunkX * 341873128712L + (long) chunkZ * 132897987541L);
+        StandInChunkData chunkData = new StandInChunkData();
+
+        if (generator.shouldGenerateNoise(worldInfo, random, chunkX, chunkZ)) chunkData.fillVanilla();
+        generator.generateNoise(worldInfo, random, chunkX, chunkZ, chunkData);
+        if (generator.shouldGenerateSurface(worldInfo, random, chunkX, chunkZ)) chunkData.fillVanilla();
+        generator.generateSurface(worldInfo, random, chunkX, chunkZ, chunkData);
+        generator.generateBedrock(worldInfo, random, chunkX, chunkZ, chunkData);
+        if (generator.shouldGenerateCaves(worldInfo, random, chunkX, chunkZ)) chunkData.fillVanilla();
+        generator.generateCaves(worldInfo, random, chunkX, chunkZ, chunkData);
+
+        // Biomes are stored per 4x4x4 cell
+        int cellsY = (MAX_HEIGHT - MIN_HEIGHT) >> 2;
+        Biome[] biomeCells = new Biome[4 * 4 * cellsY];
+        int index = 0;
+        for (int y = 0; y < cellsY; y++) {
+            for (int x = 0; x < 4; x++) {
+                for (int z = 0; z < 4; z++) {
+                    biomeCells[index++] = biomes.getBiome(worldInfo, (chunkX << 4) + (x << 2),
+                            MIN_HEIGHT + (y << 2), (chunkZ << 4) + (z << 2));
+                }
+            }
+        }
+        chunkData.biomes = biomeCells;
+        return chunkData;
+    }
+
+    private static class StandInWorldInfo implements WorldInfo {
+        private final UUID uid = UUID.randomUUID();
+
+        @Override
+        public String getName() {
+            return "skiblock";
+        }
+
+        @Override
+        public UUID getUID() {
+            return uid;
+        }
+
+        @Override
+        public World.Environment getEnvironment() {
+            return World.Environment.NORMAL;
+        }
+
+        @Override
+        public long getSeed() {
+            return 0L;
+        }
+
+        @Override
+        public int getMinHeight() {
+            return MIN_HEIGHT;
+        }
+
+        @Override
+        public int getMaxHeight() {
+            return MAX_HEIGHT;
+        }
+    }
+}
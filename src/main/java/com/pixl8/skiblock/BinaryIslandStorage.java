@@ -0,0 +1,221 @@
+package com.pixl8.skiblock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Stores islands as fixed-size records in a single binary file (islands.dat).
+ * Each island owns one record slot, so a write touches only the records of the islands that changed.
+ * Deleted islands leave a free slot that is reused by the next new island.
+ *
+ * <pre>
+ * header:  int magic, int version, int recordSize, int reserved
+ * record:  byte state, long uuidMost, long uuidLeast, double x, double y, double z,
+ *          float yaw, float pitch, byte worldNameLength, byte[32] worldName, int borderRadius,
+ *          reserved padding, int crc32 (over every preceding byte of the record)
+ * </pre>
+ * Records written before per-island borders have 0 in the radius field and use the configured radius.
+ */
+public class BinaryIslandStorage implements IslandStorage {
+    private static final int MAGIC = 0x534B4949; // "SKII"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 128;
+    private static final int MAX_WORLD_NAME = 32;
+    private static final int BORDER_OFFSET = 82;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+
+    private static final byte STATE_FREE = 0;
+    private static final byte STATE_LIVE = 1;
+
+    private final File dataFile;
+    private final Logger logger;
+    private final int borderRadius;
+    private final FileChannel channel;
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private int recordCount;
+
+    public BinaryIslandStorage(File dataFile, Logger logger, int borderRadius) throws IOException {
+        this.dataFile = dataFile;
+        this.logger = logger;
+        this.borderRadius = borderRadius;
+        this.channel = FileChannel.open(dataFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (channel.size() < HEADER_SIZE) {
+            writeHeader();
+        } else {
+            readHeader();
+        }
+        this.recordCount = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    @Override
+    public synchronized void load(Consumer<Island> consumer) throws IOException {
+        slots.clear();
+        freeSlots.clear();
+
+        long size = (long) recordCount * RECORD_SIZE;
+        if (size == 0) return;
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size);
+        byte[] record = new byte[RECORD_SIZE];
+        for (int slot = 0; slot < recordCount; slot++) {
+            buffer.get(record);
+            ByteBuffer view = ByteBuffer.wrap(record);
+
+            if (view.get(0) != STATE_LIVE) {
+                freeSlots.add(slot);
+                continue;
+            }
+
+            crc.reset();
+            crc.update(record, 0, CRC_OFFSET);
+            if ((int) crc.getValue() != view.getInt(CRC_OFFSET)) {
+                logger.warning("Skipping corrupt island record in slot " + slot + " of " + dataFile.getName());
+                freeSlots.add(slot);
+                continue;
+            }
+
+            Island island = decode(view);
+            slots.put(island.getOwner(), slot);
+            consumer.accept(island);
+        }
+    }
+
+    @Override
+    public synchronized void write(Collection<UUID> changed, IslandRegistry registry) throws IOException {
+        for (UUID owner : changed) {
+            Island island = registry.get(owner);
+            if (island == null) {
+                // Island was deleted, release its slot
+                Integer slot = slots.remove(owner);
+                if (slot != null) {
+                    recordBuffer.clear();
+                    recordBuffer.put(new byte[RECORD_SIZE]);
+                    writeRecord(slot);
+                    freeSlots.push(slot);
+                }
+                continue;
+            }
+
+            byte[] worldName = island.getWorldName().getBytes(StandardCharsets.UTF_8);
+            if (worldName.length > MAX_WORLD_NAME) {
+                // Retrying cannot fix it, so skip this island rather than failing the whole batch
+                logger.warning("Could not save the island of " + owner + ": world name " + island.getWorldName()
+                        + " is longer than " + MAX_WORLD_NAME + " bytes");
+                continue;
+            }
+
+            Integer slot = slots.get(owner);
+            if (slot == null) {
+                slot = freeSlots.isEmpty() ? recordCount++ : freeSlots.pop();
+                slots.put(owner, slot);
+            }
+            encode(island, worldName);
+            writeRecord(slot);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    public File getDataFile() {
+        return dataFile;
+    }
+
+    private void encode(Island island, byte[] worldName) {
+        recordBuffer.clear();
+        recordBuffer.put(STATE_LIVE);
+        recordBuffer.putLong(island.getOwner().getMostSignificantBits());
+        recordBuffer.putLong(island.getOwner().getLeastSignificantBits());
+        recordBuffer.putDouble(island.getX());
+        recordBuffer.putDouble(island.getY());
+        recordBuffer.putDouble(island.getZ());
+        recordBuffer.putFloat(island.getYaw());
+        recordBuffer.putFloat(island.getPitch());
+        recordBuffer.put((byte) worldName.length);
+        recordBuffer.put(worldName);
+        while (recordBuffer.position() < BORDER_OFFSET) {
+            recordBuffer.put((byte) 0);
+        }
+        recordBuffer.putInt(island.getBorderRadius());
+        while (recordBuffer.position() < CRC_OFFSET) {
+            recordBuffer.put((byte) 0);
+        }
+
+        crc.reset();
+        crc.update(recordBuffer.array(), 0, CRC_OFFSET);
+        recordBuffer.putInt((int) crc.getValue());
+    }
+
+    private Island decode(ByteBuffer view) {
+        view.position(1);
+        UUID owner = new UUID(view.getLong(), view.getLong());
+        double x = view.getDouble();
+        double y = view.getDouble();
+        double z = view.getDouble();
+        float yaw = view.getFloat();
+        float pitch = view.getFloat();
+        int nameLength = view.get() & 0xFF;
+        String worldName = new String(view.array(), view.position(), nameLength, StandardCharsets.UTF_8);
+        int radius = view.getInt(BORDER_OFFSET);
+        return new Island(owner, worldName, x, y, z, yaw, pitch, radius > 0 ? radius : borderRadius);
+    }
+
+    private void writeRecord(int slot) throws IOException {
+        recordBuffer.flip();
+        long offset = HEADER_SIZE + (long) slot * RECORD_SIZE;
+        while (recordBuffer.hasRemaining()) {
+            offset += channel.write(recordBuffer, offset);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0);
+        header.flip();
+        channel.truncate(0);
+        channel.write(header, 0);
+        channel.force(true);
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException(dataFile.getName() + " is not a SKIBlock island file");
+        }
+        int version = header.getInt();
+        int recordSize = header.getInt();
+        if (version != VERSION || recordSize != RECORD_SIZE) {
+            throw new IOException("Unsupported island file version " + version + " in " + dataFile.getName());
+        }
+    }
+}
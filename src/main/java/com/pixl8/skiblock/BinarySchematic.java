@@ -0,0 +1,306 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes the compact binary schematic format (.skis).
+ * The body is read as a stream straight into a {@link CompiledSchematic.Builder}, so no intermediate
+ * maps are built however large the schematic is.
+ *
+ * <pre>
+ * header:  int magic, byte version, byte flags (1 = body is gzip compressed)
+ * body:    varint paletteSize, paletteSize x string blockData,
+ *          zigzag minX, minY, minZ, varint width, height, length,
+ *          varint blockCount, blockCount x (varint gap, varint paletteIndex),
+ *          varint chestCount, chestCount x (varint blockNumber, varint itemCount, itemCount x item)
+ * item:    string material, varint amount, string meta (version 2 only)
+ * </pre>
+ * Blocks are ordered by their index in the bounding box (x fastest, then z, then y) and each stores
+ * the number of empty positions skipped since the previous block, so both sparse and dense schematics stay small.
+ * Strings are a varint byte length followed by UTF-8. The meta of an item is empty for a plain stack, otherwise
+ * the whole stack as Bukkit serializes it to YAML, so names, enchantments and lore survive. Version 1 files,
+ * which only stored material and amount, are still read.
+ */
+public final class BinarySchematic {
+    public static final String EXTENSION = ".skis";
+    private static final int MAGIC = 0x534B4953; // "SKIS"
+    private static final int VERSION = 2;
+    private static final String ITEM_KEY = "item";
+    private static final int FLAG_GZIP = 1;
+
+    private BinarySchematic() {
+    }
+
+    /**
+     * Reads a binary schematic file
+     * @param file The file to read
+     * @return the compiled schematic
+     * @throws IOException if the file cannot be read or is not a binary schematic
+     */
+    public static CompiledSchematic read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a binary schematic from a stream
+     * @param input The stream, positioned at the header
+     * @return the compiled schematic
+     * @throws IOException if the stream cannot be read or is not a binary schematic
+     */
+    public static CompiledSchematic read(InputStream input) throws IOException {
+        DataInputStream header = new DataInputStream(new BufferedInputStream(input));
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a SKIBlock schematic");
+        }
+        int version = header.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported schematic version " + version);
+        }
+        int flags = header.readUnsignedByte();
+        DataInputStream in = (flags & FLAG_GZIP) != 0
+                ? new DataInputStream(new BufferedInputStream(new GZIPInputStream(header)))
+                : header;
+
+        CompiledSchematic.Builder builder = new CompiledSchematic.Builder();
+        int[] palette = new int[readVarInt(in)];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = builder.palette(readString(in));
+        }
+
+        int minX = readZigZag(in);
+        int minY = readZigZag(in);
+        int minZ = readZigZag(in);
+        int width = readVarInt(in);
+        readVarInt(in); // height, only needed by readers that allocate the whole box
+        int length = readVarInt(in);
+        long area = (long) width * length;
+
+        int blockCount = readVarInt(in);
+        int[] blockPositions = new int[blockCount];
+        long position = -1;
+        for (int i = 0; i < blockCount; i++) {
+            position += readVarInt(in) + 1;
+            int index = readVarInt(in);
+            if (index >= palette.length) {
+                throw new IOException("Palette index " + index + " out of range");
+            }
+
+            int x = (int) (position % width);
+            int z = (int) (position / width % length);
+            int y = (int) (position / area);
+            builder.block(minX + x, minY + y, minZ + z, palette[index]);
+            blockPositions[i] = CompiledSchematic.pack(minX + x, minY + y, minZ + z);
+        }
+
+        int chestCount = readVarInt(in);
+        for (int i = 0; i < chestCount; i++) {
+            int block = readVarInt(in);
+            List<ItemStack> items = new ArrayList<>();
+            for (int item = readVarInt(in); item > 0; item--) {
+                Material material = Material.getMaterial(readString(in));
+                int amount = readVarInt(in);
+                ItemStack stack = version >= 2 ? readMeta(readString(in)) : null;
+                if (stack != null) {
+                    items.add(stack);
+                } else if (material != null) {
+                    items.add(new ItemStack(material, amount));
+                }
+            }
+            if (block < blockCount) {
+                int packed = blockPositions[block];
+                builder.chest(CompiledSchematic.unpackX(packed), CompiledSchematic.unpackY(packed),
+                        CompiledSchematic.unpackZ(packed), items.toArray(new ItemStack[0]));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes a schematic to a file through a temp file and rename
+     * @param schematic The schematic to write
+     * @param file The target file
+     * @param gzip Whether to compress the body
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(CompiledSchematic schematic, File file, boolean gzip) throws IOException {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            write(schematic, out, gzip);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes a schematic to a stream
+     * @param schematic The schematic to write
+     * @param output The stream, which is finished but not closed
+     * @param gzip Whether to compress the body
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(CompiledSchematic schematic, OutputStream output, boolean gzip) throws IOException {
+        DataOutputStream header = new DataOutputStream(output);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(gzip ? FLAG_GZIP : 0);
+        header.flush();
+
+        GZIPOutputStream compressor = gzip ? new GZIPOutputStream(output, 8192) : null;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(compressor != null ? compressor : output));
+
+        writeVarInt(out, schematic.getPaletteSize());
+        for (int i = 0; i < schematic.getPaletteSize(); i++) {
+            writeString(out, schematic.getPaletteEntry(i));
+        }
+
+        int size = schematic.size();
+        int minX = 0, minY = 0, minZ = 0, maxX = 0, maxY = 0, maxZ = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || schematic.getX(i) < minX) minX = schematic.getX(i);
+            if (i == 0 || schematic.getY(i) < minY) minY = schematic.getY(i);
+            if (i == 0 || schematic.getZ(i) < minZ) minZ = schematic.getZ(i);
+            if (i == 0 || schematic.getX(i) > maxX) maxX = schematic.getX(i);
+            if (i == 0 || schematic.getY(i) > maxY) maxY = schematic.getY(i);
+            if (i == 0 || schematic.getZ(i) > maxZ) maxZ = schematic.getZ(i);
+        }
+        int width = maxX - minX + 1;
+        int length = maxZ - minZ + 1;
+        writeZigZag(out, minX);
+        writeZigZag(out, minY);
+        writeZigZag(out, minZ);
+        writeVarInt(out, width);
+        writeVarInt(out, maxY - minY + 1);
+        writeVarInt(out, length);
+
+        // Sort blocks by their index in the bounding box, which fits in 30 bits
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            long position = ((long) (schematic.getY(i) - minY) * length + (schematic.getZ(i) - minZ)) * width
+                    + (schematic.getX(i) - minX);
+            order[i] = position << 32 | i;
+        }
+        Arrays.sort(order);
+
+        int[] blockNumber = new int[size];
+        writeVarInt(out, size);
+        long previous = -1;
+        for (int n = 0; n < size; n++) {
+            long position = order[n] >>> 32;
+            int i = (int) order[n];
+            blockNumber[i] = n;
+            writeVarInt(out, (int) (position - previous - 1));
+            writeVarInt(out, schematic.getPaletteIndex(i));
+            previous = position;
+        }
+
+        writeVarInt(out, schematic.getChestCount());
+        for (int chest = 0; chest < schematic.getChestCount(); chest++) {
+            ItemStack[] items = schematic.getChestItems(chest);
+            writeVarInt(out, blockNumber[schematic.getChestBlock(chest)]);
+            writeVarInt(out, items.length);
+            for (ItemStack item : items) {
+                writeString(out, item.getType().name());
+                writeVarInt(out, item.getAmount());
+                writeString(out, item.hasItemMeta() ? writeMeta(item) : "");
+            }
+        }
+
+        out.flush();
+        if (compressor != null) {
+            compressor.finish();
+        }
+    }
+
+    /**
+     * @return the whole stack as YAML
+     */
+    private static String writeMeta(ItemStack item) {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set(ITEM_KEY, item);
+        return yaml.saveToString();
+    }
+
+    /**
+     * @return the stack stored in an item's meta, or null for a plain stack
+     */
+    private static ItemStack readMeta(String meta) throws IOException {
+        if (meta.isEmpty()) return null;
+
+        YamlConfiguration yaml = new YamlConfiguration();
+        try {
+            yaml.loadFromString(meta);
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Corrupt chest item: " + e.getMessage(), e);
+        }
+        return yaml.getItemStack(ITEM_KEY);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarInt too long");
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readZigZag(DataInputStream in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeZigZag(DataOutputStream out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+}
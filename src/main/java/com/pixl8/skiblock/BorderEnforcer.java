@@ -0,0 +1,304 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Keeps players inside the border of the island they are on.
+ * The island is resolved from the player's position through the {@link IslandGrid},
+ * so owners, co-op members and visitors are all held by the island they stand in.
+ * Players in unclaimed cells are held by their own island, if they have one.
+ * Checks either run for every online player on a timer ({@link Mode#POLLING}) or only
+ * when a player moves to another block, teleports or rides a vehicle ({@link Mode#EVENTS}).
+ * In {@link Mode#CLIENT} the {@link ClientBorderManager} borders stop walking players on the client,
+ * so only teleports are checked here.
+ */
+public class BorderEnforcer implements Listener {
+    private final IslandGrid grid;
+    private final Function<UUID, Island> ownIsland;
+    private final Mode mode;
+    private final BorderVisualizer visualizer;
+    private final SafeLocationResolver safeLocations;
+    private final Metrics metrics;
+    private final Map<UUID, BorderState> states = new HashMap<>();
+
+    // Counters for comparing the enforcement modes, only touched on the main thread
+    private long countersSince = System.nanoTime();
+    private long checks;
+    private long skippedChecks;
+    private long violations;
+    private long checkNanos;
+
+    public enum Mode {
+        POLLING,
+        EVENTS,
+        CLIENT;
+
+        public static Mode fromConfig(String name) {
+            if (name != null && name.equalsIgnoreCase("polling")) return POLLING;
+            if (name != null && name.equalsIgnoreCase("client")) return CLIENT;
+            return EVENTS;
+        }
+    }
+
+    /**
+     * Where a checked location is relative to the border of the island holding the player
+     */
+    public enum Result {
+        /** No island holds the player in that world */
+        NONE,
+        INSIDE,
+        /** Inside the border but close enough to show it */
+        NEAR_BORDER,
+        OUTSIDE
+    }
+
+    // Per-player cache of the last resolved cell, dropped when the player quits
+    private static class BorderState {
+        private long cellKey;
+        private int gridVersion = -1;
+        private Island island;
+    }
+
+    public BorderEnforcer(IslandData islandData, Mode mode, BorderVisualizer visualizer, SafeLocationResolver safeLocations,
+                          Metrics metrics) {
+        this(islandData.getGrid(), islandData::getPlayerIsland, mode, visualizer, safeLocations, metrics);
+    }
+
+    /**
+     * @param ownIsland Looks up a player's own island, which holds them in unclaimed cells
+     */
+    public BorderEnforcer(IslandGrid grid, Function<UUID, Island> ownIsland, Mode mode, BorderVisualizer visualizer,
+                          SafeLocationResolver safeLocations, Metrics metrics) {
+        this.grid = grid;
+        this.ownIsland = ownIsland;
+        this.mode = mode;
+        this.visualizer = visualizer;
+        this.safeLocations = safeLocations;
+        this.metrics = metrics;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Checks every online player against their current island's border
+     */
+    public void checkAll() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            check(player);
+        }
+    }
+
+    /**
+     * Checks a single player against their current island's border and teleports them back inside if needed
+     * @param player The player to check
+     */
+    public void check(Player player) {
+        Location corrected = enforce(player, player.getLocation());
+        if (corrected != null) {
+            player.teleport(corrected);
+        }
+    }
+
+    /**
+     * Checks a location a player is at or moving to
+     * @return a safe location inside the border to use instead, or null if the location is allowed
+     */
+    private Location enforce(Player player, Location location) {
+        Result result = checkBorder(player.getUniqueId(), location);
+        if (result == Result.NONE || result == Result.INSIDE) return null;
+
+        Island island = states.get(player.getUniqueId()).island;
+        Location corrected = null;
+        if (result == Result.OUTSIDE) {
+            // Find a safe location just inside the border, as close to the player as possible
+            Location safeLocation = safeLocations.findSafeLocation(island, location.getWorld(), location.getX(), location.getY(), location.getZ());
+            if (safeLocation != null) {
+                // Preserve player's rotation
+                corrected = new Location(safeLocation.getWorld(),
+                        safeLocation.getX(),
+                        safeLocation.getY(),
+                        safeLocation.getZ(),
+                        location.getYaw(),
+                        location.getPitch());
+                player.sendMessage(island.getOwner().equals(player.getUniqueId())
+                        ? "You cannot leave your island!"
+                        : "You cannot leave this island!");
+            }
+        }
+
+        // Show particles when near border, the client draws its own border in client mode
+        if (mode != Mode.CLIENT) {
+            visualizer.show(player, location);
+        }
+        return corrected;
+    }
+
+    /**
+     * Resolves the island holding a player at a location and tests the location against its border,
+     * counting and timing the check. Only touches the grid and the own-island lookup, so it runs without a server.
+     * @param playerId The player at or moving to the location
+     * @param location The location to check
+     * @return where the location is relative to the border
+     */
+    public Result checkBorder(UUID playerId, Location location) {
+        long start = System.nanoTime();
+        checks++;
+        try {
+            Island island = resolveIsland(playerId, location);
+            World world = location.getWorld();
+            if (island == null || world == null || !world.getName().equals(island.getWorldName())) return Result.NONE;
+
+            // Check if player is outside the square border
+            double playerX = location.getX();
+            double playerZ = location.getZ();
+            if (!island.contains(playerX, playerZ)) {
+                violations++;
+                metrics.increment(Metrics.Counter.BORDER_VIOLATIONS);
+                return Result.OUTSIDE;
+            }
+
+            // Only show when actually hitting the border
+            double radius = island.getBorderRadius();
+            return island.distanceSquared(playerX, location.getY(), playerZ) > radius * radius ? Result.NEAR_BORDER : Result.INSIDE;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            checkNanos += nanos;
+            metrics.record(Metrics.Operation.BORDER_CHECK, nanos);
+        }
+    }
+
+    private static boolean sameBlockColumn(Location from, Location to) {
+        return from.getBlockX() == to.getBlockX()
+                && from.getBlockZ() == to.getBlockZ()
+                && from.getWorld() == to.getWorld();
+    }
+
+    private Island resolveIsland(UUID playerId, Location location) {
+        BorderState state = states.computeIfAbsent(playerId, id -> new BorderState());
+        long cellKey = grid.cellKeyAt(location.getX(), location.getZ());
+        int version = grid.getVersion();
+
+        // Only hit the grid when the player changed cells or an island was added, moved or removed
+        if (cellKey != state.cellKey || version != state.gridVersion) {
+            Island island = grid.getIslandInCell(cellKey);
+            state.island = island != null ? island : ownIsland.apply(playerId);
+            state.cellKey = cellKey;
+            state.gridVersion = version;
+        }
+        return state.island;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        if (mode != Mode.EVENTS) return;
+
+        // Borders are vertical, so only moving to another block column can cross one
+        Location to = event.getTo();
+        if (to == null || sameBlockColumn(event.getFrom(), to)) {
+            skippedChecks++;
+            return;
+        }
+
+        Location corrected = enforce(event.getPlayer(), to);
+        if (corrected != null) {
+            event.setTo(corrected);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        // Covers ender pearls, chorus fruit and commands, which client borders do not stop
+        if (mode == Mode.POLLING) return;
+
+        Location to = event.getTo();
+        if (to == null || sameBlockColumn(event.getFrom(), to)) {
+            skippedChecks++;
+            return;
+        }
+
+        Location corrected = enforce(event.getPlayer(), to);
+        if (corrected != null) {
+            event.setTo(corrected);
+        }
+    }
+
+    @EventHandler
+    public void onVehicleMove(VehicleMoveEvent event) {
+        if (mode != Mode.EVENTS) return;
+
+        Location to = event.getTo();
+        if (sameBlockColumn(event.getFrom(), to)) {
+            skippedChecks++;
+            return;
+        }
+
+        for (Entity passenger : event.getVehicle().getPassengers()) {
+            if (!(passenger instanceof Player player)) continue;
+
+            Location corrected = enforce(player, to);
+            if (corrected != null) {
+                // Riders cannot be teleported, so drop them off inside the border
+                player.leaveVehicle();
+                player.teleport(corrected);
+            }
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        states.remove(event.getPlayer().getUniqueId());
+        visualizer.forget(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Clears the check counters
+     */
+    public void resetCounters() {
+        countersSince = System.nanoTime();
+        checks = 0;
+        skippedChecks = 0;
+        violations = 0;
+        checkNanos = 0;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public long getSkippedChecks() {
+        return skippedChecks;
+    }
+
+    public long getViolations() {
+        return violations;
+    }
+
+    public double getCheckMillis() {
+        return checkNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return seconds since the counters were last reset
+     */
+    public double getCounterSeconds() {
+        return (System.nanoTime() - countersSince) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,90 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Color;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Draws the red sphere shown around a player who hits their island border.
+ * The sphere points are precomputed once and the dust options are shared, so showing
+ * the effect only sends packets. Particles go to the player themselves and to other
+ * players within the view distance, at most once per interval per player.
+ */
+public class BorderVisualizer {
+    private static final double SPHERE_RADIUS = 1.5;
+    private static final double PLAYER_HEIGHT = 1.8; // Typical player height
+
+    private final Particle.DustTransition dust = new Particle.DustTransition(Color.RED, Color.RED, 1.0f);
+    private final double[] offsetX;
+    private final double[] offsetY;
+    private final double[] offsetZ;
+    private final long intervalNanos;
+    private final double viewDistanceSquared;
+    private final Map<UUID, Long> lastShown = new HashMap<>();
+
+    /**
+     * @param density Number of particles in the sphere
+     * @param intervalTicks Minimum ticks between two effects for the same player
+     * @param viewDistance Distance in blocks within which other players also see the effect
+     */
+    public BorderVisualizer(int density, long intervalTicks, double viewDistance) {
+        int points = Math.max(1, density);
+        this.offsetX = new double[points];
+        this.offsetY = new double[points];
+        this.offsetZ = new double[points];
+        this.intervalNanos = Math.max(0L, intervalTicks) * 50_000_000L;
+        this.viewDistanceSquared = viewDistance * viewDistance;
+
+        // Spread the points evenly over the sphere along a Fibonacci spiral
+        double goldenAngle = Math.PI * (3 - Math.sqrt(5));
+        for (int i = 0; i < points; i++) {
+            double y = 1 - 2 * (i + 0.5) / points;
+            double ring = Math.sqrt(1 - y * y);
+            double angle = goldenAngle * i;
+            offsetX[i] = SPHERE_RADIUS * ring * Math.cos(angle);
+            offsetY[i] = SPHERE_RADIUS * y + PLAYER_HEIGHT / 2; // Center around player's middle
+            offsetZ[i] = SPHERE_RADIUS * ring * Math.sin(angle);
+        }
+    }
+
+    /**
+     * Shows the border effect around a player, unless it was shown too recently
+     * @param player The player at the border
+     * @param location Where the player is
+     */
+    public void show(Player player, Location location) {
+        long now = System.nanoTime();
+        Long last = lastShown.get(player.getUniqueId());
+        if (last != null && now - last < intervalNanos) return;
+        lastShown.put(player.getUniqueId(), now);
+
+        World world = location.getWorld();
+        if (world == null) return;
+
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        for (Player viewer : world.getPlayers()) {
+            if (viewer != player && viewer.getLocation().distanceSquared(location) > viewDistanceSquared) continue;
+
+            for (int i = 0; i < offsetX.length; i++) {
+                viewer.spawnParticle(Particle.DUST_COLOR_TRANSITION, x + offsetX[i], y + offsetY[i], z + offsetZ[i],
+                        1, 0, 0, 0, 0.1, dust);
+            }
+        }
+    }
+
+    /**
+     * Drops the rate limit state of a player
+     * @param playerId The player who left
+     */
+    public void forget(UUID playerId) {
+        lastShown.remove(playerId);
+    }
+}
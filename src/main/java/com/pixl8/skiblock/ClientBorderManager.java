@@ -0,0 +1,134 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.WorldBorder;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sends every player a virtual world border around the island they are on, so the client
+ * renders the edge and stops the player at it without any server-side checks.
+ * One border is kept per island and shared by everyone on it, so resizing an island's border
+ * reaches all of its players at once. Borders are reapplied on join, teleport, respawn and world change.
+ */
+public class ClientBorderManager implements Listener {
+    private final JavaPlugin plugin;
+    private final IslandData islandData;
+    private final Map<UUID, IslandBorder> borders = new HashMap<>();
+    // Owner of the island whose border each player currently has
+    private final Map<UUID, UUID> applied = new HashMap<>();
+
+    private static class IslandBorder {
+        private Island island;
+        private final WorldBorder border = Bukkit.createWorldBorder();
+    }
+
+    public ClientBorderManager(JavaPlugin plugin, IslandData islandData) {
+        this.plugin = plugin;
+        this.islandData = islandData;
+    }
+
+    /**
+     * Sends a player the border of the island they are on, or restores the world's own border if they are on none
+     * @param player The player
+     */
+    public void apply(Player player) {
+        UUID playerId = player.getUniqueId();
+        Location location = player.getLocation();
+        Island island = islandData.getIslandAt(location.getX(), location.getZ());
+        if (island == null) {
+            island = islandData.getPlayerIsland(playerId);
+        }
+
+        if (island == null || location.getWorld() == null || !location.getWorld().getName().equals(island.getWorldName())) {
+            if (applied.remove(playerId) != null) {
+                player.setWorldBorder(null);
+            }
+            return;
+        }
+
+        WorldBorder border = getBorder(island);
+        if (!island.getOwner().equals(applied.put(playerId, island.getOwner()))) {
+            player.setWorldBorder(border);
+        }
+    }
+
+    /**
+     * Brings an island's border up to date after the island changed or was removed
+     * @param owner The island owner
+     */
+    public void refresh(UUID owner) {
+        Island island = islandData.getIsland(owner);
+        if (island != null) {
+            // Players who already have the border see the change straight away
+            getBorder(island);
+            return;
+        }
+
+        borders.remove(owner);
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (owner.equals(applied.get(player.getUniqueId()))) {
+                apply(player);
+            }
+        }
+    }
+
+    private WorldBorder getBorder(Island island) {
+        IslandBorder entry = borders.computeIfAbsent(island.getOwner(), owner -> new IslandBorder());
+        if (entry.island != island) {
+            entry.island = island;
+            entry.border.setCenter(island.getX(), island.getZ());
+            entry.border.setSize(island.getBorderRadius() * 2.0);
+            // A small island would otherwise be tinted red the whole time
+            entry.border.setWarningDistance(0);
+        }
+        return entry.border;
+    }
+
+    private void applyNextTick(Player player) {
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (player.isOnline()) {
+                apply(player);
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        apply(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        // The player is only at the destination once the event has finished
+        applyNextTick(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        applyNextTick(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        apply(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        applied.remove(event.getPlayer().getUniqueId());
+    }
+}
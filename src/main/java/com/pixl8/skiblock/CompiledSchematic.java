@@ -0,0 +1,373 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.Chest;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, pre-parsed form of a schematic.
+ * Blocks are stored as a palette of block data strings plus two parallel int arrays: packed relative
+ * coordinates and palette indices. Palette entries are turned into {@link BlockData} once, on first paste,
+ * so block states such as log axis or leaf persistence survive. Chest contents are resolved to item
+ * templates up front, so pasting is a tight loop without any parsing or string handling.
+ */
+public final class CompiledSchematic {
+    private static final int COORD_BITS = 10;
+    private static final int COORD_MASK = (1 << COORD_BITS) - 1;
+    private static final int COORD_MIN = -(1 << (COORD_BITS - 1));
+    private static final int COORD_MAX = (1 << (COORD_BITS - 1)) - 1;
+
+    private final String[] palette;
+    private final Material[] materials;
+    private final int[] positions;
+    private final int[] blocks;
+    private final int[] chestBlocks;
+    private final ItemStack[][] chestItems;
+    private volatile BlockData[] blockData;
+
+    private CompiledSchematic(String[] palette, Material[] materials, int[] positions, int[] blocks,
+                              int[] chestBlocks, ItemStack[][] chestItems) {
+        this.palette = palette;
+        this.materials = materials;
+        this.positions = positions;
+        this.blocks = blocks;
+        this.chestBlocks = chestBlocks;
+        this.chestItems = chestItems;
+    }
+
+    /**
+     * Compiles the "blocks" and "chest_contents" sections of a YAML schematic
+     * @param blockEntries Map of "x,y,z" keys to material names
+     * @param chestContents Map of "x,y,z" keys to "MATERIAL:amount" item lists, may be null
+     * @return the compiled schematic
+     * @throws IllegalArgumentException if a coordinate is outside the supported range
+     */
+    public static CompiledSchematic compile(Map<String, String> blockEntries, Map<String, List<String>> chestContents) {
+        Builder builder = new Builder();
+        Map<Material, Integer> paletteIndex = new HashMap<>();
+
+        for (Map.Entry<String, String> entry : blockEntries.entrySet()) {
+            int[] coords = parseCoordinates(entry.getKey());
+            if (coords == null) continue;
+
+            Material material = Material.getMaterial(entry.getValue().toUpperCase());
+            if (material == null) continue;
+
+            Integer index = paletteIndex.get(material);
+            if (index == null) {
+                index = builder.palette(material);
+                paletteIndex.put(material, index);
+            }
+            builder.block(coords[0], coords[1], coords[2], index);
+        }
+
+        // Resolve chest contents into item templates
+        if (chestContents != null) {
+            for (Map.Entry<String, List<String>> entry : chestContents.entrySet()) {
+                int[] coords = parseCoordinates(entry.getKey());
+                if (coords == null || entry.getValue() == null) continue;
+
+                builder.chest(coords[0], coords[1], coords[2], parseItems(entry.getValue()));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects palette entries, blocks and chest contents one at a time, so schematic readers
+     * never have to hold the whole schematic in intermediate maps
+     */
+    public static final class Builder {
+        private final List<String> palette = new ArrayList<>();
+        private final List<Material> materials = new ArrayList<>();
+        private final Map<Integer, Integer> blockByPosition = new HashMap<>();
+        private int[] positions = new int[256];
+        private int[] blocks = new int[256];
+        private int count;
+        private final List<Integer> chestBlocks = new ArrayList<>();
+        private final List<ItemStack[]> chestItems = new ArrayList<>();
+
+        /**
+         * Adds a palette entry
+         * @param blockData A block data string, such as "minecraft:oak_log[axis=x]"
+         * @return the palette index, or -1 if the block type is unknown; blocks using it are skipped
+         */
+        public int palette(String blockData) {
+            int states = blockData.indexOf('[');
+            Material material = Material.matchMaterial(states < 0 ? blockData : blockData.substring(0, states));
+            if (material == null || !material.isBlock()) return -1;
+
+            palette.add(blockData);
+            materials.add(material);
+            return palette.size() - 1;
+        }
+
+        /**
+         * Adds a palette entry for a material's default block data
+         * @return the palette index
+         */
+        public int palette(Material material) {
+            palette.add("minecraft:" + material.name().toLowerCase(Locale.ROOT));
+            materials.add(material);
+            return palette.size() - 1;
+        }
+
+        /**
+         * Adds a block relative to the schematic origin
+         * @param index A palette index returned by this builder; -1 is ignored
+         * @throws IllegalArgumentException if a coordinate is outside the supported range
+         */
+        public Builder block(int x, int y, int z, int index) {
+            if (index < 0) return this;
+            checkRange(x, y, z);
+
+            int packed = pack(x, y, z);
+            Integer existing = blockByPosition.get(packed);
+            if (existing != null) {
+                blocks[existing] = index;
+                return this;
+            }
+
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+                blocks = Arrays.copyOf(blocks, count * 2);
+            }
+            positions[count] = packed;
+            blocks[count] = index;
+            blockByPosition.put(packed, count);
+            count++;
+            return this;
+        }
+
+        /**
+         * Sets the contents of a chest added with {@link #block}; ignored if there is no block at that position
+         */
+        public Builder chest(int x, int y, int z, ItemStack[] items) {
+            if (x < COORD_MIN || x > COORD_MAX || y < COORD_MIN || y > COORD_MAX || z < COORD_MIN || z > COORD_MAX) return this;
+
+            Integer block = blockByPosition.get(pack(x, y, z));
+            if (block != null && items.length > 0) {
+                chestBlocks.add(block);
+                chestItems.add(items);
+            }
+            return this;
+        }
+
+        public CompiledSchematic build() {
+            return new CompiledSchematic(
+                    palette.toArray(new String[0]),
+                    materials.toArray(new Material[0]),
+                    Arrays.copyOf(positions, count),
+                    Arrays.copyOf(blocks, count),
+                    chestBlocks.stream().mapToInt(Integer::intValue).toArray(),
+                    chestItems.toArray(new ItemStack[0][]));
+        }
+    }
+
+    /**
+     * Places every block of the schematic relative to a location
+     * @param location The origin of the schematic
+     */
+    public void paste(Location location) {
+        World world = location.getWorld();
+        int originX = location.getBlockX();
+        int originY = location.getBlockY();
+        int originZ = location.getBlockZ();
+
+        for (int i = 0; i < positions.length; i++) {
+            int packed = positions[i];
+            world.getBlockAt(originX + unpackX(packed), originY + unpackY(packed), originZ + unpackZ(packed))
+                    .setBlockData(getBlockData(i));
+        }
+
+        for (int i = 0; i < chestBlocks.length; i++) {
+            int packed = positions[chestBlocks[i]];
+            Block block = world.getBlockAt(originX + unpackX(packed), originY + unpackY(packed), originZ + unpackZ(packed));
+            if (block.getState() instanceof Chest chest) {
+                chest.getBlockInventory().addItem(copyChestItems(i));
+            }
+        }
+    }
+
+    /**
+     * @return the number of blocks in the schematic
+     */
+    public int size() {
+        return positions.length;
+    }
+
+    public int getX(int index) {
+        return unpackX(positions[index]);
+    }
+
+    public int getY(int index) {
+        return unpackY(positions[index]);
+    }
+
+    public int getZ(int index) {
+        return unpackZ(positions[index]);
+    }
+
+    public Material getMaterial(int index) {
+        return materials[blocks[index]];
+    }
+
+    /**
+     * Returns the block data of a block, parsing the palette on first use. Must be called on a running server.
+     * @param index The block index
+     * @return the block data; callers must not modify it
+     */
+    public BlockData getBlockData(int index) {
+        BlockData[] resolved = blockData;
+        if (resolved == null) {
+            resolved = resolvePalette();
+        }
+        return resolved[blocks[index]];
+    }
+
+    public int getPaletteIndex(int index) {
+        return blocks[index];
+    }
+
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    /**
+     * @return the block data string of a palette entry
+     */
+    public String getPaletteEntry(int paletteIndex) {
+        return palette[paletteIndex];
+    }
+
+    private synchronized BlockData[] resolvePalette() {
+        if (blockData == null) {
+            BlockData[] resolved = new BlockData[palette.length];
+            for (int i = 0; i < palette.length; i++) {
+                try {
+                    resolved[i] = Bukkit.createBlockData(palette[i]);
+                } catch (IllegalArgumentException e) {
+                    // States from another game version, keep the block type at least
+                    resolved[i] = materials[i].createBlockData();
+                }
+            }
+            blockData = resolved;
+        }
+        return blockData;
+    }
+
+    /**
+     * Roughly estimates the heap used by this schematic, for bounding caches
+     * @return the estimate in bytes
+     */
+    public long estimateBytes() {
+        long bytes = 64L + positions.length * 8L + chestBlocks.length * 4L;
+        for (String entry : palette) {
+            bytes += 48L + entry.length() * 2L;
+        }
+        for (ItemStack[] items : chestItems) {
+            bytes += 16L + items.length * 64L;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of blocks that have chest contents
+     */
+    public int getChestCount() {
+        return chestBlocks.length;
+    }
+
+    /**
+     * @return the block index of the i-th chest
+     */
+    public int getChestBlock(int chest) {
+        return chestBlocks[chest];
+    }
+
+    /**
+     * @return the item templates for the i-th chest; callers must not modify them
+     */
+    public ItemStack[] getChestItems(int chest) {
+        return chestItems[chest];
+    }
+
+    /**
+     * @return fresh copies of the items for the i-th chest, to hand to an inventory. Inventory.addItem changes
+     * the amounts of the stacks it is given, which must never reach the shared templates.
+     */
+    public ItemStack[] copyChestItems(int chest) {
+        ItemStack[] templates = chestItems[chest];
+        ItemStack[] copies = new ItemStack[templates.length];
+        for (int i = 0; i < templates.length; i++) {
+            copies[i] = templates[i].clone();
+        }
+        return copies;
+    }
+
+    private static int[] parseCoordinates(String key) {
+        String[] coords = key.split(",");
+        if (coords.length != 3) return null;
+
+        return new int[]{
+                Integer.parseInt(coords[0].trim()),
+                Integer.parseInt(coords[1].trim()),
+                Integer.parseInt(coords[2].trim())
+        };
+    }
+
+    private static void checkRange(int x, int y, int z) {
+        if (x < COORD_MIN || x > COORD_MAX || y < COORD_MIN || y > COORD_MAX || z < COORD_MIN || z > COORD_MAX) {
+            throw new IllegalArgumentException("Schematic block " + x + "," + y + "," + z + " is outside the supported range of "
+                    + COORD_MIN + " to " + COORD_MAX);
+        }
+    }
+
+    /**
+     * Parses "MATERIAL:amount" item entries, skipping unknown materials
+     * @param contents The item entries
+     * @return the item templates
+     */
+    static ItemStack[] parseItems(List<String> contents) {
+        List<ItemStack> items = new ArrayList<>();
+        for (String content : contents) {
+            String[] parts = content.split(":");
+            if (parts.length != 2) continue;
+
+            Material material = Material.getMaterial(parts[0]);
+            if (material == null) continue;
+
+            items.add(new ItemStack(material, Integer.parseInt(parts[1])));
+        }
+        return items.toArray(new ItemStack[0]);
+    }
+
+    // Coordinates are packed as three signed 10-bit fields: x in bits 20-29, y in 10-19, z in 0-9
+    static int pack(int x, int y, int z) {
+        return ((x & COORD_MASK) << (2 * COORD_BITS)) | ((y & COORD_MASK) << COORD_BITS) | (z & COORD_MASK);
+    }
+
+    static int unpackX(int packed) {
+        return (packed << 2) >> 22;
+    }
+
+    static int unpackY(int packed) {
+        return (packed << 12) >> 22;
+    }
+
+    static int unpackZ(int packed) {
+        return (packed << 22) >> 22;
+    }
+}
@@ -0,0 +1,127 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.UUID;
+
+/**
+ * Immutable in-memory record of a player's island.
+ * Coordinates are stored as primitives and the border bounds are precomputed,
+ * so border checks never have to parse strings or resolve worlds.
+ */
+public final class Island {
+    private final UUID owner;
+    private final String worldName;
+    private final double x;
+    private final double y;
+    private final double z;
+    private final float yaw;
+    private final float pitch;
+    private final int borderRadius;
+    private final double minX;
+    private final double maxX;
+    private final double minZ;
+    private final double maxZ;
+
+    public Island(UUID owner, String worldName, double x, double y, double z, float yaw, float pitch, int borderRadius) {
+        this.owner = owner;
+        this.worldName = worldName;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.borderRadius = borderRadius;
+        this.minX = x - borderRadius;
+        this.maxX = x + borderRadius;
+        this.minZ = z - borderRadius;
+        this.maxZ = z + borderRadius;
+    }
+
+    public static Island fromLocation(UUID owner, Location location, int borderRadius) {
+        return new Island(owner, location.getWorld().getName(),
+                location.getX(), location.getY(), location.getZ(),
+                location.getYaw(), location.getPitch(), borderRadius);
+    }
+
+    /**
+     * @return a copy of this island with another border radius
+     */
+    public Island withBorderRadius(int borderRadius) {
+        return new Island(owner, worldName, x, y, z, yaw, pitch, borderRadius);
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public float getYaw() {
+        return yaw;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+
+    public int getBorderRadius() {
+        return borderRadius;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMinZ() {
+        return minZ;
+    }
+
+    public double getMaxZ() {
+        return maxZ;
+    }
+
+    /**
+     * Checks whether a horizontal position lies inside this island's square border
+     */
+    public boolean contains(double px, double pz) {
+        return px >= minX && px <= maxX && pz >= minZ && pz <= maxZ;
+    }
+
+    public double distanceSquared(double px, double py, double pz) {
+        double dx = px - x;
+        double dy = py - y;
+        double dz = pz - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Builds a Bukkit location for the island center
+     * @return the location, or null if the island's world is not loaded
+     */
+    public Location toLocation() {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) return null;
+        return new Location(world, x, y, z, yaw, pitch);
+    }
+}
@@ -2,93 +2,351 @@ package com.pixl8.skiblock;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.World;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class IslandData {
-    private final File dataFile;
-    private FileConfiguration config;
+    private static final long SYNC_OVERLAP_MILLIS = 5000L;
+
     private final SKIBlock plugin;
+    private final IslandRegistry registry = new IslandRegistry();
+    private final IslandGrid grid;
+    private final IslandStorage storage;
+    private final IslandPersistence persistence;
+    private final IslandSessions sessions;
+    // Only set for SQL storage shared with other servers
+    private IslandDatabase database;
+    private BukkitTask syncTask;
+    private volatile long lastSync;
 
     public IslandData(File dataFolder, SKIBlock plugin) {
         this.plugin = plugin;
-        this.dataFile = new File(dataFolder, "island_data.yml");
-        if (!dataFile.exists()) {
+        this.grid = new IslandGrid(plugin.getConfig().getInt("settings.starting-x"),
+                plugin.getConfig().getInt("settings.starting-z"),
+                plugin.getConfig().getInt("settings.island-distance"));
+        this.storage = createStorage(dataFolder, plugin.getConfig().getString("settings.persistence.storage", "yaml"));
+        this.persistence = new IslandPersistence(plugin, registry, storage,
+                plugin.getConfig().getInt("settings.persistence.flush-threshold", 50), plugin.getMetrics());
+        this.sessions = new IslandSessions(plugin, this, plugin.getConfig().getLong("settings.sessions.grace-seconds", 60L) * 1000L);
+    }
+
+    private IslandStorage createStorage(File dataFolder, String type) {
+        File yamlFile = new File(dataFolder, "island_data.yml");
+        if (type.equalsIgnoreCase("sql")) {
+            return createSqlStorage(dataFolder, yamlFile);
+        }
+        if (!type.equalsIgnoreCase("binary")) {
+            return new YamlIslandStorage(yamlFile, plugin.getLogger(), plugin.getBorderRadius());
+        }
+
+        try {
+            File binaryFile = new File(dataFolder, "islands.dat");
+            boolean fresh = !binaryFile.exists();
+            BinaryIslandStorage binary = new BinaryIslandStorage(binaryFile, plugin.getLogger(), plugin.getBorderRadius());
+
+            // Carry over islands from the YAML file the first time binary storage is used
+            if (fresh && yamlFile.length() > 0) {
+                IslandStorageMigrator.migrate(new YamlIslandStorage(yamlFile, plugin.getLogger(), plugin.getBorderRadius()),
+                        binary, plugin.getLogger());
+            }
+            return binary;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open island storage", e);
+        }
+    }
+
+    private IslandStorage createSqlStorage(File dataFolder, File yamlFile) {
+        String url = plugin.getConfig().getString("settings.persistence.sql.url", "");
+        if (url == null || url.isEmpty()) {
+            url = "jdbc:sqlite:" + new File(dataFolder, "islands.db").getAbsolutePath();
+        }
+
+        try {
+            database = new IslandDatabase(url,
+                    plugin.getConfig().getString("settings.persistence.sql.username", ""),
+                    plugin.getConfig().getString("settings.persistence.sql.password", ""));
+            SqlIslandStorage sql = new SqlIslandStorage(database, plugin.getMetrics());
+
+            // Carry over islands from the YAML file the first time the database is used
+            if (sql.isEmpty() && yamlFile.length() > 0) {
+                IslandStorageMigrator.migrate(new YamlIslandStorage(yamlFile, plugin.getLogger(), plugin.getBorderRadius()),
+                        sql, plugin.getLogger());
+            }
+            return sql;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open the island database", e);
+        }
+    }
+
+    public void loadIslands() {
+        // Decode every island once so lookups never touch storage again
+        registry.clear();
+        grid.clear();
+        try {
+            storage.load(island -> {
+                registry.put(island);
+                grid.add(island);
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load island data", e);
+        }
+        lastSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Starts picking up islands other servers changed in the shared database, if there is one
+     * @param intervalTicks Ticks between polls
+     */
+    public void startSync(long intervalTicks) {
+        if (!(storage instanceof SqlIslandStorage)) return;
+
+        long interval = Math.max(1L, intervalTicks);
+        syncTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::sync, interval, interval);
+    }
+
+    private void sync() {
+        // Look back a little further than the last poll, for rows written while it ran and for clock drift
+        long now = System.currentTimeMillis();
+        Map<UUID, Island> changes = new LinkedHashMap<>();
+        try {
+            ((SqlIslandStorage) storage).pollChanges(lastSync - SYNC_OVERLAP_MILLIS, changes::put);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read island changes from the database: " + e.getMessage());
+            return;
+        }
+        lastSync = now;
+        if (changes.isEmpty()) return;
+
+        Bukkit.getScheduler().runTask(plugin, () -> changes.forEach(this::applyRemote));
+    }
+
+    /**
+     * Looks up a player's island, reading it from the shared database when it is not cached here.
+     * Must be called from the main thread.
+     * @param owner The island owner
+     * @param refresh Read from the database even if the island is cached, after taking over its lease
+     * @return a future completed on the main thread with the island, or null if the player has none
+     */
+    public CompletableFuture<Island> fetchIsland(UUID owner, boolean refresh) {
+        Island cached = registry.get(owner);
+        if (!(storage instanceof SqlIslandStorage sql) || (cached != null && !refresh)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Island> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            Island island;
             try {
-                dataFile.createNewFile();
+                island = sql.read(owner);
             } catch (IOException e) {
-                throw new RuntimeException("Could not create island data file", e);
+                plugin.getLogger().warning("Could not read island " + owner + " from the database: " + e.getMessage());
+                Bukkit.getScheduler().runTask(plugin, () -> future.complete(registry.get(owner)));
+                return;
             }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                applyRemote(owner, island);
+                future.complete(registry.get(owner));
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Reads a player's island for their session. Called on the login thread, so it may block on storage.
+     * @param owner The player logging in
+     * @return the island, or null if the player has none
+     */
+    public Island prefetch(UUID owner) throws IOException {
+        // File storage keeps every island in memory, and a change of our own waiting to be written is newer than the database
+        if (!(storage instanceof SqlIslandStorage sql) || persistence.isDirty(owner)) {
+            return registry.get(owner);
+        }
+
+        Island island = sql.read(owner);
+        Bukkit.getScheduler().runTask(plugin, () -> applyRemote(owner, island));
+        return island;
+    }
+
+    /**
+     * Checks whether another server changed a player's island since this server last read it.
+     * Called on the login thread, so it may block on storage.
+     * @return true if the cached island is still current
+     */
+    public boolean isUnchanged(UUID owner) {
+        if (!(storage instanceof SqlIslandStorage sql)) return true;
+        try {
+            return sql.isCurrent(owner);
+        } catch (IOException e) {
+            return false;
         }
-        this.config = YamlConfiguration.loadConfiguration(dataFile);
     }
 
-    public void loadIslands() {
-        config = YamlConfiguration.loadConfiguration(dataFile);
+    /**
+     * Replaces the cached island with the stored one, unless this server has a change of its own waiting to be written
+     */
+    private void applyRemote(UUID owner, Island island) {
+        if (persistence.isDirty(owner)) return;
+
+        Island previous = registry.get(owner);
+        if (previous != null) {
+            grid.remove(previous);
+        }
+        if (island != null) {
+            registry.put(island);
+            grid.add(island);
+        } else {
+            registry.remove(owner);
+        }
+        sessions.update(owner, island);
+        plugin.getMetrics().increment(Metrics.Counter.REMOTE_UPDATES);
     }
 
+    /**
+     * Writes any queued island changes to disk on the calling thread
+     */
     public void saveIslands() {
+        persistence.flush();
+    }
+
+    /**
+     * Flushes queued changes and releases the storage backend
+     */
+    public void shutdown() {
+        sessions.shutdown();
+        if (syncTask != null) {
+            syncTask.cancel();
+            syncTask = null;
+        }
+        persistence.shutdown();
         try {
-            config.save(dataFile);
+            storage.close();
         } catch (IOException e) {
-            throw new RuntimeException("Could not save island data", e);
+            plugin.getLogger().warning("Could not close island storage: " + e.getMessage());
         }
     }
 
+    public IslandPersistence getPersistence() {
+        return persistence;
+    }
+
+    public IslandStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * @return the database shared with other servers, or null unless SQL storage is used
+     */
+    public IslandDatabase getDatabase() {
+        return database;
+    }
+
     public Map<UUID, Location> getIslandLocations() {
         Map<UUID, Location> islands = new HashMap<>();
-        for (String key : config.getKeys(false)) {
-            try {
-                UUID uuid = UUID.fromString(key);
-                Location loc = deserializeLocation(config.getString(key));
-                islands.put(uuid, loc);
-            } catch (Exception e) {
-                plugin.getLogger().warning("Failed to load island data for UUID: " + key);
-            }
+        for (Island island : registry.values()) {
+            islands.put(island.getOwner(), island.toLocation());
         }
         return islands;
     }
 
     public void setIslandLocation(UUID playerUUID, Location location) {
-        config.set(playerUUID.toString(), serializeLocation(location));
-        saveIslands();
+        // Moving an island keeps its border size
+        Island previous = registry.get(playerUUID);
+        int borderRadius = previous != null ? previous.getBorderRadius() : plugin.getBorderRadius();
+        replace(previous, Island.fromLocation(playerUUID, location, borderRadius));
+    }
+
+    /**
+     * Changes the border radius of a player's island
+     * @param playerUUID The island owner
+     * @param borderRadius The new radius in blocks
+     * @return the updated island, or null if the player has none
+     */
+    public Island setBorderRadius(UUID playerUUID, int borderRadius) {
+        Island previous = registry.get(playerUUID);
+        if (previous == null) return null;
+
+        Island island = previous.withBorderRadius(borderRadius);
+        replace(previous, island);
+        return island;
+    }
+
+    private void replace(Island previous, Island island) {
+        if (previous != null) {
+            grid.remove(previous);
+        }
+        registry.put(island);
+        grid.add(island);
+        sessions.update(island.getOwner(), island);
+        persistence.markDirty(island.getOwner());
+    }
+
+    /**
+     * Deletes a player's island record
+     * @param playerUUID The island owner
+     * @return the removed island, or null if the player had none
+     */
+    public Island removeIsland(UUID playerUUID) {
+        Island island = registry.remove(playerUUID);
+        if (island != null) {
+            grid.remove(island);
+            sessions.update(playerUUID, null);
+            persistence.markDirty(playerUUID);
+        }
+        return island;
+    }
+
+    /**
+     * Looks up an online player's own island through their session, never touching storage
+     * @param playerUUID The player
+     * @return the island, or null if the player has none
+     */
+    public Island getPlayerIsland(UUID playerUUID) {
+        return sessions.get(playerUUID);
+    }
+
+    public IslandSessions getSessions() {
+        return sessions;
     }
 
     public Location getIslandLocation(UUID playerUUID) {
-        String locString = config.getString(playerUUID.toString());
-        return locString != null ? deserializeLocation(locString) : null;
-    }
-
-    private String serializeLocation(Location location) {
-        return String.format("%s,%f,%f,%f,%f,%f",
-                location.getWorld().getName(),
-                location.getX(),
-                location.getY(),
-                location.getZ(),
-                location.getYaw(),
-                location.getPitch());
-    }
-
-    private Location deserializeLocation(String locString) {
-        String[] parts = locString.split(",");
-        if (parts.length != 6) return null;
-        
-        World world = Bukkit.getWorld(parts[0]);
-        if (world == null) return null;
-        
-        return new Location(
-                world,
-                Double.parseDouble(parts[1]),
-                Double.parseDouble(parts[2]),
-                Double.parseDouble(parts[3]),
-                Float.parseFloat(parts[4]),
-                Float.parseFloat(parts[5])
-        );
+        Island island = registry.get(playerUUID);
+        return island != null ? island.toLocation() : null;
+    }
+
+    /**
+     * Looks up a player's island in the in-memory registry
+     * @param playerUUID The island owner
+     * @return the island, or null if the player has none
+     */
+    public Island getIsland(UUID playerUUID) {
+        return registry.get(playerUUID);
+    }
+
+    /**
+     * Finds the island whose grid cell contains a position
+     * @return the island, or null if no island claims that cell
+     */
+    public Island getIslandAt(double x, double z) {
+        return grid.getIslandAt(x, z);
+    }
+
+    public IslandGrid getGrid() {
+        return grid;
+    }
+
+    public Collection<Island> getIslands() {
+        return registry.values();
+    }
+
+    public int getIslandCount() {
+        return registry.size();
     }
 }
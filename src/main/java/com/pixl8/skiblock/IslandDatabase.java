@@ -0,0 +1,171 @@
+package com.pixl8.skiblock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Shared SQL database that several SKIBlock servers can use at once: island records, grid cell
+ * reservations and island leases. SQLite (a file every server on one machine can open) and MySQL are
+ * supported; both drivers ship with Spigot. A MariaDB server is reached through a jdbc:mysql: URL.
+ * Every statement goes through one connection guarded by this object's lock, and is only ever run
+ * off the main thread or for single-row operations.
+ */
+public class IslandDatabase implements Closeable {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Dialect dialect;
+    private Connection connection;
+    private boolean closed;
+
+    public enum Dialect {
+        SQLITE("org.sqlite.JDBC", "INSERT OR IGNORE INTO"),
+        MYSQL("com.mysql.cj.jdbc.Driver", "INSERT IGNORE INTO");
+
+        private final String driver;
+        private final String insertIgnore;
+
+        Dialect(String driver, String insertIgnore) {
+            this.driver = driver;
+            this.insertIgnore = insertIgnore;
+        }
+
+        /**
+         * @return the start of an insert that does nothing when the primary key is already taken
+         */
+        public String insertIgnore() {
+            return insertIgnore;
+        }
+
+        public static Dialect fromUrl(String url) {
+            String lower = url.toLowerCase(Locale.ROOT);
+            if (lower.startsWith("jdbc:sqlite:")) return SQLITE;
+            if (lower.startsWith("jdbc:mysql:")) return MYSQL;
+            return null;
+        }
+    }
+
+    /**
+     * Work done with the connection while holding the database lock
+     */
+    public interface Work<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    public IslandDatabase(String url, String username, String password) throws IOException {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.dialect = Dialect.fromUrl(url);
+        if (url.toLowerCase(Locale.ROOT).startsWith("jdbc:mariadb:")) {
+            throw new IOException("Spigot ships no MariaDB driver, connect to MariaDB with a jdbc:mysql: URL instead");
+        }
+        if (dialect == null) {
+            throw new IOException("Unsupported database URL " + url + ", use jdbc:sqlite: or jdbc:mysql:");
+        }
+        try {
+            Class.forName(dialect.driver);
+        } catch (ClassNotFoundException e) {
+            // Newer drivers register themselves, let DriverManager report a missing one
+        }
+        run(connection -> {
+            createSchema(connection);
+            return null;
+        });
+    }
+
+    /**
+     * Runs work against the database, reconnecting first if the connection was lost
+     * @return whatever the work returns
+     */
+    public synchronized <T> T run(Work<T> work) throws IOException {
+        if (closed) throw new IOException("The island database is closed");
+        try {
+            return work.run(connection());
+        } catch (SQLException e) {
+            // Drop a broken connection so the next call opens a new one
+            try {
+                if (connection != null && !connection.isValid(1)) {
+                    connection.close();
+                    connection = null;
+                }
+            } catch (SQLException ignored) {
+                connection = null;
+            }
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(url, username, password);
+            if (dialect == Dialect.SQLITE) {
+                // Let several servers share the file: readers never block the writer, and writers wait their turn
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA journal_mode=WAL");
+                    statement.execute("PRAGMA busy_timeout=5000");
+                }
+            }
+        }
+        return connection;
+    }
+
+    private void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS skiblock_islands ("
+                    + "owner CHAR(36) NOT NULL PRIMARY KEY, "
+                    + "world VARCHAR(64) NOT NULL, "
+                    + "x DOUBLE NOT NULL, y DOUBLE NOT NULL, z DOUBLE NOT NULL, "
+                    + "yaw FLOAT NOT NULL, pitch FLOAT NOT NULL, "
+                    + "border_radius INT NOT NULL, "
+                    + "deleted INT NOT NULL, "
+                    + "version BIGINT NOT NULL, "
+                    + "updated_at BIGINT NOT NULL)");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS skiblock_cells ("
+                    + "cell_x INT NOT NULL, cell_z INT NOT NULL, "
+                    + "node VARCHAR(64) NOT NULL, "
+                    + "reserved_at BIGINT NOT NULL, "
+                    + "PRIMARY KEY (cell_x, cell_z))");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS skiblock_leases ("
+                    + "owner CHAR(36) NOT NULL PRIMARY KEY, "
+                    + "node VARCHAR(64) NOT NULL, "
+                    + "expires_at BIGINT NOT NULL)");
+
+            // MySQL has no CREATE INDEX IF NOT EXISTS, so look for the index first
+            boolean indexed = false;
+            try (ResultSet indexes = connection.getMetaData().getIndexInfo(null, null, "skiblock_islands", false, false)) {
+                while (indexes.next()) {
+                    if ("skiblock_islands_updated".equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        indexed = true;
+                    }
+                }
+            }
+            if (!indexed) {
+                statement.executeUpdate("CREATE INDEX skiblock_islands_updated ON skiblock_islands (updated_at)");
+            }
+        }
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.pixl8.skiblock;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spatial hash from island grid cells to islands.
+ * Every island owns the island-distance sized cell centered on it, so finding the
+ * island a location belongs to is a single hash lookup regardless of the island count.
+ */
+public class IslandGrid {
+    private final int startX;
+    private final int startZ;
+    private final int distance;
+    private final Map<Long, Island> cells = new ConcurrentHashMap<>();
+    private final AtomicInteger version = new AtomicInteger();
+
+    public IslandGrid(int startX, int startZ, int distance) {
+        this.startX = startX;
+        this.startZ = startZ;
+        this.distance = Math.max(1, distance);
+    }
+
+    /**
+     * Finds the island whose cell contains a position
+     * @return the island, or null if the cell is unclaimed
+     */
+    public Island getIslandAt(double x, double z) {
+        return cells.get(cellKeyAt(x, z));
+    }
+
+    public Island getIslandInCell(long cellKey) {
+        return cells.get(cellKey);
+    }
+
+    public long cellKeyAt(double x, double z) {
+        return cellKey(cellX(x), cellZ(z));
+    }
+
+    public int cellX(double x) {
+        return (int) Math.floor((x - startX) / distance + 0.5);
+    }
+
+    public int cellZ(double z) {
+        return (int) Math.floor((z - startZ) / distance + 0.5);
+    }
+
+    /**
+     * @return the block X coordinate of a cell's center
+     */
+    public int getCenterX(int cellX) {
+        return startX + cellX * distance;
+    }
+
+    /**
+     * @return the block Z coordinate of a cell's center
+     */
+    public int getCenterZ(int cellZ) {
+        return startZ + cellZ * distance;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public void add(Island island) {
+        cells.put(cellKeyAt(island.getX(), island.getZ()), island);
+        version.incrementAndGet();
+    }
+
+    public void remove(Island island) {
+        // Only clear the cell if it still points at this island
+        cells.remove(cellKeyAt(island.getX(), island.getZ()), island);
+        version.incrementAndGet();
+    }
+
+    public void clear() {
+        cells.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return a counter bumped on every change, so callers can tell when cached lookups are stale
+     */
+    public int getVersion() {
+        return version.get();
+    }
+
+    public static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    public static int keyX(long cellKey) {
+        return (int) (cellKey >> 32);
+    }
+
+    public static int keyZ(long cellKey) {
+        return (int) cellKey;
+    }
+}
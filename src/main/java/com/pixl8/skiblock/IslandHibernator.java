@@ -0,0 +1,336 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Unloads the chunks of islands nobody has used for a while and keeps them unloaded, so they stop
+ * ticking and holding memory. An island hibernates once its owner has been offline for the configured
+ * time and nobody is standing in its cell; chunks that something loads again are asked to unload on the
+ * next tick, which only succeeds once no player or plugin ticket holds them.
+ * Joining owners and players teleporting onto the island wake it, and its chunks are loaded ahead of time
+ * a few per tick and held by a plugin ticket for a short while.
+ */
+public class IslandHibernator implements Listener {
+    private static final String WORLD_NAME = "skiblock";
+    // Rough heap held by a loaded island chunk: sections, heightmaps, lighting and the chunk holder
+    private static final long ESTIMATED_CHUNK_BYTES = 64L * 1024;
+
+    private final SKIBlock plugin;
+    private final IslandData islandData;
+    private final long afterMillis;
+    private final long checkIntervalTicks;
+    private final long holdTicks;
+    private final long budgetNanos;
+    private final long startedAt = System.currentTimeMillis();
+
+    private final Map<UUID, Long> lastActive = new HashMap<>();
+    // Hibernating island owners and the keys of their chunks that are unloaded because of it
+    private final Map<UUID, Set<Long>> hibernating = new HashMap<>();
+    private final Set<Long> pendingUnloads = new HashSet<>();
+    private final Deque<long[]> preload = new ArrayDeque<>();
+    private final Deque<long[]> held = new ArrayDeque<>();
+    private BukkitTask checkTask;
+    private BukkitTask preloadTask;
+    private long currentTick;
+
+    // Report counters
+    private long islandsHibernated;
+    private long islandsWoken;
+    private long chunksUnloaded;
+    private long reloadsRefused;
+    private long chunksPreloaded;
+    private int lastLoadedChunks;
+
+    public IslandHibernator(SKIBlock plugin, IslandData islandData) {
+        this.plugin = plugin;
+        this.islandData = islandData;
+        this.afterMillis = (long) (plugin.getConfig().getDouble("settings.hibernation.after-minutes", 10.0) * 60_000L);
+        this.checkIntervalTicks = Math.max(20L, plugin.getConfig().getLong("settings.hibernation.check-interval-ticks", 600L));
+        this.holdTicks = Math.max(0L, plugin.getConfig().getLong("settings.hibernation.preload-hold-ticks", 1200L));
+        this.budgetNanos = (long) (plugin.getConfig().getDouble("settings.hibernation.tick-budget-ms", 2.0) * 1_000_000L);
+    }
+
+    public void start() {
+        checkTask = Bukkit.getScheduler().runTaskTimer(plugin, this::check, checkIntervalTicks, checkIntervalTicks);
+        preloadTask = Bukkit.getScheduler().runTaskTimer(plugin, this::preloadTick, 1L, 1L);
+    }
+
+    /**
+     * Stops hibernating islands and releases every preload ticket
+     */
+    public void shutdown() {
+        if (checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+        if (preloadTask != null) {
+            preloadTask.cancel();
+            preloadTask = null;
+        }
+        World world = Bukkit.getWorld(WORLD_NAME);
+        if (world != null) {
+            for (long[] chunk : held) {
+                world.removePluginChunkTicket((int) chunk[0], (int) chunk[1], plugin);
+            }
+        }
+        held.clear();
+        preload.clear();
+    }
+
+    /**
+     * Hibernates idle islands and refuses chunks that were loaded again
+     */
+    private void check() {
+        World world = Bukkit.getWorld(WORLD_NAME);
+        if (world == null) return;
+
+        long now = System.currentTimeMillis();
+        IslandGrid grid = islandData.getGrid();
+
+        // Islands with their owner online or anyone standing on them are in use
+        Set<Long> occupied = new HashSet<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            lastActive.put(player.getUniqueId(), now);
+            if (player.getWorld().equals(world)) {
+                Location location = player.getLocation();
+                long cellKey = grid.cellKeyAt(location.getX(), location.getZ());
+                occupied.add(cellKey);
+
+                Island visited = grid.getIslandInCell(cellKey);
+                if (visited != null && hibernating.containsKey(visited.getOwner())) {
+                    wake(visited);
+                }
+            }
+        }
+
+        Chunk[] loaded = world.getLoadedChunks();
+        lastLoadedChunks = loaded.length;
+        Map<Long, List<Chunk>> byCell = new HashMap<>();
+        for (Chunk chunk : loaded) {
+            long cellKey = grid.cellKeyAt((chunk.getX() << 4) + 8, (chunk.getZ() << 4) + 8);
+            byCell.computeIfAbsent(cellKey, key -> new ArrayList<>()).add(chunk);
+        }
+
+        for (Map.Entry<Long, List<Chunk>> entry : byCell.entrySet()) {
+            Island island = grid.getIslandInCell(entry.getKey());
+            if (island == null || occupied.contains(entry.getKey())) continue;
+
+            UUID owner = island.getOwner();
+            if (!hibernating.containsKey(owner)) {
+                // Owners offline since before the server started count from startup
+                long idleSince = lastActive.getOrDefault(owner, startedAt);
+                if (now - idleSince < afterMillis) continue;
+
+                hibernating.put(owner, new HashSet<>());
+                islandsHibernated++;
+            }
+
+            Set<Long> unloaded = hibernating.get(owner);
+            for (Chunk chunk : entry.getValue()) {
+                // Fails while a player is near or a ticket holds the chunk, and then it stays loaded
+                long key = chunkKey(chunk.getX(), chunk.getZ());
+                unloaded.remove(key);
+                if (world.unloadChunk(chunk.getX(), chunk.getZ(), true)) {
+                    unloaded.add(key);
+                    chunksUnloaded++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wakes an island and loads the chunks inside its border ahead of the player
+     * @param island The island to wake
+     */
+    public void wake(Island island) {
+        if (hibernating.remove(island.getOwner()) == null) return;
+        islandsWoken++;
+        lastActive.put(island.getOwner(), System.currentTimeMillis());
+
+        int radius = island.getBorderRadius();
+        int minChunkX = (int) Math.floor(island.getX() - radius) >> 4;
+        int maxChunkX = (int) Math.floor(island.getX() + radius) >> 4;
+        int minChunkZ = (int) Math.floor(island.getZ() - radius) >> 4;
+        int maxChunkZ = (int) Math.floor(island.getZ() + radius) >> 4;
+
+        // Center chunks first, since that is where the player arrives
+        List<long[]> chunks = new ArrayList<>();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                chunks.add(new long[]{chunkX, chunkZ});
+            }
+        }
+        int centerX = (int) Math.floor(island.getX()) >> 4;
+        int centerZ = (int) Math.floor(island.getZ()) >> 4;
+        chunks.sort((a, b) -> Long.compare(Math.max(Math.abs(a[0] - centerX), Math.abs(a[1] - centerZ)),
+                Math.max(Math.abs(b[0] - centerX), Math.abs(b[1] - centerZ))));
+        preload.addAll(chunks);
+    }
+
+    /**
+     * Loads queued chunks within the tick budget and releases tickets whose hold time is up.
+     * Spigot has no asynchronous chunk loading, so this is spread over ticks instead.
+     */
+    private void preloadTick() {
+        currentTick++;
+        if (preload.isEmpty() && held.isEmpty()) return;
+
+        World world = Bukkit.getWorld(WORLD_NAME);
+        if (world == null) return;
+
+        while (!held.isEmpty() && held.peek()[2] <= currentTick) {
+            long[] chunk = held.poll();
+            world.removePluginChunkTicket((int) chunk[0], (int) chunk[1], plugin);
+        }
+
+        long deadline = System.nanoTime() + budgetNanos;
+        while (!preload.isEmpty() && System.nanoTime() < deadline) {
+            long[] chunk = preload.poll();
+            int chunkX = (int) chunk[0];
+            int chunkZ = (int) chunk[1];
+            pendingUnloads.remove(chunkKey(chunkX, chunkZ));
+            if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                world.getChunkAt(chunkX, chunkZ);
+                chunksPreloaded++;
+            }
+            world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+            held.add(new long[]{chunkX, chunkZ, currentTick + holdTicks});
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        lastActive.put(playerId, System.currentTimeMillis());
+        Island island = islandData.getPlayerIsland(playerId);
+        if (island != null) {
+            wake(island);
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        lastActive.put(event.getPlayer().getUniqueId(), System.currentTimeMillis());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        Location to = event.getTo();
+        if (to == null || to.getWorld() == null || !to.getWorld().getName().equals(WORLD_NAME)) return;
+
+        Island island = islandData.getGrid().getIslandAt(to.getX(), to.getZ());
+        if (island != null) {
+            wake(island);
+        }
+    }
+
+    @EventHandler
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (hibernating.isEmpty() || !event.getWorld().getName().equals(WORLD_NAME)) return;
+
+        Chunk chunk = event.getChunk();
+        Island island = islandData.getGrid().getIslandAt((chunk.getX() << 4) + 8, (chunk.getZ() << 4) + 8);
+        Set<Long> unloaded = island != null ? hibernating.get(island.getOwner()) : null;
+        if (unloaded == null) return;
+
+        // Chunks cannot be unloaded while they load, so try on the next tick
+        int chunkX = chunk.getX();
+        int chunkZ = chunk.getZ();
+        long key = chunkKey(chunkX, chunkZ);
+        unloaded.remove(key);
+        if (!pendingUnloads.add(key)) return;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (!pendingUnloads.remove(key) || hibernating.get(island.getOwner()) != unloaded) return;
+            if (event.getWorld().unloadChunk(chunkX, chunkZ, true)) {
+                unloaded.add(key);
+                reloadsRefused++;
+            }
+        });
+    }
+
+    public int getHibernatingCount() {
+        return hibernating.size();
+    }
+
+    public boolean isHibernating(UUID owner) {
+        return hibernating.containsKey(owner);
+    }
+
+    public long getIslandsHibernated() {
+        return islandsHibernated;
+    }
+
+    public long getIslandsWoken() {
+        return islandsWoken;
+    }
+
+    public long getChunksUnloaded() {
+        return chunksUnloaded;
+    }
+
+    public long getReloadsRefused() {
+        return reloadsRefused;
+    }
+
+    public long getChunksPreloaded() {
+        return chunksPreloaded;
+    }
+
+    /**
+     * @return the island world's loaded chunk count at the last check
+     */
+    public int getLastLoadedChunks() {
+        return lastLoadedChunks;
+    }
+
+    /**
+     * @return the number of hibernating islands' chunks that are unloaded because of hibernation right now
+     */
+    public long getChunksKeptUnloaded() {
+        long chunks = 0;
+        for (Set<Long> unloaded : hibernating.values()) {
+            chunks += unloaded.size();
+        }
+        return chunks;
+    }
+
+    /**
+     * @return a rough estimate of the memory freed by keeping hibernating islands' chunks unloaded
+     */
+    public long getEstimatedBytesSaved() {
+        return getChunksKeptUnloaded() * ESTIMATED_CHUNK_BYTES;
+    }
+
+    /**
+     * @return the number of chunks waiting to be preloaded or held by a preload ticket
+     */
+    public int getPreloadBacklog() {
+        return preload.size() + held.size();
+    }
+}
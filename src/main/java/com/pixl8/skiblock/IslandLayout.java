@@ -0,0 +1,101 @@
+package com.pixl8.skiblock;
+
+/**
+ * Maps island slot numbers to grid cells and back.
+ * A cell (x, z) is centered on starting-x + x * island-distance, starting-z + z * island-distance.
+ */
+public enum IslandLayout {
+    /**
+     * The original layout: rows of four islands growing along Z
+     */
+    GRID {
+        @Override
+        public int cellX(int slot) {
+            return slot % 4 - 1;
+        }
+
+        @Override
+        public int cellZ(int slot) {
+            return slot / 4 - 1;
+        }
+
+        @Override
+        public int slotOf(int cellX, int cellZ) {
+            if (cellX < -1 || cellX > 2 || cellZ < -1) return -1;
+            return (cellZ + 1) * 4 + cellX + 1;
+        }
+    },
+
+    /**
+     * Square spiral around the starting cell, so islands stay close to spawn
+     * and fill region files densely
+     */
+    SPIRAL {
+        @Override
+        public int cellX(int slot) {
+            return spiral(slot, true);
+        }
+
+        @Override
+        public int cellZ(int slot) {
+            return spiral(slot, false);
+        }
+
+        @Override
+        public int slotOf(int cellX, int cellZ) {
+            int ring = Math.max(Math.abs(cellX), Math.abs(cellZ));
+            if (ring == 0) return 0;
+
+            int first = (2 * ring - 1) * (2 * ring - 1);
+            int side = 2 * ring;
+            if (cellX == ring && cellZ > -ring) return first + cellZ + ring - 1;
+            if (cellZ == ring) return first + side + ring - 1 - cellX;
+            if (cellX == -ring) return first + 2 * side + ring - 1 - cellZ;
+            return first + 3 * side + cellX + ring - 1;
+        }
+
+        private int spiral(int slot, boolean x) {
+            if (slot == 0) return 0;
+
+            // Ring k holds the slots from (2k-1)^2 up to (2k+1)^2 - 1
+            int ring = (isqrt(slot) + 1) / 2;
+            int side = 2 * ring;
+            int offset = slot - (2 * ring - 1) * (2 * ring - 1);
+
+            // Walk the ring: south along the east edge, west along the south edge, north along the west edge, east along the north edge
+            if (offset < side) return x ? ring : -ring + 1 + offset;
+            offset -= side;
+            if (offset < side) return x ? ring - 1 - offset : ring;
+            offset -= side;
+            if (offset < side) return x ? -ring : ring - 1 - offset;
+            offset -= side;
+            return x ? -ring + 1 + offset : -ring;
+        }
+
+        private int isqrt(int value) {
+            int root = (int) Math.sqrt(value);
+            while ((long) root * root > value) root--;
+            while ((long) (root + 1) * (root + 1) <= value) root++;
+            return root;
+        }
+    };
+
+    /**
+     * @return the grid column of a slot
+     */
+    public abstract int cellX(int slot);
+
+    /**
+     * @return the grid row of a slot
+     */
+    public abstract int cellZ(int slot);
+
+    /**
+     * @return the slot occupying a grid cell, or -1 if the layout never uses that cell
+     */
+    public abstract int slotOf(int cellX, int cellZ);
+
+    public static IslandLayout fromConfig(String name) {
+        return name != null && name.equalsIgnoreCase("grid") ? GRID : SPIRAL;
+    }
+}
@@ -0,0 +1,234 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-island ownership leases in the shared {@link IslandDatabase}, so only one server loads and
+ * writes an island at a time. A lease names the server holding it and an expiry that the holder keeps
+ * pushing forward; a server that crashes stops renewing, and its islands can be taken over once
+ * its leases expire. The server a player logs in to takes the lease on their island on the login thread,
+ * before {@link IslandSessions} reads the island, and gives the lease up once the island is saved after they quit.
+ * Methods that return a result block on the database and belong off the main thread.
+ */
+public class IslandLeases implements Listener {
+    // A player switching servers often joins the new one before the old one has saved and let go
+    private static final int ACQUIRE_ATTEMPTS = 5;
+    private static final long RETRY_TICKS = 40L;
+
+    private final SKIBlock plugin;
+    private final IslandData islandData;
+    private final IslandDatabase database;
+    private final String node;
+    private final long leaseMillis;
+    private final Set<UUID> held = ConcurrentHashMap.newKeySet();
+    private BukkitTask renewTask;
+
+    public IslandLeases(SKIBlock plugin, IslandData islandData, IslandDatabase database, String node, long leaseMillis) {
+        this.plugin = plugin;
+        this.islandData = islandData;
+        this.database = database;
+        this.node = node;
+        this.leaseMillis = Math.max(10_000L, leaseMillis);
+    }
+
+    /**
+     * Starts renewing held leases at a third of their length
+     */
+    public void start() {
+        long intervalTicks = Math.max(20L, leaseMillis / 3 / 50);
+        renewTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::renew, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Stops renewing and gives up every lease this server holds
+     */
+    public void shutdown() {
+        if (renewTask != null) {
+            renewTask.cancel();
+            renewTask = null;
+        }
+        try {
+            database.run(connection -> {
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM skiblock_leases WHERE node = ?")) {
+                    delete.setString(1, node);
+                    return delete.executeUpdate();
+                }
+            });
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not release island leases: " + e.getMessage());
+        }
+        held.clear();
+    }
+
+    /**
+     * Takes the lease on an island, or extends it if this server already holds it
+     * @param owner The island owner
+     * @return true if this server now holds the lease, false if another server does
+     */
+    public boolean acquire(UUID owner) throws IOException {
+        long now = System.currentTimeMillis();
+        boolean acquired = database.run(connection -> {
+            // Take over our own or an expired lease, otherwise try to create it
+            try (PreparedStatement update = connection.prepareStatement("UPDATE skiblock_leases SET node = ?, expires_at = ? "
+                    + "WHERE owner = ? AND (node = ? OR expires_at < ?)")) {
+                update.setString(1, node);
+                update.setLong(2, now + leaseMillis);
+                update.setString(3, owner.toString());
+                update.setString(4, node);
+                update.setLong(5, now);
+                if (update.executeUpdate() == 1) return true;
+            }
+            try (PreparedStatement insert = connection.prepareStatement(database.getDialect().insertIgnore()
+                    + " skiblock_leases (owner, node, expires_at) VALUES (?, ?, ?)")) {
+                insert.setString(1, owner.toString());
+                insert.setString(2, node);
+                insert.setLong(3, now + leaseMillis);
+                return insert.executeUpdate() == 1;
+            }
+        });
+
+        if (acquired) {
+            held.add(owner);
+        } else {
+            held.remove(owner);
+        }
+        return acquired;
+    }
+
+    /**
+     * Gives up the lease on an island, if this server holds it
+     */
+    public void release(UUID owner) throws IOException {
+        held.remove(owner);
+        database.run(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM skiblock_leases WHERE owner = ? AND node = ?")) {
+                delete.setString(1, owner.toString());
+                delete.setString(2, node);
+                return delete.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Takes the lease on a player's island in the background and reloads the island once it is held,
+     * retrying for a few seconds and telling the player if another server still has it.
+     * Must be called from the main thread.
+     */
+    public void acquireFor(Player player) {
+        acquireFor(player, ACQUIRE_ATTEMPTS);
+    }
+
+    private void acquireFor(Player player, int attempts) {
+        UUID owner = player.getUniqueId();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            boolean acquired;
+            try {
+                acquired = acquire(owner);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not take the island lease for " + player.getName() + ": " + e.getMessage());
+                acquired = false;
+            }
+
+            boolean held = acquired;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (held) {
+                    // Another server may have changed the island since we last saw it
+                    islandData.fetchIsland(owner, true);
+                } else if (player.isOnline() && attempts > 1) {
+                    Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                        if (player.isOnline()) acquireFor(player, attempts - 1);
+                    }, RETRY_TICKS);
+                } else if (player.isOnline()) {
+                    player.sendMessage(plugin.getConfig().getString("settings.messages.island-elsewhere"));
+                }
+            });
+        });
+    }
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        try {
+            acquire(event.getUniqueId());
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not take the island lease for " + event.getName() + ": " + e.getMessage());
+        }
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // Still held by the server the player came from, keep trying in the background
+        if (!held.contains(event.getPlayer().getUniqueId())) {
+            acquireFor(event.getPlayer());
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID owner = event.getPlayer().getUniqueId();
+        if (!held.contains(owner)) return;
+
+        // Save before letting go, so the next server reads the latest island
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            islandData.saveIslands();
+            // Shutting down releases every lease anyway
+            if (!plugin.isEnabled()) return;
+
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                // Keep the lease if the player came straight back, the player list is only safe to read here
+                if (plugin.getServer().getPlayer(owner) != null) return;
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                    try {
+                        release(owner);
+                    } catch (IOException e) {
+                        plugin.getLogger().warning("Could not release the island lease for " + owner + ": " + e.getMessage());
+                    }
+                });
+            });
+        });
+    }
+
+    private void renew() {
+        if (held.isEmpty()) return;
+        try {
+            database.run(connection -> {
+                try (PreparedStatement update = connection.prepareStatement("UPDATE skiblock_leases SET expires_at = ? WHERE node = ?")) {
+                    update.setLong(1, System.currentTimeMillis() + leaseMillis);
+                    update.setString(2, node);
+                    return update.executeUpdate();
+                }
+            });
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not renew island leases: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if this server holds the lease on an island
+     */
+    public boolean isHeld(UUID owner) {
+        return held.contains(owner);
+    }
+
+    public int getHeldCount() {
+        return held.size();
+    }
+
+    public String getNode() {
+        return node;
+    }
+}
@@ -0,0 +1,532 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Island values and levels from a configurable block value table.
+ * An island is scanned once: its chunks inside the border are copied to {@link ChunkSnapshot}s a few per
+ * tick, and the snapshots are summed off the main thread. From then on block place, break, burn, form,
+ * fade, explosion and piston events adjust the value as they happen, so islands are never rescanned
+ * unless an admin asks for it. Values are kept in levels.yml, and the leaderboard is rebuilt from them
+ * on a timer.
+ */
+public class IslandLevels implements Listener {
+    private static final String WORLD_NAME = "skiblock";
+
+    private final SKIBlock plugin;
+    private final IslandData islandData;
+    private final File dataFile;
+    private final File tempFile;
+    // Block values indexed by material ordinal
+    private final int[] blockValues = new int[Material.values().length];
+    private final long pointsPerLevel;
+    private final long budgetNanos;
+    private final int topSize;
+    private final long leaderboardIntervalTicks;
+
+    private final Map<UUID, Long> values = new ConcurrentHashMap<>();
+    private final Deque<ScanJob> queue = new ArrayDeque<>();
+    private final Map<UUID, ScanJob> scanning = new HashMap<>();
+    private volatile List<Entry> leaderboard = Collections.emptyList();
+    private long leaderboardUpdated;
+    private final AtomicBoolean saveQueued = new AtomicBoolean(false);
+    private final Object saveLock = new Object();
+    private BukkitTask scanTask;
+    private BukkitTask leaderboardTask;
+
+    // Report counters
+    private long scansCompleted;
+    private long chunksScanned;
+    private long incrementalUpdates;
+
+    /**
+     * One island's place on the leaderboard
+     */
+    public static final class Entry {
+        private final UUID owner;
+        private final long value;
+        private final long level;
+
+        private Entry(UUID owner, long value, long level) {
+            this.owner = owner;
+            this.value = value;
+            this.level = level;
+        }
+
+        public UUID getOwner() {
+            return owner;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        public long getLevel() {
+            return level;
+        }
+    }
+
+    private final class ScanJob {
+        private final Island island;
+        private final World world;
+        private final Deque<long[]> chunks = new ArrayDeque<>();
+        private final List<ChunkSnapshot> snapshots = new ArrayList<>();
+        // Chunks already copied; later changes in them are counted as a delta on top of the scan
+        private final Set<Long> copied = new HashSet<>();
+        private long delta;
+
+        private ScanJob(Island island, World world) {
+            this.island = island;
+            this.world = world;
+            int minChunkX = (int) Math.floor(island.getMinX()) >> 4;
+            int maxChunkX = (int) Math.floor(island.getMaxX()) >> 4;
+            int minChunkZ = (int) Math.floor(island.getMinZ()) >> 4;
+            int maxChunkZ = (int) Math.floor(island.getMaxZ()) >> 4;
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    chunks.add(new long[]{chunkX, chunkZ});
+                }
+            }
+        }
+    }
+
+    public IslandLevels(SKIBlock plugin, IslandData islandData) {
+        this.plugin = plugin;
+        this.islandData = islandData;
+        this.dataFile = new File(plugin.getDataFolder(), "levels.yml");
+        this.tempFile = new File(plugin.getDataFolder(), "levels.yml.tmp");
+        this.pointsPerLevel = Math.max(1L, plugin.getConfig().getLong("settings.levels.points-per-level", 100L));
+        this.budgetNanos = (long) (plugin.getConfig().getDouble("settings.levels.tick-budget-ms", 1.0) * 1_000_000L);
+        this.topSize = Math.max(1, plugin.getConfig().getInt("settings.levels.top-size", 10));
+        this.leaderboardIntervalTicks = Math.max(20L, plugin.getConfig().getLong("settings.levels.leaderboard-interval-ticks", 1200L));
+
+        ConfigurationSection table = plugin.getConfig().getConfigurationSection("settings.levels.values");
+        if (table != null) {
+            for (String key : table.getKeys(false)) {
+                Material material = Material.matchMaterial(key);
+                if (material == null) {
+                    plugin.getLogger().warning("Unknown block in settings.levels.values: " + key);
+                    continue;
+                }
+                blockValues[material.ordinal()] = table.getInt(key);
+            }
+        }
+    }
+
+    /**
+     * Reads the stored values and starts the scan queue and the leaderboard timer
+     */
+    public void start() {
+        if (dataFile.exists()) {
+            YamlConfiguration state = YamlConfiguration.loadConfiguration(dataFile);
+            for (String key : state.getKeys(false)) {
+                try {
+                    values.put(UUID.fromString(key), state.getLong(key));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Ignoring island level for invalid UUID: " + key);
+                }
+            }
+        }
+        updateLeaderboard();
+
+        scanTask = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        leaderboardTask = Bukkit.getScheduler().runTaskTimer(plugin, this::updateLeaderboard,
+                leaderboardIntervalTicks, leaderboardIntervalTicks);
+    }
+
+    /**
+     * Drops unfinished scans and writes the values on the calling thread
+     */
+    public void shutdown() {
+        if (scanTask != null) {
+            scanTask.cancel();
+            scanTask = null;
+        }
+        if (leaderboardTask != null) {
+            leaderboardTask.cancel();
+            leaderboardTask = null;
+        }
+        queue.clear();
+        scanning.clear();
+        save();
+    }
+
+    /**
+     * Queues a full scan of an island, replacing its value once done. Must be called from the main thread.
+     * @param island The island to scan
+     * @return false if the island is already being scanned or its world is not loaded
+     */
+    public boolean scan(Island island) {
+        World world = Bukkit.getWorld(island.getWorldName());
+        if (world == null || scanning.containsKey(island.getOwner())) return false;
+
+        ScanJob job = new ScanJob(island, world);
+        scanning.put(island.getOwner(), job);
+        queue.add(job);
+        return true;
+    }
+
+    /**
+     * Forgets a deleted island's value
+     */
+    public void remove(UUID owner) {
+        ScanJob job = scanning.remove(owner);
+        if (job != null) {
+            queue.remove(job);
+        }
+        if (values.remove(owner) != null) {
+            queueSave();
+        }
+    }
+
+    private void tick() {
+        if (queue.isEmpty()) return;
+
+        long deadline = System.nanoTime() + budgetNanos;
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            ScanJob job = queue.peek();
+            long[] next = job.chunks.poll();
+            if (next == null) {
+                queue.poll();
+                sum(job);
+                continue;
+            }
+
+            int chunkX = (int) next[0];
+            int chunkZ = (int) next[1];
+            job.copied.add(IslandGrid.cellKey(chunkX, chunkZ));
+            // Chunks that were never generated hold nothing
+            if (!job.world.isChunkGenerated(chunkX, chunkZ)) continue;
+
+            boolean wasLoaded = job.world.isChunkLoaded(chunkX, chunkZ);
+            job.snapshots.add(job.world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+            if (!wasLoaded) {
+                job.world.unloadChunkRequest(chunkX, chunkZ);
+            }
+            chunksScanned++;
+        }
+    }
+
+    /**
+     * Adds up a scanned island off the main thread and publishes the result back on it
+     */
+    private void sum(ScanJob job) {
+        Island island = job.island;
+        int minX = (int) Math.ceil(island.getMinX());
+        int maxX = (int) Math.floor(island.getMaxX());
+        int minZ = (int) Math.ceil(island.getMinZ());
+        int maxZ = (int) Math.floor(island.getMaxZ());
+        int minY = job.world.getMinHeight();
+        int maxY = job.world.getMaxHeight();
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            long start = System.nanoTime();
+            long total = 0;
+            for (ChunkSnapshot snapshot : job.snapshots) {
+                int baseX = snapshot.getX() << 4;
+                int baseZ = snapshot.getZ() << 4;
+                int fromX = Math.max(0, minX - baseX);
+                int toX = Math.min(15, maxX - baseX);
+                int fromZ = Math.max(0, minZ - baseZ);
+                int toZ = Math.min(15, maxZ - baseZ);
+
+                for (int sectionY = minY; sectionY < maxY; sectionY += 16) {
+                    // Sections are indexed from the bottom of the world; most of a skyblock world is empty
+                    if (snapshot.isSectionEmpty((sectionY - minY) >> 4)) continue;
+
+                    for (int y = sectionY; y < sectionY + 16; y++) {
+                        for (int x = fromX; x <= toX; x++) {
+                            for (int z = fromZ; z <= toZ; z++) {
+                                total += blockValues[snapshot.getBlockType(x, y, z).ordinal()];
+                            }
+                        }
+                    }
+                }
+            }
+            plugin.getMetrics().recordSince(Metrics.Operation.LEVEL_SCAN, start);
+
+            long scanned = total;
+            Bukkit.getScheduler().runTask(plugin, () -> finish(job, scanned));
+        });
+    }
+
+    private void finish(ScanJob job, long scanned) {
+        UUID owner = job.island.getOwner();
+        // Dropped, rescheduled or the island moved while it was being added up
+        if (scanning.get(owner) != job) return;
+        scanning.remove(owner);
+        if (islandData.getIsland(owner) != job.island) return;
+
+        values.put(owner, scanned + job.delta);
+        scansCompleted++;
+        queueSave();
+    }
+
+    /**
+     * Applies a value change at a block position to the island it belongs to
+     */
+    private void adjust(World world, int x, int z, long delta) {
+        if (delta == 0 || !world.getName().equals(WORLD_NAME)) return;
+
+        Island island = islandData.getIslandAt(x, z);
+        if (island == null || !island.contains(x, z)) return;
+
+        UUID owner = island.getOwner();
+        ScanJob job = scanning.get(owner);
+        if (job != null) {
+            // Chunks not copied yet will include the change themselves
+            if (job.copied.contains(IslandGrid.cellKey(x >> 4, z >> 4))) {
+                job.delta += delta;
+            }
+            return;
+        }
+
+        // Islands that were never scanned get everything counted by their first scan
+        if (values.computeIfPresent(owner, (key, value) -> value + delta) != null) {
+            incrementalUpdates++;
+            queueSave();
+        }
+    }
+
+    private int valueOf(Material material) {
+        return blockValues[material.ordinal()];
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // An island is scanned the first time its owner is around, when its chunks are likely loaded anyway
+        Island island = islandData.getPlayerIsland(event.getPlayer().getUniqueId());
+        if (island != null && !values.containsKey(island.getOwner())) {
+            scan(island);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlockPlaced();
+        adjust(block.getWorld(), block.getX(), block.getZ(),
+                valueOf(block.getType()) - valueOf(event.getBlockReplacedState().getType()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        Block block = event.getBlock();
+        adjust(block.getWorld(), block.getX(), block.getZ(), -valueOf(block.getType()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        Block block = event.getBlock();
+        adjust(block.getWorld(), block.getX(), block.getZ(), -valueOf(block.getType()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        // Also covers spreading, and generators forming cobblestone or stone
+        Block block = event.getBlock();
+        adjust(block.getWorld(), block.getX(), block.getZ(),
+                valueOf(event.getNewState().getType()) - valueOf(block.getType()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        Block block = event.getBlock();
+        adjust(block.getWorld(), block.getX(), block.getZ(),
+                valueOf(event.getNewState().getType()) - valueOf(block.getType()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        exploded(event.getBlock().getWorld(), event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        if (event.getLocation().getWorld() == null) return;
+        exploded(event.getLocation().getWorld(), event.blockList());
+    }
+
+    private void exploded(World world, List<Block> blocks) {
+        for (Block block : blocks) {
+            adjust(world, block.getX(), block.getZ(), -valueOf(block.getType()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        moved(event.getBlock().getWorld(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        moved(event.getBlock().getWorld(), event.getBlocks(), event.getDirection());
+    }
+
+    /**
+     * Pushed blocks only change an island's value when they cross its border
+     */
+    private void moved(World world, List<Block> blocks, BlockFace direction) {
+        for (Block block : blocks) {
+            int value = valueOf(block.getType());
+            if (value == 0) continue;
+
+            int x = block.getX();
+            int z = block.getZ();
+            int toX = x + direction.getModX();
+            int toZ = z + direction.getModZ();
+            Island from = islandData.getIslandAt(x, z);
+            Island to = islandData.getIslandAt(toX, toZ);
+            if (from == to && (from == null || from.contains(x, z) == from.contains(toX, toZ))) continue;
+
+            adjust(world, x, z, -value);
+            adjust(world, toX, toZ, value);
+        }
+    }
+
+    /**
+     * Rebuilds the leaderboard from the current values, without scanning anything
+     */
+    private void updateLeaderboard() {
+        PriorityQueue<Entry> top = new PriorityQueue<>(topSize + 1, (a, b) -> Long.compare(a.value, b.value));
+        for (Map.Entry<UUID, Long> entry : values.entrySet()) {
+            // Skip values left behind by islands deleted on another server
+            if (islandData.getIsland(entry.getKey()) == null) continue;
+
+            top.add(new Entry(entry.getKey(), entry.getValue(), entry.getValue() / pointsPerLevel));
+            if (top.size() > topSize) {
+                top.poll();
+            }
+        }
+
+        List<Entry> sorted = new ArrayList<>(top);
+        sorted.sort((a, b) -> Long.compare(b.value, a.value));
+        leaderboard = Collections.unmodifiableList(sorted);
+        leaderboardUpdated = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the highest islands from the last leaderboard update, highest first
+     */
+    public List<Entry> getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * @return when the leaderboard was last rebuilt, in epoch milliseconds
+     */
+    public long getLeaderboardUpdated() {
+        return leaderboardUpdated;
+    }
+
+    /**
+     * @return an island's value, or -1 if it has not been scanned yet
+     */
+    public long getValue(UUID owner) {
+        Long value = values.get(owner);
+        return value != null ? value : -1L;
+    }
+
+    public long getLevel(long value) {
+        return value / pointsPerLevel;
+    }
+
+    public boolean isScanning(UUID owner) {
+        return scanning.containsKey(owner);
+    }
+
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    public int getValuedIslands() {
+        return values.size();
+    }
+
+    public long getScansCompleted() {
+        return scansCompleted;
+    }
+
+    public long getChunksScanned() {
+        return chunksScanned;
+    }
+
+    public long getIncrementalUpdates() {
+        return incrementalUpdates;
+    }
+
+    /**
+     * Writes every island value on the calling thread
+     */
+    public void save() {
+        YamlConfiguration state = new YamlConfiguration();
+        for (Map.Entry<UUID, Long> entry : values.entrySet()) {
+            state.set(entry.getKey().toString(), entry.getValue());
+        }
+
+        synchronized (saveLock) {
+            try {
+                Files.write(tempFile.toPath(), state.saveToString().getBytes(StandardCharsets.UTF_8));
+                try {
+                    Files.move(tempFile.toPath(), dataFile.toPath(),
+                            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not save island levels: " + e.getMessage());
+            }
+        }
+    }
+
+    private void queueSave() {
+        if (!plugin.isEnabled()) return;
+        // Block changes come in bursts, so write at most once every few seconds
+        if (saveQueued.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
+                saveQueued.set(false);
+                save();
+            }, 100L);
+        }
+    }
+}
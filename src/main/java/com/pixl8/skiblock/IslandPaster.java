@@ -0,0 +1,206 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.Chest;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pastes schematics incrementally on the main thread within a per-tick time budget.
+ * Each paste first loads and tickets every chunk it touches, then places blocks chunk by chunk
+ * and bottom-up within a chunk, so it never jumps between chunks or sync-loads one mid-paste.
+ * Pastes are queued and processed in order, sharing a single global budget.
+ */
+public class IslandPaster {
+    private final JavaPlugin plugin;
+    private final long budgetNanos;
+    private final Metrics metrics;
+    private final Deque<PasteJob> queue = new ArrayDeque<>();
+    private BukkitTask task;
+
+    public IslandPaster(JavaPlugin plugin, double budgetMillis, Metrics metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+        this.budgetNanos = (long) (Math.max(0.1, budgetMillis) * 1_000_000L);
+    }
+
+    /**
+     * Queues a schematic to be pasted. Must be called from the main thread.
+     * @param schematic The schematic to paste
+     * @param origin The location the schematic's relative coordinates are based on
+     * @return a future completed on the main thread with true once every block is placed, or false if the paste failed
+     */
+    public CompletableFuture<Boolean> paste(CompiledSchematic schematic, Location origin) {
+        PasteJob job = new PasteJob(schematic, origin);
+        queue.add(job);
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+        return job.future;
+    }
+
+    /**
+     * @return the number of pastes waiting or in progress
+     */
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * Fails every queued paste and releases its chunks
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (PasteJob job : queue) {
+            job.releaseChunks();
+            job.future.complete(false);
+        }
+        queue.clear();
+    }
+
+    private void tick() {
+        long deadline = System.nanoTime() + budgetNanos;
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            PasteJob job = queue.peek();
+            long start = System.nanoTime();
+            boolean done;
+            try {
+                done = job.step(deadline);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error pasting schematic: " + e.getMessage());
+                queue.poll();
+                job.releaseChunks();
+                job.future.complete(false);
+                continue;
+            }
+
+            job.workNanos += System.nanoTime() - start;
+            if (done) {
+                queue.poll();
+                job.releaseChunks();
+                metrics.record(Metrics.Operation.PASTE, job.workNanos);
+                metrics.add(Metrics.Counter.BLOCKS_PASTED, job.blocksPlaced);
+                job.future.complete(true);
+            }
+        }
+
+        if (queue.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private class PasteJob {
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final CompiledSchematic schematic;
+        private final World world;
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private final int[] order;
+        private final long[] chunks;
+        private int chunksLoaded;
+        private int blocksPlaced;
+        private int chestsFilled;
+        // Main thread time spent on this paste across all ticks
+        private long workNanos;
+
+        PasteJob(CompiledSchematic schematic, Location origin) {
+            this.schematic = schematic;
+            this.world = origin.getWorld();
+            this.originX = origin.getBlockX();
+            this.originY = origin.getBlockY();
+            this.originZ = origin.getBlockZ();
+
+            // Sort blocks by chunk, then by Y so supporting blocks go down first
+            int size = schematic.size();
+            int baseChunkX = originX >> 4;
+            int baseChunkZ = originZ >> 4;
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                int chunkX = ((originX + schematic.getX(i)) >> 4) - baseChunkX + 64;
+                int chunkZ = ((originZ + schematic.getZ(i)) >> 4) - baseChunkZ + 64;
+                long chunk = (long) chunkX << 7 | chunkZ;
+                keys[i] = chunk << 42 | (long) (schematic.getY(i) + 512) << 32 | i;
+            }
+            Arrays.sort(keys);
+
+            this.order = new int[size];
+            long[] distinct = new long[size];
+            int chunkCount = 0;
+            long previous = -1L;
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) keys[i];
+                long chunk = keys[i] >>> 42;
+                if (chunk != previous) {
+                    distinct[chunkCount++] = chunk;
+                    previous = chunk;
+                }
+            }
+
+            this.chunks = new long[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long chunk = distinct[i];
+                int chunkX = (int) (chunk >> 7) - 64 + baseChunkX;
+                int chunkZ = (int) (chunk & 0x7F) - 64 + baseChunkZ;
+                chunks[i] = (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+            }
+        }
+
+        /**
+         * Does as much work as fits before the deadline
+         * @return true once the paste is complete
+         */
+        boolean step(long deadline) {
+            // Load and ticket every target chunk before touching any block
+            while (chunksLoaded < chunks.length) {
+                long chunk = chunks[chunksLoaded++];
+                int chunkX = (int) (chunk >> 32);
+                int chunkZ = (int) chunk;
+                world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+                world.getChunkAt(chunkX, chunkZ);
+                if (System.nanoTime() >= deadline) return false;
+            }
+
+            while (blocksPlaced < order.length) {
+                // Only check the clock every few blocks, nanoTime is not free
+                int batchEnd = Math.min(order.length, blocksPlaced + 64);
+                for (; blocksPlaced < batchEnd; blocksPlaced++) {
+                    int i = order[blocksPlaced];
+                    world.getBlockAt(originX + schematic.getX(i), originY + schematic.getY(i), originZ + schematic.getZ(i))
+                            .setBlockData(schematic.getBlockData(i));
+                }
+                if (System.nanoTime() >= deadline) return false;
+            }
+
+            while (chestsFilled < schematic.getChestCount()) {
+                int i = schematic.getChestBlock(chestsFilled);
+                Block block = world.getBlockAt(originX + schematic.getX(i), originY + schematic.getY(i), originZ + schematic.getZ(i));
+                if (block.getState() instanceof Chest chest) {
+                    chest.getBlockInventory().addItem(schematic.copyChestItems(chestsFilled));
+                }
+                chestsFilled++;
+                if (System.nanoTime() >= deadline) return false;
+            }
+            return true;
+        }
+
+        void releaseChunks() {
+            for (int i = 0; i < chunksLoaded; i++) {
+                long chunk = chunks[i];
+                world.removePluginChunkTicket((int) (chunk >> 32), (int) chunk, plugin);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persistence for island data.
+ * Writes only mark islands dirty; the queued changes are handed to the
+ * {@link IslandStorage} off the main thread on a fixed interval or once enough
+ * islands are queued.
+ */
+public class IslandPersistence {
+    private final JavaPlugin plugin;
+    private final IslandRegistry registry;
+    private final IslandStorage storage;
+    private final int flushThreshold;
+    private final Metrics metrics;
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private final Object flushLock = new Object();
+    private BukkitTask flushTask;
+
+    // Save metrics
+    private final AtomicLong saveCount = new AtomicLong();
+    private final AtomicLong failedSaveCount = new AtomicLong();
+    private final AtomicLong totalSaveNanos = new AtomicLong();
+    private volatile long lastSaveNanos;
+    private volatile long maxSaveNanos;
+
+    public IslandPersistence(JavaPlugin plugin, IslandRegistry registry, IslandStorage storage, int flushThreshold, Metrics metrics) {
+        this.plugin = plugin;
+        this.registry = registry;
+        this.storage = storage;
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts the periodic asynchronous flush
+     * @param intervalTicks Ticks between flushes
+     */
+    public void start(long intervalTicks) {
+        long interval = Math.max(1L, intervalTicks);
+        flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, interval, interval);
+    }
+
+    /**
+     * Stops the periodic flush and writes everything still queued on the calling thread
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+    }
+
+    /**
+     * Queues an island for the next flush
+     * @param owner The island owner
+     */
+    public void markDirty(UUID owner) {
+        dirty.add(owner);
+        if (dirty.size() >= flushThreshold && flushQueued.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                flushQueued.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Hands every dirty island to the storage backend
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            if (dirty.isEmpty()) return;
+
+            // Drain the queue before writing so changes that race the flush are picked up next time
+            List<UUID> drained = new ArrayList<>(dirty.size());
+            for (Iterator<UUID> it = dirty.iterator(); it.hasNext(); ) {
+                drained.add(it.next());
+                it.remove();
+            }
+
+            long start = System.nanoTime();
+            try {
+                storage.write(drained, registry);
+            } catch (IOException e) {
+                dirty.addAll(drained);
+                failedSaveCount.incrementAndGet();
+                metrics.increment(Metrics.Counter.SAVE_FAILURES);
+                plugin.getLogger().warning("Could not save island data: " + e.getMessage());
+                return;
+            }
+            recordSave(System.nanoTime() - start);
+        }
+    }
+
+    private void recordSave(long nanos) {
+        metrics.record(Metrics.Operation.ISLAND_SAVE, nanos);
+        saveCount.incrementAndGet();
+        totalSaveNanos.addAndGet(nanos);
+        lastSaveNanos = nanos;
+        if (nanos > maxSaveNanos) {
+            maxSaveNanos = nanos;
+        }
+    }
+
+    /**
+     * @return true if the island has a change waiting to be written
+     */
+    public boolean isDirty(UUID owner) {
+        return dirty.contains(owner);
+    }
+
+    public int getQueueDepth() {
+        return dirty.size();
+    }
+
+    public long getSaveCount() {
+        return saveCount.get();
+    }
+
+    public long getFailedSaveCount() {
+        return failedSaveCount.get();
+    }
+
+    public double getLastSaveMillis() {
+        return lastSaveNanos / 1_000_000.0;
+    }
+
+    public double getMaxSaveMillis() {
+        return maxSaveNanos / 1_000_000.0;
+    }
+
+    public double getAverageSaveMillis() {
+        long count = saveCount.get();
+        return count == 0 ? 0 : totalSaveNanos.get() / 1_000_000.0 / count;
+    }
+}
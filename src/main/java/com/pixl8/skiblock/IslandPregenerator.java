@@ -0,0 +1,341 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
+/**
+ * Prepares island slots ahead of demand so /stp does not pay for chunk generation or pasting.
+ * Slots are reserved from the {@link IslandSlotAllocator}; their chunks are generated a few at a time
+ * on ticks where the server is keeping up, and the schematic is optionally pasted through the
+ * {@link IslandPaster} once nothing else is being pasted. Only the default template is pre-pasted. Ready slots survive restarts in pregen_pool.yml.
+ */
+public class IslandPregenerator {
+    private final SKIBlock plugin;
+    private final IslandSlotAllocator allocator;
+    private final IslandPaster paster;
+    private final SchematicRegistry schematics;
+    private final IslandWiper wiper;
+    private final TickMonitor tickMonitor;
+    private final File poolFile;
+    private final File tempFile;
+    private final boolean enabled;
+    private final int poolSize;
+    private final boolean prePaste;
+    private final double minTps;
+    private final long budgetNanos;
+
+    private final Deque<Integer> ready = new ArrayDeque<>();
+    private final Object saveLock = new Object();
+    private long stateVersion;
+    private long writtenVersion;
+    private Job current;
+    // Slots being allocated or claimed, which will join the pool once the allocator hands them over
+    private int pendingSlots;
+    private BukkitTask task;
+
+    // Status counters
+    private long chunksGenerated;
+    private long islandsPrepared;
+    private long handedOut;
+    private long throttledTicks;
+
+    public IslandPregenerator(SKIBlock plugin, IslandSlotAllocator allocator, IslandPaster paster,
+                              SchematicRegistry schematics, IslandWiper wiper, TickMonitor tickMonitor) {
+        this.plugin = plugin;
+        this.allocator = allocator;
+        this.paster = paster;
+        this.schematics = schematics;
+        this.wiper = wiper;
+        this.tickMonitor = tickMonitor;
+        this.poolFile = new File(plugin.getDataFolder(), "pregen_pool.yml");
+        this.tempFile = new File(plugin.getDataFolder(), "pregen_pool.yml.tmp");
+        this.enabled = plugin.getConfig().getBoolean("settings.pregen.enabled", true);
+        this.poolSize = Math.max(0, plugin.getConfig().getInt("settings.pregen.pool-size", 4));
+        this.prePaste = plugin.getConfig().getBoolean("settings.pregen.pre-paste", true);
+        this.minTps = plugin.getConfig().getDouble("settings.pregen.min-tps", 19.0);
+        this.budgetNanos = (long) (plugin.getConfig().getDouble("settings.pregen.tick-budget-ms", 2.0) * 1_000_000L);
+    }
+
+    /**
+     * Restores the ready pool from disk and starts preparing slots
+     */
+    public void start() {
+        load();
+        if (enabled && poolSize > 0) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 20L, 1L);
+        }
+    }
+
+    /**
+     * Stops preparing slots, returns an unfinished slot to the allocator and saves the ready pool
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (current != null) {
+            allocator.release(allocator.getBlockX(current.slot), allocator.getBlockZ(current.slot));
+            current = null;
+        }
+        save();
+    }
+
+    /**
+     * Takes a prepared slot out of the pool
+     * @return the slot number, or -1 if none is ready
+     */
+    public int take() {
+        Integer slot = ready.pollFirst();
+        if (slot == null) return -1;
+
+        handedOut++;
+        queueSave();
+        return slot;
+    }
+
+    /**
+     * @return true if slots handed out by {@link #take()} already have the schematic pasted
+     */
+    public boolean isPrePasting() {
+        return prePaste;
+    }
+
+    private void tick() {
+        World world = Bukkit.getWorld("skiblock");
+        if (world == null) return;
+
+        // Only use ticks where the server is keeping up
+        if (tickMonitor.getTps() < minTps) {
+            throttledTicks++;
+            return;
+        }
+
+        if (current == null) {
+            if (pendingSlots > 0 || ready.size() >= poolSize) return;
+            pendingSlots++;
+            allocator.allocate().thenAccept(slot -> {
+                pendingSlots--;
+                if (slot < 0) return;
+                if (task == null) {
+                    // Stopped while the slot was being reserved
+                    allocator.release(allocator.getBlockX(slot), allocator.getBlockZ(slot));
+                    return;
+                }
+                current = new Job(slot, world);
+            });
+            return;
+        }
+
+        if (current.pasting) return;
+
+        long deadline = System.nanoTime() + budgetNanos;
+        while (!current.chunks.isEmpty() && System.nanoTime() < deadline) {
+            long chunk = current.chunks.poll();
+            int chunkX = IslandGrid.keyX(chunk);
+            int chunkZ = IslandGrid.keyZ(chunk);
+            if (!world.isChunkGenerated(chunkX, chunkZ)) {
+                long start = System.nanoTime();
+                world.getChunkAt(chunkX, chunkZ);
+                plugin.getMetrics().recordSince(Metrics.Operation.CHUNK_GENERATE, start);
+                chunksGenerated++;
+            }
+        }
+        if (!current.chunks.isEmpty()) return;
+
+        if (!prePaste) {
+            finish();
+            return;
+        }
+
+        // Leave the paster to players while they are waiting on it
+        if (paster.getQueueLength() > 0) return;
+
+        // Wait for the default template to be read in the background
+        CompiledSchematic schematic = schematics.getIfLoaded(schematics.getDefaultName());
+        if (schematic == null) return;
+
+        Job job = current;
+        job.pasting = true;
+        paster.paste(schematic, job.origin).thenAccept(success -> {
+            if (current != job) return;
+            if (success) {
+                finish();
+            } else {
+                plugin.getLogger().warning("Could not pre-paste island slot " + job.slot + ", returning it");
+                allocator.release(job.origin.getX(), job.origin.getZ());
+                current = null;
+            }
+        });
+    }
+
+    private void finish() {
+        ready.addLast(current.slot);
+        islandsPrepared++;
+        current = null;
+        queueSave();
+    }
+
+    private void load() {
+        if (!poolFile.exists()) return;
+
+        YamlConfiguration state = YamlConfiguration.loadConfiguration(poolFile);
+        if (!allocator.getLayout().name().equalsIgnoreCase(state.getString("layout", ""))
+                || state.getBoolean("pre-paste") != prePaste) {
+            plugin.getLogger().info("Island layout or pre-paste setting changed, discarding " + poolFile.getName());
+            discard(state);
+            return;
+        }
+
+        for (int slot : state.getIntegerList("ready")) {
+            pendingSlots++;
+            allocator.claim(slot).thenAccept(claimed -> {
+                pendingSlots--;
+                if (claimed) {
+                    ready.addLast(slot);
+                    queueSave();
+                }
+            });
+        }
+    }
+
+    /**
+     * Gives the slots of a discarded pool back to the allocator, clearing them first if their islands were pasted
+     */
+    private void discard(YamlConfiguration state) {
+        IslandLayout layout = IslandLayout.fromConfig(state.getString("layout"));
+        IslandGrid grid = plugin.getIslandData().getGrid();
+        for (int slot : state.getIntegerList("ready")) {
+            // The slots were numbered by the layout the pool was saved with
+            int cellX = layout.cellX(slot);
+            int cellZ = layout.cellZ(slot);
+            // Handed out just before the pool was last saved
+            if (grid.getIslandInCell(IslandGrid.cellKey(cellX, cellZ)) != null) continue;
+
+            if (state.getBoolean("pre-paste")) {
+                wiper.clearCell("skiblock", cellX, cellZ);
+            } else {
+                allocator.releaseCell(cellX, cellZ);
+            }
+        }
+        // Never hand the same slots back twice
+        if (!poolFile.delete()) {
+            plugin.getLogger().warning("Could not delete " + poolFile.getName());
+        }
+    }
+
+    private void save() {
+        writeState(createState(), ++stateVersion);
+    }
+
+    private void queueSave() {
+        // Snapshot on the main thread, write off it
+        YamlConfiguration state = createState();
+        long version = ++stateVersion;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> writeState(state, version));
+    }
+
+    private YamlConfiguration createState() {
+        YamlConfiguration state = new YamlConfiguration();
+        state.set("layout", allocator.getLayout().name().toLowerCase());
+        state.set("pre-paste", prePaste);
+        state.set("ready", new ArrayList<>(ready));
+        return state;
+    }
+
+    private void writeState(YamlConfiguration state, long version) {
+        synchronized (saveLock) {
+            // A newer snapshot may already have been written by another task
+            if (version <= writtenVersion) return;
+            writeFile(state);
+            writtenVersion = version;
+        }
+    }
+
+    private void writeFile(YamlConfiguration state) {
+        try {
+            Files.write(tempFile.toPath(), state.saveToString().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tempFile.toPath(), poolFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), poolFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save the pre-generated island pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return a short description of what the pre-generator is doing
+     */
+    public String getState() {
+        if (!enabled || poolSize == 0) return "disabled";
+        if (tickMonitor.getTps() < minTps) return "throttled";
+        if (current == null) return ready.size() >= poolSize ? "idle" : "waiting";
+        if (current.pasting) return "pasting slot " + current.slot;
+        return "generating slot " + current.slot + " (" + current.chunks.size() + " chunks left)";
+    }
+
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public long getChunksGenerated() {
+        return chunksGenerated;
+    }
+
+    public long getIslandsPrepared() {
+        return islandsPrepared;
+    }
+
+    public long getHandedOut() {
+        return handedOut;
+    }
+
+    public long getThrottledTicks() {
+        return throttledTicks;
+    }
+
+    /**
+     * A reserved slot whose chunks are being generated or whose schematic is being pasted
+     */
+    private class Job {
+        private final int slot;
+        private final Location origin;
+        private final Deque<Long> chunks = new ArrayDeque<>();
+        private boolean pasting;
+
+        private Job(int slot, World world) {
+            this.slot = slot;
+            int x = allocator.getBlockX(slot);
+            int z = allocator.getBlockZ(slot);
+            this.origin = new Location(world, x, plugin.getConfig().getInt("settings.default-y"), z);
+
+            // Every chunk the island border reaches into
+            int radius = plugin.getBorderRadius();
+            for (int chunkX = (x - radius) >> 4; chunkX <= (x + radius) >> 4; chunkX++) {
+                for (int chunkZ = (z - radius) >> 4; chunkZ <= (z + radius) >> 4; chunkZ++) {
+                    chunks.add(IslandGrid.cellKey(chunkX, chunkZ));
+                }
+            }
+        }
+    }
+}
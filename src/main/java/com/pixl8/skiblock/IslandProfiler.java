@@ -0,0 +1,395 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Hopper;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockRedstoneEvent;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Attributes entities, tile entities, hoppers and redstone activity to the islands that own them.
+ * Loaded chunks of the island world are swept a few per tick within a time budget and mapped to islands
+ * through the {@link IslandGrid}; redstone changes and hopper transfers are counted as they happen.
+ * Each finished sweep replaces the published totals used by the heaviest-islands report.
+ * Per-island caps on mobs and hoppers are checked on spawn and place against the last sweep
+ * plus whatever was spawned or placed since, so enforcing them is a hash lookup. Spawns and placements
+ * in chunks a running sweep has already passed are carried over into the next window, as that sweep never saw them.
+ */
+public class IslandProfiler implements Listener {
+    private static final String WORLD_NAME = "skiblock";
+
+    private final SKIBlock plugin;
+    private final IslandGrid grid;
+    private final Metrics metrics;
+    private final long sweepIntervalTicks;
+    private final long budgetNanos;
+    private final int mobCap;
+    private final int hopperCap;
+
+    private Chunk[] sweep;
+    private int sweepIndex;
+    private long ticksSinceSweep;
+    private Map<Long, IslandLoad> collecting = new HashMap<>();
+    private Map<Long, IslandLoad> published = Collections.emptyMap();
+    private long lastPublished = System.currentTimeMillis();
+    private double publishedSeconds;
+    // Changes since the sweep behind the published totals started, and those the running sweep has already passed
+    private Map<Long, Integer> spawnedSince = new HashMap<>();
+    private Map<Long, Integer> hoppersSince = new HashMap<>();
+    private Map<Long, Integer> spawnedMissed = new HashMap<>();
+    private Map<Long, Integer> hoppersMissed = new HashMap<>();
+    private final Set<Long> sweptChunks = new HashSet<>();
+    private BukkitTask task;
+
+    /**
+     * What one island had in its loaded chunks during a sweep, and its activity over the sweep window
+     */
+    public static final class IslandLoad {
+        private final UUID owner;
+        private int chunks;
+        private int entities;
+        private int mobs;
+        private int tileEntities;
+        private int hoppers;
+        private long redstoneChanges;
+        private long hopperTransfers;
+
+        private IslandLoad(UUID owner) {
+            this.owner = owner;
+        }
+
+        public UUID getOwner() {
+            return owner;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        public int getEntities() {
+            return entities;
+        }
+
+        /**
+         * @return living entities other than players
+         */
+        public int getMobs() {
+            return mobs;
+        }
+
+        public int getTileEntities() {
+            return tileEntities;
+        }
+
+        public int getHoppers() {
+            return hoppers;
+        }
+
+        public long getRedstoneChanges() {
+            return redstoneChanges;
+        }
+
+        public long getHopperTransfers() {
+            return hopperTransfers;
+        }
+    }
+
+    /**
+     * What the heaviest-islands report can be sorted by
+     */
+    public enum Sort {
+        LOAD,
+        ENTITIES,
+        TILES,
+        HOPPERS,
+        REDSTONE,
+        TRANSFERS;
+
+        public static Sort fromName(String name) {
+            for (Sort sort : values()) {
+                if (sort.name().equalsIgnoreCase(name)) return sort;
+            }
+            return null;
+        }
+    }
+
+    public IslandProfiler(SKIBlock plugin, IslandGrid grid, Metrics metrics) {
+        this.plugin = plugin;
+        this.grid = grid;
+        this.metrics = metrics;
+        this.sweepIntervalTicks = Math.max(1L, plugin.getConfig().getLong("settings.profiler.sweep-interval-ticks", 200L));
+        this.budgetNanos = (long) (plugin.getConfig().getDouble("settings.profiler.tick-budget-ms", 0.5) * 1_000_000L);
+        this.mobCap = plugin.getConfig().getInt("settings.profiler.caps.mobs", 0);
+        this.hopperCap = plugin.getConfig().getInt("settings.profiler.caps.hoppers", 0);
+    }
+
+    /**
+     * Starts sweeping loaded chunks
+     */
+    public void start() {
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 20L, 1L);
+    }
+
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void tick() {
+        ticksSinceSweep++;
+        if (sweep == null) {
+            if (ticksSinceSweep < sweepIntervalTicks) return;
+
+            World world = Bukkit.getWorld(WORLD_NAME);
+            if (world == null) return;
+            sweep = world.getLoadedChunks();
+            sweepIndex = 0;
+            ticksSinceSweep = 0;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        while (sweepIndex < sweep.length) {
+            Chunk chunk = sweep[sweepIndex];
+            sweep[sweepIndex++] = null;
+            sweptChunks.add(chunkKey(chunk.getX(), chunk.getZ()));
+            if (chunk.isLoaded()) {
+                scan(chunk);
+            }
+            if (System.nanoTime() >= deadline) break;
+        }
+        metrics.recordSince(Metrics.Operation.PROFILER_SCAN, start);
+
+        if (sweepIndex >= sweep.length) {
+            publish();
+        }
+    }
+
+    private void scan(Chunk chunk) {
+        // Island cells are far larger than a chunk, so the chunk center decides which island it belongs to
+        long cellKey = grid.cellKeyAt((chunk.getX() << 4) + 8, (chunk.getZ() << 4) + 8);
+        Island island = grid.getIslandInCell(cellKey);
+        if (island == null) return;
+
+        IslandLoad load = collecting(cellKey, island);
+        load.chunks++;
+        for (Entity entity : chunk.getEntities()) {
+            load.entities++;
+            if (entity instanceof LivingEntity && !(entity instanceof Player)) {
+                load.mobs++;
+            }
+        }
+        for (BlockState state : chunk.getTileEntities()) {
+            load.tileEntities++;
+            if (state instanceof Hopper) {
+                load.hoppers++;
+            }
+        }
+    }
+
+    private void publish() {
+        long now = System.currentTimeMillis();
+        publishedSeconds = Math.max(0.001, (now - lastPublished) / 1000.0);
+        lastPublished = now;
+        published = collecting;
+        collecting = new HashMap<>();
+
+        // Changes before a chunk was swept are in the new totals, the rest still count on top of them
+        spawnedSince = spawnedMissed;
+        hoppersSince = hoppersMissed;
+        spawnedMissed = new HashMap<>();
+        hoppersMissed = new HashMap<>();
+        sweptChunks.clear();
+        sweep = null;
+    }
+
+    /**
+     * Counts a spawn, placement or removal towards an island's cap until a sweep has seen it
+     */
+    private void count(Map<Long, Integer> since, Map<Long, Integer> missed, long cellKey, int blockX, int blockZ, int delta) {
+        since.merge(cellKey, delta, Integer::sum);
+        if (sweep != null && sweptChunks.contains(chunkKey(blockX >> 4, blockZ >> 4))) {
+            missed.merge(cellKey, delta, Integer::sum);
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private IslandLoad collecting(long cellKey, Island island) {
+        IslandLoad load = collecting.get(cellKey);
+        if (load == null || !load.owner.equals(island.getOwner())) {
+            load = new IslandLoad(island.getOwner());
+            collecting.put(cellKey, load);
+        }
+        return load;
+    }
+
+    /**
+     * Finds the island a block position belongs to in the island world
+     * @return the cell key, or Long.MIN_VALUE if the position is not on an island
+     */
+    private long islandCell(World world, int x, int z) {
+        if (world == null || !world.getName().equals(WORLD_NAME)) return Long.MIN_VALUE;
+
+        long cellKey = grid.cellKeyAt(x, z);
+        return grid.getIslandInCell(cellKey) != null ? cellKey : Long.MIN_VALUE;
+    }
+
+    /**
+     * Lists the islands with the highest load from the last sweep
+     * @param sort What to rank by
+     * @param limit The number of islands to return
+     * @return the heaviest islands, heaviest first
+     */
+    public List<IslandLoad> getHeaviest(Sort sort, int limit) {
+        List<IslandLoad> loads = new ArrayList<>(published.values());
+        loads.sort(Comparator.comparingDouble((IslandLoad load) -> score(load, sort)).reversed());
+        return loads.subList(0, Math.min(limit, loads.size()));
+    }
+
+    /**
+     * Scores an island for the report. The combined load counts every entity and tile entity
+     * plus redstone changes and hopper transfers per second.
+     */
+    public double score(IslandLoad load, Sort sort) {
+        return switch (sort) {
+            case ENTITIES -> load.entities;
+            case TILES -> load.tileEntities;
+            case HOPPERS -> load.hoppers;
+            case REDSTONE -> load.redstoneChanges / publishedSeconds;
+            case TRANSFERS -> load.hopperTransfers / publishedSeconds;
+            case LOAD -> load.entities + load.tileEntities + (load.redstoneChanges + load.hopperTransfers) / publishedSeconds;
+        };
+    }
+
+    /**
+     * @return the length of the window the published activity was counted over, in seconds
+     */
+    public double getWindowSeconds() {
+        return publishedSeconds;
+    }
+
+    /**
+     * @return the number of islands with anything loaded in the last sweep
+     */
+    public int getTrackedIslands() {
+        return published.size();
+    }
+
+    /**
+     * @return the progress of the current sweep, or -1 while waiting for the next one
+     */
+    public double getSweepProgress() {
+        return sweep == null ? -1 : (double) sweepIndex / Math.max(1, sweep.length);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onCreatureSpawn(CreatureSpawnEvent event) {
+        // Spawns by other plugins are their own business
+        if (event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.CUSTOM) return;
+
+        Location location = event.getLocation();
+        long cellKey = islandCell(location.getWorld(), location.getBlockX(), location.getBlockZ());
+        if (cellKey == Long.MIN_VALUE) return;
+
+        IslandLoad load = published.get(cellKey);
+        int spawned = spawnedSince.getOrDefault(cellKey, 0);
+        if (mobCap > 0 && (load != null ? load.mobs : 0) + spawned >= mobCap) {
+            event.setCancelled(true);
+            return;
+        }
+        count(spawnedSince, spawnedMissed, cellKey, location.getBlockX(), location.getBlockZ(), 1);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlockPlaced();
+        if (block.getType() != Material.HOPPER) return;
+
+        long cellKey = islandCell(block.getWorld(), block.getX(), block.getZ());
+        if (cellKey == Long.MIN_VALUE) return;
+
+        IslandLoad load = published.get(cellKey);
+        int placed = hoppersSince.getOrDefault(cellKey, 0);
+        if (hopperCap > 0 && (load != null ? load.hoppers : 0) + placed >= hopperCap) {
+            event.setCancelled(true);
+            event.getPlayer().sendMessage("§cThis island has reached its limit of " + hopperCap + " hoppers.");
+            return;
+        }
+        count(hoppersSince, hoppersMissed, cellKey, block.getX(), block.getZ(), 1);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        Block block = event.getBlock();
+        if (block.getType() != Material.HOPPER) return;
+
+        long cellKey = islandCell(block.getWorld(), block.getX(), block.getZ());
+        if (cellKey != Long.MIN_VALUE) {
+            count(hoppersSince, hoppersMissed, cellKey, block.getX(), block.getZ(), -1);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockRedstone(BlockRedstoneEvent event) {
+        Block block = event.getBlock();
+        long cellKey = islandCell(block.getWorld(), block.getX(), block.getZ());
+        if (cellKey != Long.MIN_VALUE) {
+            collecting(cellKey, grid.getIslandInCell(cellKey)).redstoneChanges++;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryMoveItem(InventoryMoveItemEvent event) {
+        Inventory initiator = event.getInitiator();
+        Location location = initiator.getLocation();
+        if (location == null) return;
+
+        long cellKey = islandCell(location.getWorld(), location.getBlockX(), location.getBlockZ());
+        if (cellKey != Long.MIN_VALUE) {
+            collecting(cellKey, grid.getIslandInCell(cellKey)).hopperTransfers++;
+        }
+    }
+
+    /**
+     * @return a short lowercase list of the report's sort names
+     */
+    public static String sortNames() {
+        List<String> names = new ArrayList<>();
+        for (Sort sort : Sort.values()) {
+            names.add(sort.name().toLowerCase(Locale.ROOT));
+        }
+        return String.join("|", names);
+    }
+}
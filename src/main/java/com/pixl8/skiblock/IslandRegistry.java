@@ -0,0 +1,40 @@
+package com.pixl8.skiblock;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of all islands keyed by owner UUID.
+ * Filled once by {@link IslandData} at startup and kept current on every write.
+ * Safe to read from the asynchronous persistence thread.
+ */
+public class IslandRegistry {
+    private final Map<UUID, Island> islands = new ConcurrentHashMap<>();
+
+    public Island get(UUID owner) {
+        return islands.get(owner);
+    }
+
+    public void put(Island island) {
+        islands.put(island.getOwner(), island);
+    }
+
+    public Island remove(UUID owner) {
+        return islands.remove(owner);
+    }
+
+    public void clear() {
+        islands.clear();
+    }
+
+    public int size() {
+        return islands.size();
+    }
+
+    public Collection<Island> values() {
+        return Collections.unmodifiableCollection(islands.values());
+    }
+}
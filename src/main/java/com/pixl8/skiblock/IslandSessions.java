@@ -0,0 +1,153 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session cache of connected players' islands, filled during {@link AsyncPlayerPreLoginEvent}
+ * so the main thread never waits on storage for a player's own island.
+ * With SQL storage the record is read from the database on the login thread; with file storage
+ * every island is already in memory and the prefetch only copies it.
+ * Sessions outlive a quit by a grace period, so a quick reconnect skips the read; with SQL storage
+ * only after checking that no other server changed the island meanwhile.
+ */
+public class IslandSessions implements Listener {
+    // How long a prefetched session waits for the player to actually join
+    private static final long LOGIN_TIMEOUT_MILLIS = 60_000L;
+
+    private final SKIBlock plugin;
+    private final IslandData islandData;
+    private final long graceMillis;
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+    private BukkitTask evictTask;
+
+    private static final class Session {
+        // Null while the player has no island
+        private volatile Island island;
+        // When the session may be dropped, 0 while the player is online
+        private volatile long expiresAt;
+
+        private Session(Island island) {
+            this.island = island;
+        }
+    }
+
+    public IslandSessions(SKIBlock plugin, IslandData islandData, long graceMillis) {
+        this.plugin = plugin;
+        this.islandData = islandData;
+        this.graceMillis = Math.max(0L, graceMillis);
+    }
+
+    /**
+     * Starts dropping sessions whose grace period is over
+     */
+    public void start() {
+        evictTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::evictExpired, 200L, 200L);
+    }
+
+    public void shutdown() {
+        if (evictTask != null) {
+            evictTask.cancel();
+            evictTask = null;
+        }
+        sessions.clear();
+    }
+
+    /**
+     * Looks up a connected player's island without touching storage
+     * @param owner The player
+     * @return the island, or null if the player has none
+     */
+    public Island get(UUID owner) {
+        Session session = sessions.get(owner);
+        if (session != null) {
+            plugin.getMetrics().increment(Metrics.Counter.SESSION_HITS);
+            return session.island;
+        }
+
+        // Not prefetched, e.g. online before a plugin reload or not online at all; the registry is in memory too.
+        // Expire it like a prefetch, so a lookup for someone who never joins is not kept forever
+        plugin.getMetrics().increment(Metrics.Counter.SESSION_MISSES);
+        Island island = islandData.getIsland(owner);
+        session = new Session(island);
+        session.expiresAt = System.currentTimeMillis() + LOGIN_TIMEOUT_MILLIS;
+        sessions.putIfAbsent(owner, session);
+        return island;
+    }
+
+    /**
+     * Keeps a cached session in step with an island that was created, changed or removed
+     * @param owner The island owner
+     * @param island The island, or null if it was removed
+     */
+    public void update(UUID owner, Island island) {
+        Session session = sessions.get(owner);
+        if (session != null) {
+            session.island = island;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        UUID owner = event.getUniqueId();
+        Session session = sessions.get(owner);
+        if (session != null && islandData.isUnchanged(owner)) {
+            // Reconnected within the grace period
+            session.expiresAt = System.currentTimeMillis() + LOGIN_TIMEOUT_MILLIS;
+            plugin.getMetrics().increment(Metrics.Counter.SESSION_RESUMES);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Island island;
+        try {
+            island = islandData.prefetch(owner);
+        } catch (IOException e) {
+            // Leave it to the fallback in get, which only reads memory
+            plugin.getLogger().warning("Could not prefetch the island of " + event.getName() + ": " + e.getMessage());
+            return;
+        }
+        session = new Session(island);
+        session.expiresAt = System.currentTimeMillis() + LOGIN_TIMEOUT_MILLIS;
+        sessions.put(owner, session);
+        plugin.getMetrics().recordSince(Metrics.Operation.ISLAND_PREFETCH, start);
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Session session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null) {
+            session.expiresAt = 0L;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        Session session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null) {
+            session.expiresAt = System.currentTimeMillis() + graceMillis;
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> session.expiresAt != 0L && session.expiresAt <= now);
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+}
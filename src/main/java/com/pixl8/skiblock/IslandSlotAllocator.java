@@ -0,0 +1,311 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands out island grid slots without scanning existing islands.
+ * A persistent cursor points at the next never-used slot and released slots are
+ * kept in a free list that is reused lowest-first, so islands stay close to spawn.
+ * All allocation goes through one lock, so two players can never claim the same slot.
+ * With a shared island database every slot is also reserved there before it is handed out,
+ * so servers sharing the database skip each other's slots; those reservations are made off the
+ * main thread, and slots are handed out through futures completed back on it.
+ */
+public class IslandSlotAllocator {
+    private final JavaPlugin plugin;
+    private final File stateFile;
+    private final File tempFile;
+    private final IslandLayout layout;
+    private final IslandGrid grid;
+    // Null when this server is the only one placing islands
+    private final SqlSlotReservations reservations;
+    private final TreeSet<Integer> freeSlots = new TreeSet<>();
+    private final Set<Long> occupiedCells = new HashSet<>();
+    private final AtomicBoolean saveQueued = new AtomicBoolean(false);
+    private final Object saveLock = new Object();
+    private int cursor;
+
+    public IslandSlotAllocator(JavaPlugin plugin, File dataFolder, IslandLayout layout, IslandGrid grid,
+                               SqlSlotReservations reservations) {
+        this.plugin = plugin;
+        this.stateFile = new File(dataFolder, "island_slots.yml");
+        this.tempFile = new File(dataFolder, "island_slots.yml.tmp");
+        this.layout = layout;
+        this.grid = grid;
+        this.reservations = reservations;
+    }
+
+    /**
+     * Restores the cursor and free list, and marks the cells of existing islands as taken
+     * @param islands Every island currently known to {@link IslandData}
+     */
+    public synchronized void load(Collection<Island> islands) {
+        occupiedCells.clear();
+        for (Island island : islands) {
+            occupiedCells.add(grid.cellKeyAt(island.getX(), island.getZ()));
+        }
+        if (reservations != null) {
+            try {
+                occupiedCells.addAll(reservations.loadReserved());
+            } catch (IOException e) {
+                throw new RuntimeException("Could not load slot reservations", e);
+            }
+        }
+
+        freeSlots.clear();
+        cursor = 0;
+        if (stateFile.exists()) {
+            YamlConfiguration state = YamlConfiguration.loadConfiguration(stateFile);
+            if (layout.name().equalsIgnoreCase(state.getString("layout", layout.name()))) {
+                cursor = state.getInt("cursor", 0);
+                freeSlots.addAll(state.getIntegerList("free"));
+            } else {
+                plugin.getLogger().info("Island layout changed to " + layout.name().toLowerCase() + ", restarting slot cursor");
+            }
+        }
+    }
+
+    /**
+     * Claims the next free slot. With a shared database the slot is reserved there off the main thread.
+     * Must be called from the main thread.
+     * @return a future completed on the main thread with the slot number, or -1 if the shared database could not be reached
+     */
+    public CompletableFuture<Integer> allocate() {
+        if (reservations == null) return CompletableFuture.completedFuture(next());
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            int slot = reserveNext();
+            Bukkit.getScheduler().runTask(plugin, () -> future.complete(slot));
+        });
+        return future;
+    }
+
+    /**
+     * Takes the next slot whose cell is not known to be taken
+     */
+    private synchronized int next() {
+        int slot;
+        do {
+            Integer free = freeSlots.pollFirst();
+            slot = free != null ? free : cursor++;
+        } while (!occupiedCells.add(IslandGrid.cellKey(layout.cellX(slot), layout.cellZ(slot))));
+        queueSave();
+        return slot;
+    }
+
+    /**
+     * Takes slots until one can be reserved in the shared database. Blocks on the database.
+     */
+    private int reserveNext() {
+        while (true) {
+            int slot = next();
+            try {
+                if (reservations.reserve(layout.cellX(slot), layout.cellZ(slot))) return slot;
+                // A slot another server reserved stays marked as occupied here
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not reserve an island slot: " + e.getMessage());
+                giveBack(slot);
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Claims a specific slot, for slots that were reserved before a restart. With a shared database the slot
+     * is reserved there off the main thread. Must be called from the main thread.
+     * @param slot The slot number
+     * @return a future completed on the main thread with true if the slot was still free and is now taken
+     */
+    public CompletableFuture<Boolean> claim(int slot) {
+        if (!take(slot)) return CompletableFuture.completedFuture(false);
+        if (reservations == null) return CompletableFuture.completedFuture(true);
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            boolean reserved;
+            try {
+                reserved = reservations.reserve(layout.cellX(slot), layout.cellZ(slot));
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not reserve island slot " + slot + ": " + e.getMessage());
+                giveBack(slot);
+                reserved = false;
+            }
+            boolean claimed = reserved;
+            Bukkit.getScheduler().runTask(plugin, () -> future.complete(claimed));
+        });
+        return future;
+    }
+
+    /**
+     * Marks a specific slot as taken
+     * @return false if its cell was already taken
+     */
+    private synchronized boolean take(int slot) {
+        if (!occupiedCells.add(IslandGrid.cellKey(layout.cellX(slot), layout.cellZ(slot)))) return false;
+
+        freeSlots.remove(slot);
+        if (slot >= cursor) {
+            // Skipped slots below the claimed one stay available
+            for (int skipped = cursor; skipped < slot; skipped++) {
+                freeSlots.add(skipped);
+            }
+            cursor = slot + 1;
+        }
+        queueSave();
+        return true;
+    }
+
+    /**
+     * Undoes taking a slot whose reservation could not be made
+     */
+    private synchronized void giveBack(int slot) {
+        occupiedCells.remove(IslandGrid.cellKey(layout.cellX(slot), layout.cellZ(slot)));
+        freeSlots.add(slot);
+        queueSave();
+    }
+
+    /**
+     * Marks a cell as taken without handing out its slot, for cells that must be cleared before they are reused
+     */
+    public synchronized void hold(int cellX, int cellZ) {
+        occupiedCells.add(IslandGrid.cellKey(cellX, cellZ));
+    }
+
+    /**
+     * Returns the slot under an island center to the free list
+     * @param x Island center X
+     * @param z Island center Z
+     */
+    public void release(double x, double z) {
+        int cellX = grid.cellX(x);
+        int cellZ = grid.cellZ(z);
+        synchronized (this) {
+            if (!occupiedCells.contains(IslandGrid.cellKey(cellX, cellZ))) return;
+        }
+        releaseCell(cellX, cellZ);
+    }
+
+    /**
+     * Returns a cell's slot to the free list, even if the cell is no longer marked as taken.
+     * Used for cells whose release was held back across a restart. With a shared database the reservation
+     * is removed off the main thread first, and the slot only becomes free again once it is gone.
+     * @param cellX Grid cell X
+     * @param cellZ Grid cell Z
+     */
+    public void releaseCell(int cellX, int cellZ) {
+        if (reservations == null) {
+            free(cellX, cellZ);
+            return;
+        }
+
+        Runnable unreserve = () -> {
+            try {
+                reservations.release(cellX, cellZ);
+            } catch (IOException e) {
+                // The reservation stays ours, which reserve() accepts when the slot is handed out again
+                plugin.getLogger().warning("Could not release island slot reservation: " + e.getMessage());
+            }
+            free(cellX, cellZ);
+        };
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, unreserve);
+        } else {
+            // Shutting down, nothing can be scheduled any more
+            unreserve.run();
+        }
+    }
+
+    private synchronized void free(int cellX, int cellZ) {
+        occupiedCells.remove(IslandGrid.cellKey(cellX, cellZ));
+        int slot = layout.slotOf(cellX, cellZ);
+        if (slot >= 0 && slot < cursor) {
+            freeSlots.add(slot);
+        }
+        queueSave();
+    }
+
+    /**
+     * @return the block X coordinate of a slot's island center
+     */
+    public int getBlockX(int slot) {
+        return grid.getCenterX(layout.cellX(slot));
+    }
+
+    /**
+     * @return the block Z coordinate of a slot's island center
+     */
+    public int getBlockZ(int slot) {
+        return grid.getCenterZ(layout.cellZ(slot));
+    }
+
+    public IslandLayout getLayout() {
+        return layout;
+    }
+
+    public synchronized int getCursor() {
+        return cursor;
+    }
+
+    public synchronized int getFreeSlotCount() {
+        return freeSlots.size();
+    }
+
+    /**
+     * Writes the allocator state on the calling thread
+     */
+    public void save() {
+        YamlConfiguration state = new YamlConfiguration();
+        synchronized (this) {
+            state.set("layout", layout.name().toLowerCase());
+            state.set("cursor", cursor);
+            List<Integer> free = new ArrayList<>(freeSlots);
+            state.set("free", free);
+        }
+
+        synchronized (saveLock) {
+            writeState(state);
+        }
+    }
+
+    private void writeState(YamlConfiguration state) {
+        try {
+            Files.write(tempFile.toPath(), state.saveToString().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tempFile.toPath(), stateFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save island slot state: " + e.getMessage());
+        }
+    }
+
+    private void queueSave() {
+        if (!plugin.isEnabled()) return;
+        if (saveQueued.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                saveQueued.set(false);
+                save();
+            });
+        }
+    }
+}
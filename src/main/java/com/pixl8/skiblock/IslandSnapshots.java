@@ -0,0 +1,455 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Island snapshots for rollbacks, kept in a {@link SnapshotStore}.
+ * A snapshot copies the island's chunks to {@link ChunkSnapshot}s a few per tick, then encodes and hashes
+ * every non-empty section off the main thread; the store only writes sections it does not have yet, so
+ * a snapshot costs disk space for what changed since the last one. Sections are stored relative to the
+ * island's centre chunk, so a snapshot can be restored after the island moved.
+ * A restore copies the current chunks the same way, compares them with the snapshot off the main thread
+ * and pastes only the blocks that differ, air included, through the {@link IslandPaster}.
+ * Snapshots of online owners' islands are taken on a timer, and a retention pass drops old snapshots
+ * and unused sections to keep the store within its disk limit.
+ */
+public class IslandSnapshots {
+    // Ticks between checks for islands due a snapshot, and between retention passes
+    private static final long CHECK_INTERVAL_TICKS = 20L * 60;
+    private static final long RETENTION_INTERVAL_TICKS = 20L * 60 * 30;
+
+    private final SKIBlock plugin;
+    private final IslandData islandData;
+    private final SnapshotStore store;
+    private final long budgetNanos;
+    private final long intervalMillis;
+    private final int keep;
+    private final long maxAgeMillis;
+    private final long maxDiskBytes;
+
+    private final Deque<CopyJob> queue = new ArrayDeque<>();
+    // Islands with a snapshot or restore in progress, including its async part
+    private final Set<UUID> busy = new HashSet<>();
+    private final Map<UUID, Long> lastCaptured = new HashMap<>();
+    private BukkitTask copyTask;
+    private BukkitTask checkTask;
+    private BukkitTask retentionTask;
+
+    // Report counters
+    private long snapshotsTaken;
+    private long snapshotsUnchanged;
+    private long restores;
+    private long blocksRestored;
+    private long chunksCopied;
+    private volatile long bytesCollected;
+
+    /**
+     * Copies an island's chunks, then hands the snapshots to the next step
+     */
+    private final class CopyJob {
+        private final World world;
+        private final int centerChunkX;
+        private final int centerChunkZ;
+        private final Deque<int[]> chunks = new ArrayDeque<>();
+        private final Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+        private final Consumer<CopyJob> then;
+
+        private CopyJob(World world, int centerChunkX, int centerChunkZ,
+                        int minChunkX, int maxChunkX, int minChunkZ, int maxChunkZ, Consumer<CopyJob> then) {
+            this.world = world;
+            this.centerChunkX = centerChunkX;
+            this.centerChunkZ = centerChunkZ;
+            this.then = then;
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    chunks.add(new int[]{chunkX, chunkZ});
+                }
+            }
+        }
+
+        /**
+         * @return the copy of a chunk relative to the centre chunk, or null if it was never generated
+         */
+        private ChunkSnapshot get(int chunkX, int chunkZ) {
+            return snapshots.get(IslandGrid.cellKey(chunkX, chunkZ));
+        }
+    }
+
+    public IslandSnapshots(SKIBlock plugin, IslandData islandData) {
+        this.plugin = plugin;
+        this.islandData = islandData;
+        this.store = new SnapshotStore(new File(plugin.getDataFolder(), "snapshots"), plugin.getLogger());
+        this.budgetNanos = (long) (plugin.getConfig().getDouble("settings.snapshots.tick-budget-ms", 1.0) * 1_000_000L);
+        this.intervalMillis = (long) (plugin.getConfig().getDouble("settings.snapshots.interval-minutes", 60.0) * 60_000L);
+        this.keep = Math.max(1, plugin.getConfig().getInt("settings.snapshots.keep", 24));
+        this.maxAgeMillis = (long) (plugin.getConfig().getDouble("settings.snapshots.max-age-days", 14.0) * 86_400_000L);
+        this.maxDiskBytes = plugin.getConfig().getLong("settings.snapshots.max-disk-mb", 2048L) * 1048576L;
+    }
+
+    /**
+     * Lists the store in the background and starts the copy queue, the snapshot timer and the retention passes
+     */
+    public void start() {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, store::load);
+        copyTask = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        if (intervalMillis > 0) {
+            checkTask = Bukkit.getScheduler().runTaskTimer(plugin, this::captureDue, CHECK_INTERVAL_TICKS, CHECK_INTERVAL_TICKS);
+        }
+        retentionTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::applyRetention,
+                RETENTION_INTERVAL_TICKS, RETENTION_INTERVAL_TICKS);
+    }
+
+    /**
+     * Drops unfinished snapshots and restores; a restore already pasting is failed by the {@link IslandPaster}
+     */
+    public void shutdown() {
+        if (copyTask != null) {
+            copyTask.cancel();
+            copyTask = null;
+        }
+        if (checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+        if (retentionTask != null) {
+            retentionTask.cancel();
+            retentionTask = null;
+        }
+        queue.clear();
+        busy.clear();
+    }
+
+    /**
+     * Queues a snapshot of an island. Must be called from the main thread.
+     * @return a future completed on the main thread with true once the snapshot is stored or the island is
+     * unchanged since its last one, or false if it failed, the island is busy or its world is not loaded
+     */
+    public CompletableFuture<Boolean> capture(Island island) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        UUID owner = island.getOwner();
+        World world = Bukkit.getWorld(island.getWorldName());
+        if (world == null || !busy.add(owner)) {
+            future.complete(false);
+            return future;
+        }
+
+        int centerChunkX = (int) Math.floor(island.getX()) >> 4;
+        int centerChunkZ = (int) Math.floor(island.getZ()) >> 4;
+        int minChunkX = ((int) Math.floor(island.getMinX()) >> 4) - centerChunkX;
+        int maxChunkX = ((int) Math.floor(island.getMaxX()) >> 4) - centerChunkX;
+        int minChunkZ = ((int) Math.floor(island.getMinZ()) >> 4) - centerChunkZ;
+        int maxChunkZ = ((int) Math.floor(island.getMaxZ()) >> 4) - centerChunkZ;
+        long created = System.currentTimeMillis();
+        lastCaptured.put(owner, created);
+
+        queue.add(new CopyJob(world, centerChunkX, centerChunkZ, minChunkX, maxChunkX, minChunkZ, maxChunkZ, job ->
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                    long start = System.nanoTime();
+                    Map<Long, String> sections = new HashMap<>();
+                    Map<String, byte[]> data = new HashMap<>();
+                    int minSection = world.getMinHeight() >> 4;
+                    int maxSection = (world.getMaxHeight() - 1) >> 4;
+                    for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                        for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                            ChunkSnapshot snapshot = job.get(chunkX, chunkZ);
+                            if (snapshot == null) continue;
+                            for (int sectionY = minSection; sectionY <= maxSection; sectionY++) {
+                                if (snapshot.isSectionEmpty(sectionY - minSection)) continue;
+
+                                byte[] encoded = SnapshotSection.copy(snapshot, sectionY << 4).encode();
+                                String hash = SnapshotSection.hash(encoded);
+                                sections.put(SnapshotStore.sectionKey(chunkX, chunkZ, sectionY), hash);
+                                data.putIfAbsent(hash, encoded);
+                            }
+                        }
+                    }
+
+                    SnapshotStore.Manifest manifest = new SnapshotStore.Manifest(created,
+                            minChunkX, maxChunkX, minChunkZ, maxChunkZ, sections);
+                    boolean success;
+                    SnapshotStore.Snapshot stored = null;
+                    try {
+                        stored = store.commit(owner, manifest, data);
+                        store.prune(owner, keep, maxAgeMillis, true);
+                        success = true;
+                    } catch (IOException e) {
+                        plugin.getLogger().warning("Could not store a snapshot of the island of " + owner + ": " + e.getMessage());
+                        success = false;
+                    }
+                    plugin.getMetrics().recordSince(Metrics.Operation.SNAPSHOT_CAPTURE, start);
+                    if (stored != null) {
+                        plugin.getMetrics().add(Metrics.Counter.SNAPSHOT_SECTIONS_WRITTEN, stored.getNewSections());
+                        plugin.getMetrics().add(Metrics.Counter.SNAPSHOT_SECTIONS_DEDUPLICATED,
+                                manifest.getHashes().size() - stored.getNewSections());
+                    }
+
+                    boolean result = success;
+                    boolean changed = stored != null;
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        busy.remove(owner);
+                        if (result && changed) {
+                            snapshotsTaken++;
+                        } else if (result) {
+                            snapshotsUnchanged++;
+                        }
+                        future.complete(result);
+                    });
+                })));
+        return future;
+    }
+
+    /**
+     * Rolls an island back to a snapshot, pasting only the blocks that changed since. Chest contents,
+     * other tile entity data and entities are not part of a snapshot. Must be called from the main thread.
+     * @param created The snapshot's id, see {@link SnapshotStore.Snapshot#getCreated}
+     * @return a future completed on the main thread with the number of blocks changed, or -1 if the restore failed
+     */
+    public CompletableFuture<Integer> restore(Island island, long created) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        UUID owner = island.getOwner();
+        World world = Bukkit.getWorld(island.getWorldName());
+        if (world == null || !busy.add(owner)) {
+            future.complete(-1);
+            return future;
+        }
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            // Read everything up front, so a retention pass cannot remove sections halfway through
+            SnapshotStore.Manifest manifest;
+            Map<String, SnapshotSection> sections = new HashMap<>();
+            try {
+                manifest = store.read(owner, created);
+                for (String hash : manifest.getHashes()) {
+                    sections.put(hash, SnapshotSection.decode(store.readSection(hash)));
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not read a snapshot of the island of " + owner + ": " + e.getMessage());
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    busy.remove(owner);
+                    future.complete(-1);
+                });
+                return;
+            }
+
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (!busy.contains(owner)) {
+                    // Shut down meanwhile
+                    future.complete(-1);
+                    return;
+                }
+                int centerChunkX = (int) Math.floor(island.getX()) >> 4;
+                int centerChunkZ = (int) Math.floor(island.getZ()) >> 4;
+                queue.add(new CopyJob(world, centerChunkX, centerChunkZ, manifest.getMinChunkX(), manifest.getMaxChunkX(),
+                        manifest.getMinChunkZ(), manifest.getMaxChunkZ(),
+                        job -> Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> diff(job, manifest, sections, island, future))));
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Compares the copied chunks with a snapshot off the main thread and pastes the differences
+     */
+    private void diff(CopyJob job, SnapshotStore.Manifest manifest, Map<String, SnapshotSection> sections,
+                      Island island, CompletableFuture<Integer> future) {
+        long start = System.nanoTime();
+        UUID owner = island.getOwner();
+        int minSection = job.world.getMinHeight() >> 4;
+        int maxSection = (job.world.getMaxHeight() - 1) >> 4;
+        CompiledSchematic.Builder builder = new CompiledSchematic.Builder();
+        Map<String, Integer> paletteIndex = new HashMap<>();
+        int changed = 0;
+
+        try {
+            for (int chunkX = manifest.getMinChunkX(); chunkX <= manifest.getMaxChunkX(); chunkX++) {
+                for (int chunkZ = manifest.getMinChunkZ(); chunkZ <= manifest.getMaxChunkZ(); chunkZ++) {
+                    ChunkSnapshot current = job.get(chunkX, chunkZ);
+                    for (int sectionY = minSection; sectionY <= maxSection; sectionY++) {
+                        String hash = manifest.getSection(chunkX, chunkZ, sectionY);
+                        boolean currentEmpty = current == null || current.isSectionEmpty(sectionY - minSection);
+                        if (hash == null && currentEmpty) continue;
+
+                        SnapshotSection now = currentEmpty ? null : SnapshotSection.copy(current, sectionY << 4);
+                        // Untouched sections hash the same as when they were stored
+                        if (now != null && hash != null && hash.equals(SnapshotSection.hash(now.encode()))) continue;
+
+                        SnapshotSection then = hash != null ? sections.get(hash) : null;
+                        for (int i = 0; i < SnapshotSection.VOLUME; i++) {
+                            String wanted = then != null ? then.get(i) : SnapshotSection.AIR;
+                            if (wanted.equals(now != null ? now.get(i) : SnapshotSection.AIR)) continue;
+
+                            Integer index = paletteIndex.get(wanted);
+                            if (index == null) {
+                                index = builder.palette(wanted);
+                                paletteIndex.put(wanted, index);
+                            }
+                            // Relative to the bottom corner of the centre chunk at Y 0
+                            builder.block((chunkX << 4) + (i & 15), (sectionY << 4) + (i >> 8), (chunkZ << 4) + ((i >> 4) & 15), index);
+                            changed++;
+                        }
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Could not restore the island of " + owner + ": " + e.getMessage());
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                busy.remove(owner);
+                future.complete(-1);
+            });
+            return;
+        }
+        plugin.getMetrics().recordSince(Metrics.Operation.SNAPSHOT_RESTORE, start);
+
+        CompiledSchematic differences = builder.build();
+        int blocks = changed;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            Location origin = new Location(job.world, job.centerChunkX << 4, 0, job.centerChunkZ << 4);
+            plugin.getIslandPaster().paste(differences, origin).thenAccept(success -> {
+                busy.remove(owner);
+                // Even a failed paste may have changed blocks under cached safe spots
+                plugin.getSafeLocations().invalidate(owner);
+                if (!success) {
+                    future.complete(-1);
+                    return;
+                }
+                restores++;
+                blocksRestored += blocks;
+                // The island's value changed in ways no block event reported
+                plugin.getIslandLevels().scan(island);
+                future.complete(blocks);
+            });
+        });
+    }
+
+    private void tick() {
+        if (queue.isEmpty()) return;
+
+        long deadline = System.nanoTime() + budgetNanos;
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            CopyJob job = queue.peek();
+            int[] next = job.chunks.poll();
+            if (next == null) {
+                queue.poll();
+                job.then.accept(job);
+                continue;
+            }
+
+            int chunkX = job.centerChunkX + next[0];
+            int chunkZ = job.centerChunkZ + next[1];
+            // Chunks that were never generated hold nothing
+            if (!job.world.isChunkGenerated(chunkX, chunkZ)) continue;
+
+            boolean wasLoaded = job.world.isChunkLoaded(chunkX, chunkZ);
+            job.snapshots.put(IslandGrid.cellKey(next[0], next[1]),
+                    job.world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+            if (!wasLoaded) {
+                job.world.unloadChunkRequest(chunkX, chunkZ);
+            }
+            chunksCopied++;
+        }
+    }
+
+    /**
+     * Snapshots the islands of online owners whose last snapshot is older than the interval
+     */
+    private void captureDue() {
+        long now = System.currentTimeMillis();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            UUID owner = player.getUniqueId();
+            Island island = islandData.getPlayerIsland(owner);
+            if (island == null || busy.contains(owner)) continue;
+
+            Long last = lastCaptured.get(owner);
+            if (last == null) {
+                List<SnapshotStore.Snapshot> stored = store.list(owner);
+                last = stored.isEmpty() ? 0L : stored.get(0).getCreated();
+            }
+            if (now - last >= intervalMillis) {
+                capture(island);
+            }
+        }
+    }
+
+    /**
+     * Drops snapshots past the retention limits, then sections nothing uses any more
+     */
+    private void applyRetention() {
+        long start = System.currentTimeMillis();
+        int dropped = 0;
+        try {
+            for (UUID owner : store.getOwners()) {
+                // Keep the last snapshot of a live island however old, a deleted island has nothing to restore into
+                dropped += store.prune(owner, keep, maxAgeMillis, islandData.getIsland(owner) != null);
+            }
+            long freed = store.collect(maxDiskBytes);
+            bytesCollected += freed;
+            if (dropped > 0 || freed > 0) {
+                plugin.getLogger().info(String.format("Dropped %d island snapshots and freed %.1f MB in %dms",
+                        dropped, freed / 1048576.0, System.currentTimeMillis() - start));
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not apply the snapshot retention policy: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return an island's snapshots, newest first
+     */
+    public List<SnapshotStore.Snapshot> list(UUID owner) {
+        return store.list(owner);
+    }
+
+    public SnapshotStore getStore() {
+        return store;
+    }
+
+    public boolean isBusy(UUID owner) {
+        return busy.contains(owner);
+    }
+
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    public long getSnapshotsTaken() {
+        return snapshotsTaken;
+    }
+
+    public long getSnapshotsUnchanged() {
+        return snapshotsUnchanged;
+    }
+
+    public long getRestores() {
+        return restores;
+    }
+
+    public long getBlocksRestored() {
+        return blocksRestored;
+    }
+
+    public long getChunksCopied() {
+        return chunksCopied;
+    }
+
+    public long getBytesCollected() {
+        return bytesCollected;
+    }
+}
@@ -0,0 +1,32 @@
+package com.pixl8.skiblock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Backend that island records are loaded from and written to.
+ * Implementations are called from the asynchronous persistence thread and must not touch the Bukkit API.
+ */
+public interface IslandStorage extends Closeable {
+
+    /**
+     * Reads every stored island
+     * @param consumer Receives each island as it is decoded
+     */
+    void load(Consumer<Island> consumer) throws IOException;
+
+    /**
+     * Persists a batch of changes
+     * @param changed Owners whose islands were created, updated or removed since the last write
+     * @param registry The current state of every island; an owner missing from it has been deleted
+     */
+    void write(Collection<UUID> changed, IslandRegistry registry) throws IOException;
+
+    /**
+     * @return a short name for log messages and diagnostics
+     */
+    String getName();
+}
@@ -0,0 +1,47 @@
+package com.pixl8.skiblock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * One-shot copy of island_data.yml into another storage backend.
+ * The YAML file is renamed afterwards so the migration never runs twice.
+ */
+public final class IslandStorageMigrator {
+
+    private IslandStorageMigrator() {
+    }
+
+    /**
+     * Copies every island from the YAML file into the target storage
+     * @param source The existing YAML storage
+     * @param target The storage to migrate into
+     * @param logger Logger for progress messages
+     * @return the number of islands migrated
+     */
+    public static int migrate(YamlIslandStorage source, IslandStorage target, Logger logger) throws IOException {
+        long start = System.nanoTime();
+        IslandRegistry registry = new IslandRegistry();
+        List<UUID> owners = new ArrayList<>();
+        source.load(island -> {
+            registry.put(island);
+            owners.add(island.getOwner());
+        });
+
+        target.write(owners, registry);
+
+        File yamlFile = source.getDataFile();
+        File migrated = new File(yamlFile.getParentFile(), yamlFile.getName() + ".migrated");
+        if (!yamlFile.renameTo(migrated)) {
+            logger.warning("Could not rename " + yamlFile.getName() + " after migration, it will be ignored");
+        }
+
+        logger.info(String.format("Migrated %d islands from %s to %s storage in %dms",
+                owners.size(), yamlFile.getName(), target.getName(), (System.nanoTime() - start) / 1_000_000));
+        return owners.size();
+    }
+}
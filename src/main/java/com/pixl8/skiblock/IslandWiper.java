@@ -0,0 +1,488 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resets and deletes islands by clearing their whole grid cell chunk by chunk within a per-tick time budget.
+ * Only chunks that were ever generated are visited, and a chunk snapshot is used to skip empty sections
+ * and air, so a mostly void cell costs little more than the island itself.
+ * When a deleted island's cell fully contains region files, the unloaded chunks in them are not touched:
+ * the files are deleted on the next startup, before the world is loaded, and the slot is only returned
+ * to the allocator then. Cells that still need clearing chunk by chunk are kept in pending_wipes.yml
+ * until they are done, and are cleared once their world is loaded.
+ */
+public class IslandWiper implements Listener {
+    private static final String[] REGION_FOLDERS = {"region", "entities", "poi"};
+
+    private final SKIBlock plugin;
+    private final IslandData islandData;
+    private final IslandGrid grid;
+    private final IslandSlotAllocator allocator;
+    private final long budgetNanos;
+    private final File pendingFile;
+    private final YamlConfiguration pending;
+    private final Deque<WipeJob> queue = new ArrayDeque<>();
+    private final Set<Long> busyCells = new HashSet<>();
+    private BukkitTask task;
+
+    public IslandWiper(SKIBlock plugin, IslandData islandData, IslandSlotAllocator allocator, double budgetMillis) {
+        this.plugin = plugin;
+        this.islandData = islandData;
+        this.grid = islandData.getGrid();
+        this.allocator = allocator;
+        this.budgetNanos = (long) (Math.max(0.1, budgetMillis) * 1_000_000L);
+        this.pendingFile = new File(plugin.getDataFolder(), "pending_wipes.yml");
+        this.pending = pendingFile.exists() ? YamlConfiguration.loadConfiguration(pendingFile) : new YamlConfiguration();
+    }
+
+    /**
+     * Clears a player's island cell and pastes the default template again. Must be called from the main thread.
+     * @param owner The island owner
+     * @return a future completed on the main thread with true once the new island is pasted
+     */
+    public CompletableFuture<Boolean> reset(UUID owner) {
+        Island island = islandData.getIsland(owner);
+        World world = island != null ? Bukkit.getWorld(island.getWorldName()) : null;
+        if (world == null) return CompletableFuture.completedFuture(false);
+
+        int cellX = grid.cellX(island.getX());
+        int cellZ = grid.cellZ(island.getZ());
+        long cell = IslandGrid.cellKey(cellX, cellZ);
+        if (!busyCells.add(cell)) return CompletableFuture.completedFuture(false);
+
+        evacuate(world, cell);
+        SchematicRegistry schematics = plugin.getSchematics();
+        return wipe(new WipeJob(world, cellX, cellZ, false)).thenCompose(wiped -> {
+            if (!wiped) return CompletableFuture.completedFuture(null);
+            return schematics.load(schematics.getDefaultName());
+        }).thenCompose(schematic -> {
+            if (schematic == null) return CompletableFuture.completedFuture(false);
+            return plugin.getIslandPaster().paste(schematic, island.toLocation());
+        }).whenComplete((success, e) -> {
+            busyCells.remove(cell);
+            plugin.getSafeLocations().invalidate(owner);
+            if (Boolean.TRUE.equals(success)) {
+                plugin.getIslandLevels().scan(island);
+            }
+        });
+    }
+
+    /**
+     * Deletes a player's island record and clears its cell. Must be called from the main thread.
+     * @param owner The island owner
+     * @return a future completed on the main thread with true once the cell is cleared
+     */
+    public CompletableFuture<Boolean> delete(UUID owner) {
+        Island island = islandData.getIsland(owner);
+        World world = island != null ? Bukkit.getWorld(island.getWorldName()) : null;
+        if (world == null) return CompletableFuture.completedFuture(false);
+
+        int cellX = grid.cellX(island.getX());
+        int cellZ = grid.cellZ(island.getZ());
+        long cell = IslandGrid.cellKey(cellX, cellZ);
+        if (!busyCells.add(cell)) return CompletableFuture.completedFuture(false);
+
+        islandData.removeIsland(owner);
+        plugin.getSafeLocations().invalidate(owner);
+        plugin.getIslandLevels().remove(owner);
+        plugin.getClientBorders().refresh(owner);
+        evacuate(world, cell);
+        // Recorded up front, so a failed or interrupted clear is finished after the next restart
+        addPending(world.getName(), cellX, cellZ, Collections.emptyList(), true);
+
+        WipeJob job = new WipeJob(world, cellX, cellZ, true);
+        return wipe(job).whenComplete((wiped, e) -> {
+            busyCells.remove(cell);
+            if (!Boolean.TRUE.equals(wiped)) {
+                // Keep the slot out of circulation rather than hand out a half-cleared cell
+                plugin.getLogger().warning("Island cell " + cellX + "," + cellZ + " was not fully cleared, it will be cleared after the next restart");
+            } else if (job.droppedRegions.isEmpty()) {
+                removePending(cellX, cellZ);
+                allocator.releaseCell(cellX, cellZ);
+            } else {
+                addPending(world.getName(), cellX, cellZ, job.droppedRegions, false);
+            }
+        });
+    }
+
+    /**
+     * Clears a cell that has no island record, such as a discarded pre-pasted pool slot, and returns its slot
+     * to the allocator afterwards. The cell is recorded in pending_wipes.yml first, so a restart finishes the clear.
+     * Must be called from the main thread.
+     * @param worldName The world holding the cell, which is cleared once it is loaded
+     */
+    public void clearCell(String worldName, int cellX, int cellZ) {
+        allocator.hold(cellX, cellZ);
+        addPending(worldName, cellX, cellZ, Collections.emptyList(), true);
+        World world = Bukkit.getWorld(worldName);
+        if (world != null) {
+            clearPending(world, cellX, cellZ);
+        }
+    }
+
+    /**
+     * Deletes the region files queued by earlier deletions and returns their slots to the allocator.
+     * Must run before the island world is loaded, otherwise the cells are cleared chunk by chunk instead.
+     * Cells that need clearing chunk by chunk wait for their world to be loaded.
+     */
+    public void processPendingDrops() {
+        for (String key : new ArrayList<>(pending.getKeys(false))) {
+            String worldName = pending.getString(key + ".world");
+            int[] cell = parseCell(key);
+            if (cell == null || worldName == null) {
+                // Left in the file so it can be fixed by hand
+                plugin.getLogger().warning("Skipping invalid entry " + key + " in " + pendingFile.getName());
+                continue;
+            }
+            int cellX = cell[0];
+            int cellZ = cell[1];
+            // Never hand the cell out again before it is cleared
+            allocator.hold(cellX, cellZ);
+
+            World world = Bukkit.getWorld(worldName);
+            if (world != null) {
+                plugin.getLogger().warning("World " + worldName + " is already loaded, clearing island cell " + key + " chunk by chunk");
+                clearPending(world, cellX, cellZ);
+                continue;
+            }
+
+            boolean deleted = true;
+            File worldFolder = new File(Bukkit.getWorldContainer(), worldName);
+            for (String region : pending.getStringList(key + ".regions")) {
+                String[] coords = region.split(",");
+                if (coords.length != 2) {
+                    plugin.getLogger().warning("Skipping invalid region " + region + " of island cell " + key);
+                    continue;
+                }
+                for (String folder : REGION_FOLDERS) {
+                    File file = new File(worldFolder, folder + "/r." + coords[0] + "." + coords[1] + ".mca");
+                    if (file.exists() && !file.delete()) {
+                        plugin.getLogger().warning("Could not delete " + file.getPath());
+                        deleted = false;
+                    }
+                }
+            }
+            if (!deleted) continue;
+
+            if (pending.getBoolean(key + ".clear")) {
+                pending.set(key + ".regions", Collections.emptyList());
+            } else {
+                pending.set(key, null);
+                allocator.releaseCell(cellX, cellZ);
+            }
+        }
+        savePending();
+    }
+
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        World world = event.getWorld();
+        for (String key : pending.getKeys(false)) {
+            if (!pending.getBoolean(key + ".clear") || !world.getName().equals(pending.getString(key + ".world"))) continue;
+
+            int[] cell = parseCell(key);
+            if (cell != null) {
+                clearPending(world, cell[0], cell[1]);
+            }
+        }
+    }
+
+    /**
+     * @return the number of wipes waiting or in progress
+     */
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * Fails every queued wipe and releases its chunks
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (WipeJob job : queue) {
+            job.releaseChunk();
+            job.future.complete(false);
+        }
+        queue.clear();
+    }
+
+    private CompletableFuture<Boolean> wipe(WipeJob job) {
+        queue.add(job);
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+        return job.future;
+    }
+
+    private void tick() {
+        long deadline = System.nanoTime() + budgetNanos;
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            WipeJob job = queue.peek();
+            boolean done;
+            try {
+                done = job.step(deadline);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error clearing island cell: " + e.getMessage());
+                queue.poll();
+                job.releaseChunk();
+                job.future.complete(false);
+                continue;
+            }
+
+            if (done) {
+                queue.poll();
+                job.future.complete(true);
+            }
+        }
+
+        if (queue.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Sends everyone standing in a cell to the main world's spawn
+     */
+    private void evacuate(World world, long cell) {
+        Location spawn = Bukkit.getWorlds().get(0).getSpawnLocation();
+        for (Player player : world.getPlayers()) {
+            Location location = player.getLocation();
+            if (grid.cellKeyAt(location.getX(), location.getZ()) == cell) {
+                player.teleport(spawn);
+            }
+        }
+    }
+
+    /**
+     * Clears a pending cell chunk by chunk, then forgets it and returns its slot
+     */
+    private void clearPending(World world, int cellX, int cellZ) {
+        long cell = IslandGrid.cellKey(cellX, cellZ);
+        if (!busyCells.add(cell)) return;
+
+        wipe(new WipeJob(world, cellX, cellZ, false)).thenAccept(wiped -> {
+            busyCells.remove(cell);
+            if (wiped) {
+                removePending(cellX, cellZ);
+                allocator.releaseCell(cellX, cellZ);
+            }
+        });
+    }
+
+    /**
+     * Records a cell whose region files are to be deleted on the next startup, or that is to be cleared
+     * chunk by chunk once its world is loaded
+     */
+    private void addPending(String worldName, int cellX, int cellZ, List<String> regions, boolean clear) {
+        String key = cellX + "," + cellZ;
+        pending.set(key + ".world", worldName);
+        pending.set(key + ".regions", regions);
+        pending.set(key + ".clear", clear);
+        savePending();
+    }
+
+    private void removePending(int cellX, int cellZ) {
+        pending.set(cellX + "," + cellZ, null);
+        savePending();
+    }
+
+    /**
+     * @return the cell X and Z of a pending_wipes.yml key, or null if the key is not "x,z"
+     */
+    private static int[] parseCell(String key) {
+        String[] cell = key.split(",");
+        if (cell.length != 2) return null;
+        try {
+            return new int[]{Integer.parseInt(cell[0].trim()), Integer.parseInt(cell[1].trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void savePending() {
+        if (pending.getKeys(false).isEmpty()) {
+            if (pendingFile.exists() && !pendingFile.delete()) {
+                plugin.getLogger().warning("Could not delete " + pendingFile.getName());
+            }
+            return;
+        }
+        try {
+            pending.save(pendingFile);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save pending island wipes: " + e.getMessage());
+        }
+    }
+
+    private class WipeJob {
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final World world;
+        private final int minX;
+        private final int maxX;
+        private final int minZ;
+        private final int maxZ;
+        private final long[] chunks;
+        private final List<String> droppedRegions = new ArrayList<>();
+        private int chunkIndex;
+
+        // Progress through the current chunk
+        private Chunk chunk;
+        private ChunkSnapshot snapshot;
+        private int[] sections;
+        private int sectionIndex;
+        private int position;
+
+        WipeJob(World world, int cellX, int cellZ, boolean dropRegions) {
+            this.world = world;
+
+            // Block bounds of the cell, neighbouring cells are never touched
+            double half = grid.getDistance() / 2.0;
+            this.minX = (int) Math.ceil(grid.getCenterX(cellX) - half);
+            this.maxX = (int) Math.ceil(grid.getCenterX(cellX) + half) - 1;
+            this.minZ = (int) Math.ceil(grid.getCenterZ(cellZ) - half);
+            this.maxZ = (int) Math.ceil(grid.getCenterZ(cellZ) + half) - 1;
+
+            List<Long> chunkList = new ArrayList<>();
+            File regionFolder = new File(world.getWorldFolder(), "region");
+            for (int regionX = minX >> 9; regionX <= maxX >> 9; regionX++) {
+                for (int regionZ = minZ >> 9; regionZ <= maxZ >> 9; regionZ++) {
+                    boolean onDisk = new File(regionFolder, "r." + regionX + "." + regionZ + ".mca").exists();
+                    boolean exclusive = regionX << 9 >= minX && (regionX << 9) + 511 <= maxX
+                            && regionZ << 9 >= minZ && (regionZ << 9) + 511 <= maxZ;
+                    if (dropRegions && exclusive && onDisk) {
+                        droppedRegions.add(regionX + "," + regionZ);
+                    }
+
+                    for (int chunkX = Math.max(minX >> 4, regionX << 5); chunkX <= Math.min(maxX >> 4, (regionX << 5) + 31); chunkX++) {
+                        for (int chunkZ = Math.max(minZ >> 4, regionZ << 5); chunkZ <= Math.min(maxZ >> 4, (regionZ << 5) + 31); chunkZ++) {
+                            // Chunks that only exist on disk are skipped if their region is dropped or was never written
+                            if ((dropRegions && exclusive) || !onDisk) {
+                                if (!world.isChunkLoaded(chunkX, chunkZ)) continue;
+                            }
+                            chunkList.add((long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL));
+                        }
+                    }
+                }
+            }
+            this.chunks = chunkList.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        /**
+         * Does as much work as fits before the deadline
+         * @return true once every chunk is cleared
+         */
+        boolean step(long deadline) {
+            while (chunkIndex < chunks.length) {
+                if (chunk == null && !loadChunk()) {
+                    chunkIndex++;
+                    if (System.nanoTime() >= deadline) return false;
+                    continue;
+                }
+
+                if (!clearChunk(deadline)) return false;
+                releaseChunk();
+                chunkIndex++;
+            }
+            return true;
+        }
+
+        /**
+         * Loads the next chunk, removes its entities and finds its non-empty sections
+         * @return false if the chunk was never generated and can be skipped
+         */
+        private boolean loadChunk() {
+            long key = chunks[chunkIndex];
+            int chunkX = (int) (key >> 32);
+            int chunkZ = (int) key;
+            if (!world.isChunkGenerated(chunkX, chunkZ)) return false;
+
+            world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+            chunk = world.getChunkAt(chunkX, chunkZ);
+            for (Entity entity : chunk.getEntities()) {
+                Location location = entity.getLocation();
+                if (!(entity instanceof Player) && location.getBlockX() >= minX && location.getBlockX() <= maxX
+                        && location.getBlockZ() >= minZ && location.getBlockZ() <= maxZ) {
+                    entity.remove();
+                }
+            }
+
+            snapshot = chunk.getChunkSnapshot(false, false, false);
+            int sectionCount = (world.getMaxHeight() - world.getMinHeight()) >> 4;
+            int[] found = new int[sectionCount];
+            int count = 0;
+            for (int section = 0; section < sectionCount; section++) {
+                if (!snapshot.isSectionEmpty(section)) {
+                    found[count++] = section;
+                }
+            }
+            sections = Arrays.copyOf(found, count);
+            sectionIndex = 0;
+            position = 0;
+            return true;
+        }
+
+        /**
+         * Sets every non-air block of the current chunk's non-empty sections to air, without physics
+         * @return true once the chunk is cleared
+         */
+        private boolean clearChunk(long deadline) {
+            int baseX = chunk.getX() << 4;
+            int baseZ = chunk.getZ() << 4;
+            while (sectionIndex < sections.length) {
+                int baseY = world.getMinHeight() + (sections[sectionIndex] << 4);
+                while (position < 4096) {
+                    // Only check the clock every few blocks, nanoTime is not free
+                    int batchEnd = position + 256;
+                    for (; position < batchEnd; position++) {
+                        int x = position & 15;
+                        int z = (position >> 4) & 15;
+                        int y = baseY + (position >> 8);
+                        if (baseX + x < minX || baseX + x > maxX || baseZ + z < minZ || baseZ + z > maxZ) continue;
+                        if (snapshot.getBlockType(x, y, z).isAir()) continue;
+
+                        world.getBlockAt(baseX + x, y, baseZ + z).setType(Material.AIR, false);
+                    }
+                    if (System.nanoTime() >= deadline) return false;
+                }
+                sectionIndex++;
+                position = 0;
+            }
+            return true;
+        }
+
+        void releaseChunk() {
+            if (chunk == null) return;
+            world.removePluginChunkTicket(chunk.getX(), chunk.getZ(), plugin);
+            chunk = null;
+            snapshot = null;
+        }
+    }
+}
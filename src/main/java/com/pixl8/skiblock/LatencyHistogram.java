@@ -0,0 +1,112 @@
+package com.pixl8.skiblock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in the style of HdrHistogram.
+ * Values are bucketed by their highest set bit plus the next {@value #SUB_BITS} bits, so every bucket is
+ * within about 3% of the values it holds from one nanosecond up to centuries, in a fixed 15 KB of counters.
+ * Recording is a few arithmetic operations and atomic increments, with no allocation,
+ * so it can be called from any thread on every operation.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one operation
+     * @param nanos How long it took, negative values count as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        totalNanos.add(value);
+
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Clears every recorded value. Values recorded at the same time may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0L);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getAverageNanos() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) totalNanos.sum() / recorded;
+    }
+
+    /**
+     * Estimates a percentile from the buckets
+     * @param percentile Between 0 and 100
+     * @return the value at that percentile in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) return 0L;
+
+        long target = Math.max(1L, (long) Math.ceil(total * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                // Report the middle of the bucket, but never more than the largest value seen
+                return Math.min(lowerBound(i) + (bucketWidth(i) - 1) / 2, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    // Small values get a bucket each, larger ones share a bucket with values that have the same top bits
+    static int bucket(long value) {
+        if (value < SUB_COUNT) return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+
+        int group = bucket / SUB_COUNT;
+        return (long) (SUB_COUNT + bucket % SUB_COUNT) << (group - 1);
+    }
+
+    private static long bucketWidth(int bucket) {
+        return bucket < SUB_COUNT ? 1L : 1L << (bucket / SUB_COUNT - 1);
+    }
+}
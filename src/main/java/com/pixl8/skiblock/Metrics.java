@@ -0,0 +1,231 @@
+package com.pixl8.skiblock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Timings and counters for the plugin's subsystems.
+ * Every {@link Operation} has a {@link LatencyHistogram} and every {@link Counter} a {@link LongAdder},
+ * so recording is allocation-free and safe from any thread and can stay on in production.
+ * Shown in game by /skiblock stats and optionally served in the Prometheus text format over HTTP.
+ */
+public class Metrics {
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99, 0.999};
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private volatile long since = System.currentTimeMillis();
+    private HttpServer httpServer;
+    private ExecutorService httpExecutor;
+
+    public enum Operation {
+        BORDER_CHECK("border_check", "Border check"),
+        SAFE_SPOT_SEARCH("safe_spot_search", "Safe spot search"),
+        ISLAND_SAVE("island_save", "Island save"),
+        PASTE("paste", "Paste (main thread)"),
+        CHUNK_GENERATE("chunk_generate", "Chunk generation"),
+        ISLAND_CREATE("island_create", "/stp to teleport"),
+        PROFILER_SCAN("profiler_scan", "Island profiler (per tick)"),
+        ISLAND_FETCH("island_fetch", "Island database read"),
+        ISLAND_PREFETCH("island_prefetch", "Island prefetch on login"),
+        LEVEL_SCAN("level_scan", "Island level scan (async)"),
+        SNAPSHOT_CAPTURE("snapshot_capture", "Island snapshot (async)"),
+        SNAPSHOT_RESTORE("snapshot_restore", "Snapshot restore diff (async)");
+
+        private final String key;
+        private final String label;
+
+        Operation(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public enum Counter {
+        BORDER_VIOLATIONS("border_violations", "Border violations"),
+        SAFE_SPOT_CACHE_HITS("safe_spot_cache_hits", "Safe spot cache hits"),
+        SAVE_FAILURES("save_failures", "Failed island saves"),
+        BLOCKS_PASTED("blocks_pasted", "Blocks pasted"),
+        ISLANDS_CREATED("islands_created", "Islands created"),
+        STORE_CONFLICTS("store_conflicts", "Island writes lost to another server"),
+        REMOTE_UPDATES("remote_updates", "Island changes read from the database"),
+        SESSION_HITS("session_hits", "Island lookups served by a session"),
+        SESSION_MISSES("session_misses", "Island lookups without a session"),
+        SESSION_RESUMES("session_resumes", "Sessions kept for a reconnect"),
+        SNAPSHOT_SECTIONS_WRITTEN("snapshot_sections_written", "Snapshot sections written"),
+        SNAPSHOT_SECTIONS_DEDUPLICATED("snapshot_sections_deduplicated", "Snapshot sections already stored");
+
+        private final String key;
+        private final String label;
+
+        Counter(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public Metrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records how long an operation took
+     * @param operation The operation
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(Operation operation, long nanos) {
+        histograms[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records an operation that started at a {@link System#nanoTime()} reading
+     */
+    public void recordSince(Operation operation, long startNanos) {
+        histograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public void add(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    public LatencyHistogram get(Operation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * @return the time the metrics were last reset, in epoch milliseconds
+     */
+    public long getSince() {
+        return since;
+    }
+
+    /**
+     * Clears every histogram and counter
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * Starts serving /metrics in the Prometheus text format
+     * @param host The address to bind, normally 127.0.0.1 so only a local scraper can reach it
+     * @param port The port to listen on
+     * @param logger Logger for startup errors
+     */
+    public void startHttp(String host, int port, Logger logger) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            logger.warning("Could not start the metrics endpoint on " + host + ":" + port + ": " + e.getMessage());
+            return;
+        }
+        httpServer.createContext("/metrics", this::handle);
+        httpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SKIBlock metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(httpExecutor);
+        httpServer.start();
+        logger.info("Serving metrics on http://" + host + ":" + port + "/metrics");
+    }
+
+    /**
+     * Stops the HTTP endpoint, if it was started
+     */
+    public void stopHttp() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+            httpExecutor.shutdown();
+            httpExecutor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = toPrometheus().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * @return every histogram as a summary and every counter, in the Prometheus text exposition format
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(2048);
+        out.append("# HELP skiblock_operation_seconds Time taken by SKIBlock operations\n");
+        out.append("# TYPE skiblock_operation_seconds summary\n");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = get(operation);
+            for (double quantile : QUANTILES) {
+                out.append("skiblock_operation_seconds{operation=\"").append(operation.key)
+                        .append("\",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(histogram.getPercentileNanos(quantile * 100))).append('\n');
+            }
+            out.append("skiblock_operation_seconds_sum{operation=\"").append(operation.key).append("\"} ")
+                    .append(seconds(histogram.getTotalNanos())).append('\n');
+            out.append("skiblock_operation_seconds_count{operation=\"").append(operation.key).append("\"} ")
+                    .append(histogram.getCount()).append('\n');
+        }
+
+        for (Counter counter : Counter.values()) {
+            String name = "skiblock_" + counter.key + "_total";
+            out.append("# HELP ").append(name).append(' ').append(counter.label).append('\n');
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(get(counter)).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1_000_000_000.0);
+    }
+}
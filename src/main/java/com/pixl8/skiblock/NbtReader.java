@@ -0,0 +1,109 @@
+package com.pixl8.skiblock;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader for uncompressed NBT, enough to import schematic files.
+ * Compounds are read as maps, lists as lists, arrays as Java arrays and numbers as their boxed types.
+ */
+final class NbtReader {
+    private static final int TAG_END = 0;
+    private static final int TAG_COMPOUND = 10;
+    private static final int MAX_DEPTH = 512;
+
+    private NbtReader() {
+    }
+
+    /**
+     * Reads the root compound of an NBT document
+     * @param in The stream, already decompressed
+     * @return the contents of the root compound
+     * @throws IOException if the data is not valid NBT
+     */
+    static Map<String, Object> readRoot(DataInputStream in) throws IOException {
+        int type = in.readUnsignedByte();
+        if (type != TAG_COMPOUND) {
+            throw new IOException("NBT root is not a compound");
+        }
+        in.readUTF(); // Root name
+        return readCompound(in, 0);
+    }
+
+    private static Map<String, Object> readCompound(DataInputStream in, int depth) throws IOException {
+        Map<String, Object> compound = new HashMap<>();
+        while (true) {
+            int type = in.readUnsignedByte();
+            if (type == TAG_END) return compound;
+            String name = in.readUTF();
+            compound.put(name, readPayload(in, type, depth + 1));
+        }
+    }
+
+    private static Object readPayload(DataInputStream in, int type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("NBT nested too deeply");
+        }
+
+        switch (type) {
+            case 1:
+                return in.readByte();
+            case 2:
+                return in.readShort();
+            case 3:
+                return in.readInt();
+            case 4:
+                return in.readLong();
+            case 5:
+                return in.readFloat();
+            case 6:
+                return in.readDouble();
+            case 7: {
+                byte[] bytes = new byte[readLength(in)];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case 8:
+                return in.readUTF();
+            case 9: {
+                int elementType = in.readUnsignedByte();
+                int size = readLength(in);
+                List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(readPayload(in, elementType, depth + 1));
+                }
+                return list;
+            }
+            case TAG_COMPOUND:
+                return readCompound(in, depth);
+            case 11: {
+                int[] ints = new int[readLength(in)];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = in.readInt();
+                }
+                return ints;
+            }
+            case 12: {
+                long[] longs = new long[readLength(in)];
+                for (int i = 0; i < longs.length; i++) {
+                    longs[i] = in.readLong();
+                }
+                return longs;
+            }
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative NBT length");
+        }
+        return length;
+    }
+}
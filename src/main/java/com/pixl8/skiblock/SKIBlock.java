@@ -9,177 +9,321 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.WorldCreator;
 import org.bukkit.WorldType;
-import org.bukkit.Particle;
-import org.bukkit.block.Block;
-import org.bukkit.block.BlockFace;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 public class SKIBlock extends JavaPlugin {
+    // Names typed by admins end up in file paths, so neither may contain a path separator
+    private static final Pattern TEMPLATE_NAME = Pattern.compile("[a-z0-9_-]+");
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+
     private static SKIBlock instance;
+    private Metrics metrics;
     private IslandData islandData;
+    private IslandSlotAllocator slotAllocator;
+    private IslandPaster islandPaster;
+    private SchematicRegistry schematics;
+    private TickMonitor tickMonitor;
+    private IslandPregenerator pregenerator;
+    private BorderEnforcer borderEnforcer;
+    private SafeLocationResolver safeLocations;
+    private ClientBorderManager clientBorders;
+    private IslandWiper islandWiper;
+    private IslandProfiler profiler;
+    private IslandHibernator hibernator;
+    private IslandLeases islandLeases;
+    private IslandLevels islandLevels;
+    private IslandSnapshots islandSnapshots;
     private Configuration config;
-    private final HashMap<UUID, Border> playerBorders = new HashMap<>();
-    private final int BORDER_RADIUS = 10; // 10 block radius for each island
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
 
     public IslandData getIslandData() {
         return islandData;
     }
 
+    public IslandSlotAllocator getSlotAllocator() {
+        return slotAllocator;
+    }
+
+    public IslandPaster getIslandPaster() {
+        return islandPaster;
+    }
+
+    public SchematicRegistry getSchematics() {
+        return schematics;
+    }
+
+    public IslandLevels getIslandLevels() {
+        return islandLevels;
+    }
+
+    public SafeLocationResolver getSafeLocations() {
+        return safeLocations;
+    }
+
+    public ClientBorderManager getClientBorders() {
+        return clientBorders;
+    }
+
+    /**
+     * @return the border radius for new islands, half of the configured border size
+     */
+    public int getBorderRadius() {
+        return Math.max(1, getConfig().getInt("settings.border-size", 100) / 2);
+    }
+
     @Override
     public void onEnable() {
         instance = this;
         saveDefaultConfig();
         config = getConfig();
+
+        // Timings for every subsystem, optionally served to a local Prometheus scraper
+        metrics = new Metrics();
+        if (config.getBoolean("settings.metrics.http.enabled", false)) {
+            metrics.startHttp(config.getString("settings.metrics.http.host", "127.0.0.1"),
+                    config.getInt("settings.metrics.http.port", 9464), getLogger());
+        }
         
         // Initialize island data
         islandData = new IslandData(getDataFolder(), this);
         islandData.loadIslands();
+        islandData.getPersistence().start(config.getLong("settings.persistence.flush-interval-ticks", 100L));
+
+        // Read each player's island while they log in, so the main thread never waits on storage for it
+        getServer().getPluginManager().registerEvents(islandData.getSessions(), this);
+        islandData.getSessions().start();
+
+        // With a shared database, reserve slots there and lease islands so servers never step on each other
+        SqlSlotReservations reservations = null;
+        IslandDatabase database = islandData.getDatabase();
+        if (database != null) {
+            String node = config.getString("settings.persistence.sql.node-id", "");
+            if (node == null || node.isEmpty()) {
+                node = loadNodeId();
+            }
+            reservations = new SqlSlotReservations(database, node);
+            islandLeases = new IslandLeases(this, islandData, database, node,
+                    config.getLong("settings.persistence.sql.lease-seconds", 60L) * 1000L);
+            getServer().getPluginManager().registerEvents(islandLeases, this);
+            islandLeases.start();
+            for (Player player : getServer().getOnlinePlayers()) {
+                islandLeases.acquireFor(player);
+            }
+            islandData.startSync(config.getLong("settings.persistence.sql.sync-interval-ticks", 100L));
+        }
+
+        // Initialize island slot allocation
+        slotAllocator = new IslandSlotAllocator(this, getDataFolder(),
+                IslandLayout.fromConfig(config.getString("settings.island-layout")),
+                islandData.getGrid(), reservations);
+        slotAllocator.load(islandData.getIslands());
+
+        // Island reset and deletion, finishing region file deletions queued before the last restart
+        islandWiper = new IslandWiper(this, islandData, slotAllocator, config.getDouble("settings.wipe.tick-budget-ms", 5.0));
+        getServer().getPluginManager().registerEvents(islandWiper, this);
+        islandWiper.processPendingDrops();
+
+        // Initialize incremental schematic pasting
+        islandPaster = new IslandPaster(this, config.getDouble("settings.paste.tick-budget-ms", 5.0), metrics);
+
+        // Index the island templates, their blocks are read on first use
+        schematics = new SchematicRegistry(this, getSchematicFolder(),
+                config.getString("settings.schematics.default", SchematicLoader.DEFAULT_SCHEMATIC),
+                config.getLong("settings.schematics.cache-mb", 16L) * 1024 * 1024);
+        schematics.start();
+
+        // Prepare island slots ahead of demand while the server is keeping up
+        tickMonitor = new TickMonitor();
+        tickMonitor.start(this);
+        pregenerator = new IslandPregenerator(this, slotAllocator, islandPaster, schematics, islandWiper, tickMonitor);
+        pregenerator.start();
         
         // Register commands
         getCommand("createsbworld").setExecutor(new CreateSBWorldCommand());
         getCommand("stp").setExecutor(new StartSkyBlockCommand());
+        getCommand("skiblock").setExecutor(new AdminCommand());
+        getCommand("sborder").setExecutor(new BorderCommand());
+        getCommand("slevel").setExecutor(new LevelCommand());
         
-        // Start border checking task
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                checkPlayersNearBorders();
-            }
-        }.runTaskTimer(this, 0L, 10L); // change this if it gets too laggy
-    }
+        // Start border enforcement, either on movement events or on a polling timer
+        BorderVisualizer borderVisualizer = new BorderVisualizer(
+                config.getInt("settings.border.particles.density", 128),
+                config.getLong("settings.border.particles.interval-ticks", 10L),
+                config.getDouble("settings.border.particles.view-distance", 32.0));
+        safeLocations = new SafeLocationResolver(islandData.getGrid(), metrics);
+        getServer().getPluginManager().registerEvents(safeLocations, this);
+        borderEnforcer = new BorderEnforcer(islandData, BorderEnforcer.Mode.fromConfig(config.getString("settings.border.mode")),
+                borderVisualizer, safeLocations, metrics);
+        getServer().getPluginManager().registerEvents(borderEnforcer, this);
 
-    public static SKIBlock getInstance() {
-        return instance;
-    }
+        // Send every player the border of the island they are on
+        clientBorders = new ClientBorderManager(this, islandData);
+        getServer().getPluginManager().registerEvents(clientBorders, this);
+        for (Player player : getServer().getOnlinePlayers()) {
+            clientBorders.apply(player);
+        }
 
-    private static class Border {
-        private final Location center;
-        private final int size;
+        // Attribute entities, tile entities and redstone to islands and enforce the per-island caps
+        profiler = new IslandProfiler(this, islandData.getGrid(), metrics);
+        getServer().getPluginManager().registerEvents(profiler, this);
+        profiler.start();
 
-        public Border(Location center, int size) {
-            this.center = center;
-            this.size = size;
-        }
-    }
+        // Island values, scanned once from chunk snapshots and kept up to date from block events
+        islandLevels = new IslandLevels(this, islandData);
+        getServer().getPluginManager().registerEvents(islandLevels, this);
+        islandLevels.start();
 
-    private void checkPlayersNearBorders() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            UUID playerId = player.getUniqueId();
-            Border border = playerBorders.get(playerId);
-            
-            // Get the player's island location
-            Location islandLoc = islandData.getIslandLocation(playerId);
-            if (islandLoc != null && player.getWorld().getName().equals("skiblock")) {
-                // Create border if it doesn't exist
-                if (border == null) {
-                    border = new Border(islandLoc, BORDER_RADIUS);
-                    playerBorders.put(playerId, border);
-                }
+        // Island snapshots for rollbacks, storing only the chunk sections that changed
+        islandSnapshots = new IslandSnapshots(this, islandData);
+        islandSnapshots.start();
 
-                // Check if player is outside the square border
-                double playerX = player.getLocation().getX();
-                double playerZ = player.getLocation().getZ();
-                double minX = border.center.getX() - border.size;
-                double maxX = border.center.getX() + border.size;
-                double minZ = border.center.getZ() - border.size;
-                double maxZ = border.center.getZ() + border.size;
-
-                boolean isOutside = playerX < minX || playerX > maxX || playerZ < minZ || playerZ > maxZ;
-                if (isOutside) {
-                    // Get the direction the player was trying to move in
-                    double angle = Math.atan2(player.getLocation().getZ() - border.center.getZ(), 
-                                            player.getLocation().getX() - border.center.getX());
-                    
-                    // Calculate a safe location just inside the border
-                    double newX = Math.max(minX, Math.min(maxX, playerX));
-                    double newZ = Math.max(minZ, Math.min(maxZ, playerZ));
-                    
-                    Location safeLocation = new Location(player.getWorld(), newX, player.getLocation().getY(), newZ);
-                    
-                    // Find a safe location at the calculated position
-                    safeLocation = findSafeLocation(player, safeLocation, 1);
-                    if (safeLocation != null) {
-                        // Preserve player's rotation during teleport
-                        Location currentLoc = player.getLocation();
-                        player.teleport(safeLocation);
-                        player.teleport(new Location(safeLocation.getWorld(), 
-                                safeLocation.getX(), 
-                                safeLocation.getY(), 
-                                safeLocation.getZ(),
-                                currentLoc.getYaw(),
-                                currentLoc.getPitch()));
-                        player.sendMessage("You cannot leave your island!");
-                    }
-                }
+        // Unload idle islands and preload them when their owner comes back
+        hibernator = new IslandHibernator(this, islandData);
+        getServer().getPluginManager().registerEvents(hibernator, this);
+        hibernator.start();
 
-                // Show particles when near border
-                double distance = player.getLocation().distance(border.center);
-                if (distance > border.size) { // Only show when actually hitting the border
-                    // Create a sphere of red particles around the player
-                    World world = player.getWorld();
-                    
-                    // Create a sphere with radius 1.5 blocks completely around the player
-                    double playerHeight = 1.8; // Typical player height
-                    for (double theta = 0; theta < Math.PI; theta += 0.2) {
-                        for (double phi = 0; phi < 2 * Math.PI; phi += 0.2) {
-                            // Spherical coordinate conversion
-                            double x = 1.5 * Math.sin(theta) * Math.cos(phi);
-                            double y = 1.5 * Math.sin(theta) * Math.sin(phi);
-                            double z = 1.5 * Math.cos(theta);
-                            
-                            // Center the sphere around the player's body
-                            Location loc = new Location(world, 
-                                player.getLocation().getX() + x, 
-                                player.getLocation().getY() + playerHeight/2 + y, // Center around player's middle
-                                player.getLocation().getZ() + z);
-                            
-                            // Spawn particles
-                            world.spawnParticle(Particle.DUST_COLOR_TRANSITION, loc, 1, 0, 0, 0, 0.1,
-                                new Particle.DustTransition(Color.RED, Color.RED, 1.0f));
-                        }
-                    }
+        if (borderEnforcer.getMode() == BorderEnforcer.Mode.POLLING) {
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    borderEnforcer.checkAll();
                 }
-            }
+            }.runTaskTimer(this, 0L, config.getLong("settings.border.poll-interval-ticks", 10L));
         }
     }
 
-    private Location findSafeLocation(Player player, Location center, int size) {
-        World world = center.getWorld();
-        if (world == null) return null;
-
-        int halfSize = size / 2;
-        int minX = center.getBlockX() - halfSize;
-        int maxX = center.getBlockX() + halfSize;
-        int minZ = center.getBlockZ() - halfSize;
-        int maxZ = center.getBlockZ() + halfSize;
-
-        for (int x = minX; x <= maxX; x++) {
-            for (int z = minZ; z <= maxZ; z++) {
-                for (int y = world.getMinHeight(); y <= world.getMaxHeight(); y++) {
-                    Location loc = new Location(world, x + 0.5, y, z + 0.5);
-                    if (isSafeLocation(loc)) {
-                        return loc;
-                    }
-                }
+    @Override
+    public void onDisable() {
+        if (hibernator != null) {
+            hibernator.shutdown();
+        }
+        if (profiler != null) {
+            profiler.shutdown();
+        }
+        if (islandLevels != null) {
+            islandLevels.shutdown();
+        }
+        if (islandSnapshots != null) {
+            islandSnapshots.shutdown();
+        }
+        if (pregenerator != null) {
+            pregenerator.shutdown();
+        }
+        if (tickMonitor != null) {
+            tickMonitor.stop();
+        }
+        if (islandWiper != null) {
+            islandWiper.shutdown();
+        }
+        if (islandPaster != null) {
+            islandPaster.shutdown();
+        }
+        if (schematics != null) {
+            schematics.shutdown();
+        }
+
+        // Write out everything still queued for saving, then let other servers take over our islands
+        if (islandData != null) {
+            islandData.saveIslands();
+        }
+        if (islandLeases != null) {
+            islandLeases.shutdown();
+        }
+        if (islandData != null) {
+            islandData.shutdown();
+        }
+        if (slotAllocator != null) {
+            slotAllocator.save();
+        }
+        if (metrics != null) {
+            metrics.stopHttp();
+        }
+    }
+
+    public static SKIBlock getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return the folder island templates are loaded from and captured or imported into
+     */
+    public File getSchematicFolder() {
+        return new File(getDataFolder(), "schematics");
+    }
+
+    /**
+     * Reads this server's generated node id, creating it on first use. Servers on different machines often
+     * share a port, so the id is random rather than derived from anything about the server.
+     * @return the node id
+     */
+    private String loadNodeId() {
+        File file = new File(getDataFolder(), "node-id.txt");
+        try {
+            if (file.isFile()) {
+                String node = Files.readString(file.toPath(), StandardCharsets.UTF_8).trim();
+                if (!node.isEmpty()) return node;
             }
+            String node = "node-" + UUID.randomUUID().toString().substring(0, 8);
+            getDataFolder().mkdirs();
+            Files.writeString(file.toPath(), node + "\n", StandardCharsets.UTF_8);
+            return node;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read or create " + file.getName(), e);
         }
-        return null; 
     }
 
-    private boolean isSafeLocation(Location loc) {
-        World world = loc.getWorld();
-        if (world == null) return false;
+    /**
+     * Teleports a player onto their island's marker block
+     * @param player The player to teleport
+     * @param markerLocation The island location
+     */
+    private void teleportToIsland(Player player, Location markerLocation) {
+        // Add the offset to be in the middle of the block
+        Location teleportLocation = markerLocation.clone();
+        teleportLocation.setX(teleportLocation.getX() + config.getDouble("settings.teleport-offset-x"));
+        teleportLocation.setZ(teleportLocation.getZ() + config.getDouble("settings.teleport-offset-z"));
 
-        Location below = loc.clone().add(0, -1, 0);
-        Location above = loc.clone().add(0, 1, 0);
+        // Ensure Y position is above the marker block
+        teleportLocation.setY(markerLocation.getY() + 1);
+        player.teleport(teleportLocation);
+    }
 
-        return below.getBlock().getType().isSolid()
-                && loc.getBlock().getType() == Material.AIR
-                && above.getBlock().getType() == Material.AIR;
+    /**
+     * Looks a player up by name. A name the server has not seen can mean a blocking profile lookup,
+     * so only online players are resolved on the main thread.
+     * @param name The player name
+     * @return a future completed on the main thread with the player
+     */
+    private CompletableFuture<OfflinePlayer> findPlayer(String name) {
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) {
+            return CompletableFuture.completedFuture(online);
+        }
+
+        CompletableFuture<OfflinePlayer> future = new CompletableFuture<>();
+        getServer().getScheduler().runTaskAsynchronously(this, () -> {
+            @SuppressWarnings("deprecation")
+            OfflinePlayer player = Bukkit.getOfflinePlayer(name);
+            getServer().getScheduler().runTask(this, () -> future.complete(player));
+        });
+        return future;
     }
 
     private class CreateSBWorldCommand implements CommandExecutor {
@@ -212,11 +356,7 @@ public class SKIBlock extends JavaPlugin {
     }
 
     private class StartSkyBlockCommand implements CommandExecutor {
-        private final SchematicLoader schematicLoader;
-
-        public StartSkyBlockCommand() {
-            this.schematicLoader = new SchematicLoader(SKIBlock.this);
-        }
+        private final Set<UUID> building = new HashSet<>();
 
         @Override
         public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
@@ -228,33 +368,28 @@ public class SKIBlock extends JavaPlugin {
             Player player = (Player) sender;
             UUID playerId = player.getUniqueId();
 
+            // The island exists but is still being pasted
+            if (building.contains(playerId)) {
+                player.sendMessage(config.getString("settings.messages.island-building"));
+                return true;
+            }
+
+            // Another server has the player's island open, or has not let go of it yet
+            if (islandLeases != null && !islandLeases.isHeld(playerId)) {
+                player.sendMessage(config.getString("settings.messages.island-elsewhere"));
+                islandLeases.acquireFor(player);
+                return true;
+            }
+
             // Check if player already has an island
-            Location islandLocation = islandData.getIslandLocation(playerId);
+            Island ownIsland = islandData.getPlayerIsland(playerId);
+            Location islandLocation = ownIsland != null ? ownIsland.toLocation() : null;
             if (islandLocation != null) {
-                // Add the offset to be in the middle of the block
-                Location adjustedLocation = islandLocation.clone();
-                adjustedLocation.setX(adjustedLocation.getX() + config.getDouble("settings.teleport-offset-x"));
-                adjustedLocation.setZ(adjustedLocation.getZ() + config.getDouble("settings.teleport-offset-z"));
-                
-                // Ensure Y position is above the marker block
-                adjustedLocation.setY(islandLocation.getY() + 1);
-                
-                player.teleport(adjustedLocation);
+                teleportToIsland(player, islandLocation);
                 player.sendMessage(config.getString("settings.messages.teleported"));
                 return true;
             }
 
-            // Calculate new island position
-            int x = config.getInt("settings.starting-x");
-            int z = config.getInt("settings.starting-z");
-            int count = islandData.getIslandLocations().size();
-
-            // Calculate position based on number of islands
-            int row = count / 4;
-            int col = count % 4;
-            x += (col - 1) * config.getInt("settings.island-distance");
-            z += (row - 1) * config.getInt("settings.island-distance");
-
             // Create island location in skyblock world
             World world = getServer().getWorld("skiblock");
             if (world == null) {
@@ -262,29 +397,559 @@ public class SKIBlock extends JavaPlugin {
                 return true;
             }
 
+            long start = System.nanoTime();
+
+            // Pick the template, the default one is open to everyone
+            String template = args.length > 0 ? args[0].toLowerCase() : schematics.getDefaultName();
+            if (schematics.getTemplate(template) == null) {
+                List<String> names = new ArrayList<>();
+                for (SchematicRegistry.Template available : schematics.getTemplates()) {
+                    if (schematics.canUse(player, available.getName())) {
+                        names.add(available.getName());
+                    }
+                }
+                Collections.sort(names);
+                player.sendMessage("§cUnknown island template: " + template + ". §7Available: " + String.join(", ", names));
+                return true;
+            }
+            if (!schematics.canUse(player, template)) {
+                player.sendMessage(config.getString("settings.messages.no-permission"));
+                return true;
+            }
+
             // Set Y position from config
             int defaultY = config.getInt("settings.default-y");
-            
-            // Place marker block at default Y
-            Location markerLocation = new Location(world, x, defaultY, z);
-            
+
+            // Prepared slots are pasted with the default template, take one if it is ready
+            if (template.equals(schematics.getDefaultName())) {
+                int slot = pregenerator.take();
+                if (slot >= 0 && pregenerator.isPrePasting()) {
+                    // The schematic is already pasted, the island can be used straight away
+                    Location markerLocation = new Location(world, slotAllocator.getBlockX(slot), defaultY, slotAllocator.getBlockZ(slot));
+                    islandData.setIslandLocation(playerId, markerLocation);
+                    islandLevels.scan(islandData.getIsland(playerId));
+                    teleportToIsland(player, markerLocation);
+                    player.sendMessage(config.getString("settings.messages.island-created"));
+                    metrics.increment(Metrics.Counter.ISLANDS_CREATED);
+                    metrics.recordSince(Metrics.Operation.ISLAND_CREATE, start);
+                    return true;
+                }
+                if (slot >= 0) {
+                    // Only the chunks are ready, paste the schematic over them
+                    Location markerLocation = new Location(world, slotAllocator.getBlockX(slot), defaultY, slotAllocator.getBlockZ(slot));
+                    building.add(playerId);
+                    schematics.load(template).thenAccept(schematic -> {
+                        if (schematic == null) {
+                            // Nothing was pasted, so the slot goes back to the allocator along with its reservation
+                            slotAllocator.release(markerLocation.getX(), markerLocation.getZ());
+                        }
+                        build(player, schematic, markerLocation, start);
+                    });
+                    return true;
+                }
+            }
+
+            // Read the template if it is not cached, then claim the next free slot
+            building.add(playerId);
+            schematics.load(template).thenAccept(schematic -> {
+                if (schematic == null) {
+                    building.remove(playerId);
+                    player.sendMessage(config.getString("settings.messages.schematic-failed"));
+                    return;
+                }
+
+                slotAllocator.allocate().thenAccept(slot -> {
+                    if (slot < 0) {
+                        building.remove(playerId);
+                        player.sendMessage(config.getString("settings.messages.slot-failed"));
+                        return;
+                    }
+                    Location markerLocation = new Location(world, slotAllocator.getBlockX(slot), defaultY, slotAllocator.getBlockZ(slot));
+                    build(player, schematic, markerLocation, start);
+                });
+            });
+
+            return true;
+        }
+
+        /**
+         * Saves the island and pastes its schematic over the next ticks, teleporting the player once it is complete
+         * @param start When the player ran /stp, as a {@link System#nanoTime()} reading
+         */
+        private void build(Player player, CompiledSchematic schematic, Location markerLocation, long start) {
+            UUID playerId = player.getUniqueId();
+            if (schematic == null) {
+                building.remove(playerId);
+                player.sendMessage(config.getString("settings.messages.schematic-failed"));
+                return;
+            }
+
             // Save island location
             islandData.setIslandLocation(playerId, markerLocation);
-            
-            // Load schematic at the marker location
-            if (schematicLoader.loadSchematic(markerLocation)) {
-                // Teleport player with offset and proper Y position
-                Location teleportLocation = markerLocation.clone();
-                teleportLocation.setX(teleportLocation.getX() + config.getDouble("settings.teleport-offset-x"));
-                teleportLocation.setZ(teleportLocation.getZ() + config.getDouble("settings.teleport-offset-z"));
-                teleportLocation.setY(defaultY + 1); // Teleport slightly above the marker block
-                player.teleport(teleportLocation);
-                player.sendMessage(config.getString("settings.messages.island-created"));
+
+            player.sendMessage(config.getString("settings.messages.island-building"));
+            islandPaster.paste(schematic, markerLocation).thenAccept(success -> {
+                building.remove(playerId);
+                // A border check during the paste may have cached spots on the half-built island
+                safeLocations.invalidate(playerId);
+                Island island = islandData.getIsland(playerId);
+                if (success && island != null) {
+                    islandLevels.scan(island);
+                }
+                if (!player.isOnline()) return;
+
+                if (success) {
+                    teleportToIsland(player, markerLocation);
+                    player.sendMessage(config.getString("settings.messages.island-created"));
+                    metrics.increment(Metrics.Counter.ISLANDS_CREATED);
+                    metrics.recordSince(Metrics.Operation.ISLAND_CREATE, start);
+                } else {
+                    player.sendMessage(config.getString("settings.messages.schematic-failed"));
+                }
+            });
+        }
+    }
+
+    private class BorderCommand implements CommandExecutor {
+        @Override
+        public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+            if (!sender.hasPermission("skiblock.admin")) {
+                sender.sendMessage(config.getString("settings.messages.no-permission"));
+                return true;
+            }
+
+            if (args.length == 0) {
+                sender.sendMessage("§eUsage: /" + label + " <size> [player]");
+                return true;
+            }
+
+            int size;
+            try {
+                size = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cBorder size must be a whole number.");
+                return true;
+            }
+
+            // Borders may not reach into the neighbouring islands' cells
+            int maxSize = config.getInt("settings.island-distance");
+            if (size < 2 || size > maxSize) {
+                sender.sendMessage("§cBorder size must be between 2 and " + maxSize + ".");
+                return true;
+            }
+
+            // Resize the named player's island, or the island the sender is standing on, or the sender's own
+            if (args.length > 1) {
+                findPlayer(args[1]).thenAccept(target -> resize(sender, islandData.getIsland(target.getUniqueId()), size));
+                return true;
+            }
+            Island island;
+            if (sender instanceof Player player) {
+                Location location = player.getLocation();
+                island = islandData.getIslandAt(location.getX(), location.getZ());
+                if (island == null) {
+                    island = islandData.getPlayerIsland(player.getUniqueId());
+                }
             } else {
-                player.sendMessage(config.getString("settings.messages.schematic-failed"));
+                sender.sendMessage("§eUsage: /" + label + " <size> <player>");
+                return true;
+            }
+            resize(sender, island, size);
+            return true;
+        }
+
+        private void resize(CommandSender sender, Island island, int size) {
+            if (island == null) {
+                sender.sendMessage("§cNo island found.");
+                return;
+            }
+
+            islandData.setBorderRadius(island.getOwner(), size / 2);
+            safeLocations.invalidate(island.getOwner());
+            clientBorders.refresh(island.getOwner());
+            sender.sendMessage("§aIsland border set to " + size + " blocks.");
+        }
+    }
+
+    private class LevelCommand implements CommandExecutor {
+        @Override
+        public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+            if (args.length > 0 && args[0].equalsIgnoreCase("top")) {
+                List<IslandLevels.Entry> top = islandLevels.getLeaderboard();
+                if (top.isEmpty()) {
+                    sender.sendMessage("§eNo island has been valued yet.");
+                    return true;
+                }
+                sender.sendMessage("§aTop islands:");
+                int rank = 1;
+                for (IslandLevels.Entry entry : top) {
+                    String name = Bukkit.getOfflinePlayer(entry.getOwner()).getName();
+                    sender.sendMessage(String.format("§7#%d §f%s §7- level %d (%d)", rank++,
+                            name != null ? name : entry.getOwner().toString(), entry.getLevel(), entry.getValue()));
+                }
+                return true;
+            }
+
+            if (args.length > 0) {
+                findPlayer(args[0]).thenAccept(target -> show(sender, target.getUniqueId(), "The island of " + args[0]));
+            } else if (sender instanceof Player player) {
+                show(sender, player.getUniqueId(), "Your island");
+            } else {
+                sender.sendMessage("§eUsage: /" + label + " <player|top>");
             }
-            
             return true;
         }
+
+        private void show(CommandSender sender, UUID owner, String whose) {
+            Island island = sender instanceof Player player && player.getUniqueId().equals(owner)
+                    ? islandData.getPlayerIsland(owner) : islandData.getIsland(owner);
+            if (island == null) {
+                sender.sendMessage("§c" + whose + " does not exist.");
+                return;
+            }
+
+            long value = islandLevels.getValue(owner);
+            if (value < 0) {
+                // Never scanned, e.g. created before levels existed
+                islandLevels.scan(island);
+                sender.sendMessage("§e" + whose + " is being valued, try again in a moment.");
+                return;
+            }
+            sender.sendMessage(String.format("§a%s is level §f%d §7(value %d)", whose, islandLevels.getLevel(value), value));
+        }
+    }
+
+    private class AdminCommand implements CommandExecutor {
+        @Override
+        public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+            if (!sender.hasPermission("skiblock.admin")) {
+                sender.sendMessage(config.getString("settings.messages.no-permission"));
+                return true;
+            }
+
+            if (args.length == 0) {
+                sender.sendMessage("§eUsage: /" + label + " <stats [reset]|top|saves|border [reset]|pregen|hibernation|levels [rescan <player>]|snapshots [player]|snapshot <player>|rollback <player> <number>|schematics [rescan]|reset <player>|delete <player>|capture|import>");
+                return true;
+            }
+
+            switch (args[0].toLowerCase()) {
+                case "stats":
+                    if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+                        metrics.reset();
+                        sender.sendMessage("§aMetrics reset.");
+                        return true;
+                    }
+                    sender.sendMessage(String.format("§aSKIBlock timings §7(over the last %ds, in ms: count avg p50 p95 p99 max)",
+                            (System.currentTimeMillis() - metrics.getSince()) / 1000));
+                    for (Metrics.Operation operation : Metrics.Operation.values()) {
+                        LatencyHistogram histogram = metrics.get(operation);
+                        sender.sendMessage(String.format("§a%s: §f%d §7%.3f %.3f %.3f %.3f %.3f", operation.getLabel(),
+                                histogram.getCount(), histogram.getAverageNanos() / 1_000_000.0,
+                                histogram.getPercentileNanos(50) / 1_000_000.0, histogram.getPercentileNanos(95) / 1_000_000.0,
+                                histogram.getPercentileNanos(99) / 1_000_000.0, histogram.getMaxNanos() / 1_000_000.0));
+                    }
+                    for (Metrics.Counter counter : Metrics.Counter.values()) {
+                        sender.sendMessage("§a" + counter.getLabel() + ": §f" + metrics.get(counter));
+                    }
+                    long sessionLookups = Math.max(1, metrics.get(Metrics.Counter.SESSION_HITS) + metrics.get(Metrics.Counter.SESSION_MISSES));
+                    sender.sendMessage(String.format("§aSession hit rate: §f%.1f%% §7(%d sessions cached)",
+                            metrics.get(Metrics.Counter.SESSION_HITS) * 100.0 / sessionLookups, islandData.getSessions().getSessionCount()));
+                    return true;
+                case "top":
+                    IslandProfiler.Sort sort = args.length > 1 ? IslandProfiler.Sort.fromName(args[1]) : IslandProfiler.Sort.LOAD;
+                    int limit;
+                    try {
+                        limit = args.length > 2 ? Math.max(1, Integer.parseInt(args[2])) : 10;
+                    } catch (NumberFormatException e) {
+                        limit = -1;
+                    }
+                    if (sort == null || limit < 0) {
+                        sender.sendMessage("§eUsage: /" + label + " top [" + IslandProfiler.sortNames() + "] [count]");
+                        return true;
+                    }
+
+                    double progress = profiler.getSweepProgress();
+                    sender.sendMessage(String.format("§aHeaviest islands by %s §7(%d islands loaded, activity over %.0fs%s)",
+                            sort.name().toLowerCase(), profiler.getTrackedIslands(), profiler.getWindowSeconds(),
+                            progress >= 0 ? String.format(", next sweep %.0f%% done", progress * 100) : ""));
+                    int rank = 1;
+                    for (IslandProfiler.IslandLoad load : profiler.getHeaviest(sort, limit)) {
+                        String name = Bukkit.getOfflinePlayer(load.getOwner()).getName();
+                        sender.sendMessage(String.format("§f%d. %s §7score %.1f: %d entities (%d mobs), %d tiles (%d hoppers), %.1f redstone/s, %.1f transfers/s, %d chunks",
+                                rank++, name != null ? name : load.getOwner().toString(), profiler.score(load, sort),
+                                load.getEntities(), load.getMobs(), load.getTileEntities(), load.getHoppers(),
+                                load.getRedstoneChanges() / profiler.getWindowSeconds(),
+                                load.getHopperTransfers() / profiler.getWindowSeconds(), load.getChunks()));
+                    }
+                    return true;
+                case "saves":
+                    IslandPersistence persistence = islandData.getPersistence();
+                    sender.sendMessage(String.format("§aIsland saves (%s): §f%d §7(failed: %d, queued: %d)",
+                            islandData.getStorage().getName(), persistence.getSaveCount(), persistence.getFailedSaveCount(), persistence.getQueueDepth()));
+                    sender.sendMessage(String.format("§aSave latency: §flast %.2fms, avg %.2fms, max %.2fms",
+                            persistence.getLastSaveMillis(), persistence.getAverageSaveMillis(), persistence.getMaxSaveMillis()));
+                    if (islandLeases != null) {
+                        sender.sendMessage(String.format("§aNode: §f%s §7(leases held: %d, writes lost to other servers: %d, changes read: %d)",
+                                islandLeases.getNode(), islandLeases.getHeldCount(),
+                                metrics.get(Metrics.Counter.STORE_CONFLICTS), metrics.get(Metrics.Counter.REMOTE_UPDATES)));
+                    }
+                    return true;
+                case "border":
+                    if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+                        borderEnforcer.resetCounters();
+                        sender.sendMessage("§aBorder counters reset.");
+                        return true;
+                    }
+                    double seconds = Math.max(borderEnforcer.getCounterSeconds(), 0.001);
+                    sender.sendMessage(String.format("§aBorder mode: §f%s §7(over the last %.0fs)",
+                            borderEnforcer.getMode().name().toLowerCase(), seconds));
+                    sender.sendMessage(String.format("§aChecks: §f%d §7(%.1f/s, %d skipped)",
+                            borderEnforcer.getChecks(), borderEnforcer.getChecks() / seconds, borderEnforcer.getSkippedChecks()));
+                    sender.sendMessage(String.format("§aViolations: §f%d §7(%.2f/s)",
+                            borderEnforcer.getViolations(), borderEnforcer.getViolations() / seconds));
+                    sender.sendMessage(String.format("§aTime spent: §f%.2fms §7(%.3fms/s)",
+                            borderEnforcer.getCheckMillis(), borderEnforcer.getCheckMillis() / seconds));
+                    sender.sendMessage(String.format("§aSafe spot searches: §f%d §7(%d served from cache)",
+                            safeLocations.getSearches(), safeLocations.getCacheHits()));
+                    return true;
+                case "pregen":
+                    sender.sendMessage(String.format("§aPre-generator: §f%s §7(TPS %.1f)",
+                            pregenerator.getState(), tickMonitor.getTps()));
+                    sender.sendMessage(String.format("§aReady islands: §f%d/%d §7(%s)",
+                            pregenerator.getReadyCount(), pregenerator.getPoolSize(),
+                            pregenerator.isPrePasting() ? "pasted" : "chunks only"));
+                    sender.sendMessage(String.format("§aPrepared: §f%d §7(handed out: %d, chunks generated: %d, throttled ticks: %d)",
+                            pregenerator.getIslandsPrepared(), pregenerator.getHandedOut(),
+                            pregenerator.getChunksGenerated(), pregenerator.getThrottledTicks()));
+                    return true;
+                case "levels":
+                    if (args.length > 2 && args[1].equalsIgnoreCase("rescan")) {
+                        findPlayer(args[2]).thenAccept(rescanned -> {
+                            Island island = islandData.getIsland(rescanned.getUniqueId());
+                            if (island == null) {
+                                sender.sendMessage("§c" + args[2] + " has no island.");
+                            } else if (islandLevels.scan(island)) {
+                                sender.sendMessage("§aQueued a full scan of the island of " + args[2] + ".");
+                            } else {
+                                sender.sendMessage("§cThe island of " + args[2] + " is already being scanned.");
+                            }
+                        });
+                        return true;
+                    }
+                    sender.sendMessage(String.format("§aValued islands: §f%d §7(scans: %d, queued: %d, chunks scanned: %d)",
+                            islandLevels.getValuedIslands(), islandLevels.getScansCompleted(),
+                            islandLevels.getQueueLength(), islandLevels.getChunksScanned()));
+                    sender.sendMessage(String.format("§aIncremental updates: §f%d §7(leaderboard rebuilt %ds ago)",
+                            islandLevels.getIncrementalUpdates(),
+                            (System.currentTimeMillis() - islandLevels.getLeaderboardUpdated()) / 1000));
+                    return true;
+                case "hibernation":
+                    sender.sendMessage(String.format("§aHibernating islands: §f%d §7(hibernated: %d, woken: %d)",
+                            hibernator.getHibernatingCount(), hibernator.getIslandsHibernated(), hibernator.getIslandsWoken()));
+                    sender.sendMessage(String.format("§aLoaded chunks: §f%d §7(at the last check)",
+                            hibernator.getLastLoadedChunks()));
+                    sender.sendMessage(String.format("§aChunks kept unloaded: §f%d §7(~%.1f MB, unloaded: %d, reloads refused: %d)",
+                            hibernator.getChunksKeptUnloaded(), hibernator.getEstimatedBytesSaved() / 1048576.0,
+                            hibernator.getChunksUnloaded(), hibernator.getReloadsRefused()));
+                    sender.sendMessage(String.format("§aPreloaded chunks: §f%d §7(backlog: %d)",
+                            hibernator.getChunksPreloaded(), hibernator.getPreloadBacklog()));
+                    return true;
+                case "snapshots":
+                    if (args.length > 1) {
+                        findPlayer(args[1]).thenAccept(listed -> {
+                            List<SnapshotStore.Snapshot> snapshots = islandSnapshots.list(listed.getUniqueId());
+                            if (snapshots.isEmpty()) {
+                                sender.sendMessage("§cThe island of " + args[1] + " has no snapshots.");
+                                return;
+                            }
+                            sender.sendMessage("§aSnapshots of the island of " + args[1] + " §7(newest first)");
+                            int number = 1;
+                            for (SnapshotStore.Snapshot snapshot : snapshots) {
+                                sender.sendMessage(String.format("§f%d. %dm ago §7(%d sections, %d new, %.1f KB new)",
+                                        number++, (System.currentTimeMillis() - snapshot.getCreated()) / 60_000,
+                                        snapshot.getSections(), snapshot.getNewSections(), snapshot.getNewBytes() / 1024.0));
+                            }
+                        });
+                        return true;
+                    }
+                    SnapshotStore store = islandSnapshots.getStore();
+                    sender.sendMessage(String.format("§aSnapshots: §f%d §7(islands: %d, taken: %d, unchanged: %d, queued: %d)",
+                            store.getSnapshotCount(), store.getIslandCount(), islandSnapshots.getSnapshotsTaken(),
+                            islandSnapshots.getSnapshotsUnchanged(), islandSnapshots.getQueueLength()));
+                    sender.sendMessage(String.format("§aStored sections: §f%d §7(%.1f MB on disk, %.1f MB freed by retention)",
+                            store.getSectionCount(), store.getDiskBytes() / 1048576.0, islandSnapshots.getBytesCollected() / 1048576.0));
+                    sender.sendMessage(String.format("§aRollbacks: §f%d §7(blocks restored: %d, chunks copied: %d)",
+                            islandSnapshots.getRestores(), islandSnapshots.getBlocksRestored(), islandSnapshots.getChunksCopied()));
+                    return true;
+                case "snapshot":
+                case "rollback":
+                    boolean rollback = args[0].equalsIgnoreCase("rollback");
+                    if (args.length < (rollback ? 3 : 2)) {
+                        sender.sendMessage("§eUsage: /" + label + (rollback ? " rollback <player> <number>" : " snapshot <player>"));
+                        return true;
+                    }
+
+                    findPlayer(args[1]).thenAccept(snapshotted -> {
+                        Island snapshotIsland = islandData.getIsland(snapshotted.getUniqueId());
+                        if (snapshotIsland == null) {
+                            sender.sendMessage("§c" + args[1] + " has no island.");
+                            return;
+                        }
+                        if (islandSnapshots.isBusy(snapshotIsland.getOwner())) {
+                            sender.sendMessage("§cThe island of " + args[1] + " is already being snapshotted or rolled back.");
+                            return;
+                        }
+
+                        if (!rollback) {
+                            sender.sendMessage("§eTaking a snapshot of the island of " + args[1] + "...");
+                            islandSnapshots.capture(snapshotIsland).thenAccept(success -> sender.sendMessage(success
+                                    ? "§aThe island of " + args[1] + " has been snapshotted."
+                                    : "§cCould not snapshot the island of " + args[1] + "."));
+                            return;
+                        }
+
+                        List<SnapshotStore.Snapshot> stored = islandSnapshots.list(snapshotIsland.getOwner());
+                        int chosen;
+                        try {
+                            chosen = Integer.parseInt(args[2]);
+                        } catch (NumberFormatException e) {
+                            chosen = -1;
+                        }
+                        if (chosen < 1 || chosen > stored.size()) {
+                            sender.sendMessage("§cNo such snapshot, see /" + label + " snapshots " + args[1] + ".");
+                            return;
+                        }
+                        sender.sendMessage("§eRolling back the island of " + args[1] + "...");
+                        islandSnapshots.restore(snapshotIsland, stored.get(chosen - 1).getCreated()).thenAccept(blocks ->
+                                sender.sendMessage(blocks >= 0
+                                        ? "§aThe island of " + args[1] + " has been rolled back §7(" + blocks + " blocks changed)"
+                                        : "§cCould not roll back the island of " + args[1] + "."));
+                    });
+                    return true;
+                case "schematics":
+                    if (args.length > 1 && args[1].equalsIgnoreCase("rescan")) {
+                        schematics.scan();
+                    }
+                    long lookups = Math.max(1, schematics.getHits() + schematics.getMisses());
+                    sender.sendMessage(String.format("§aIsland templates: §f%d §7(default: %s)",
+                            schematics.getTemplates().size(), schematics.getDefaultName()));
+                    sender.sendMessage(String.format("§aCached: §f%d §7(%.1f/%.1f MB, hits: %d, misses: %d, hit rate %.1f%%)",
+                            schematics.getCachedCount(), schematics.getCachedBytes() / 1048576.0, schematics.getCacheLimit() / 1048576.0,
+                            schematics.getHits(), schematics.getMisses(), schematics.getHits() * 100.0 / lookups));
+                    for (SchematicRegistry.Template available : schematics.getTemplates()) {
+                        sender.sendMessage("§7- §f" + available.getName() + " §7("
+                                + (available.getFile() != null ? available.getFile().getName() + ", " + available.getSize() + " bytes" : "built in") + ")");
+                    }
+                    return true;
+                case "reset":
+                case "delete":
+                    if (args.length < 2) {
+                        sender.sendMessage("§eUsage: /" + label + " " + args[0].toLowerCase() + " <player>");
+                        return true;
+                    }
+
+                    findPlayer(args[1]).thenAccept(target -> {
+                        UUID owner = target.getUniqueId();
+                        if (islandData.getIsland(owner) == null) {
+                            sender.sendMessage("§c" + args[1] + " has no island.");
+                            return;
+                        }
+
+                        boolean reset = args[0].equalsIgnoreCase("reset");
+                        sender.sendMessage("§e" + (reset ? "Resetting" : "Deleting") + " the island of " + args[1] + "...");
+                        (reset ? islandWiper.reset(owner) : islandWiper.delete(owner)).thenAccept(success -> {
+                            sender.sendMessage(success
+                                    ? "§aThe island of " + args[1] + " has been " + (reset ? "reset." : "deleted.")
+                                    : "§cCould not " + args[0].toLowerCase() + " the island of " + args[1] + ".");
+
+                            // Bring the owner back onto their fresh island
+                            Player player = target.getPlayer();
+                            Location islandLocation = islandData.getIslandLocation(owner);
+                            if (success && reset && player != null && islandLocation != null) {
+                                teleportToIsland(player, islandLocation);
+                            }
+                        });
+                    });
+                    return true;
+                case "capture":
+                    if (!(sender instanceof Player player)) {
+                        sender.sendMessage(config.getString("settings.messages.only-players"));
+                        return true;
+                    }
+                    if (args.length < 8) {
+                        sender.sendMessage("§eUsage: /" + label + " capture <name> <x1> <y1> <z1> <x2> <y2> <z2>");
+                        sender.sendMessage("§7Blocks are stored relative to where you stand.");
+                        return true;
+                    }
+
+                    Location corner1, corner2;
+                    try {
+                        corner1 = new Location(player.getWorld(), Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+                        corner2 = new Location(player.getWorld(), Integer.parseInt(args[5]), Integer.parseInt(args[6]), Integer.parseInt(args[7]));
+                    } catch (NumberFormatException e) {
+                        sender.sendMessage("§cCoordinates must be whole numbers.");
+                        return true;
+                    }
+
+                    String captureName = args[1].toLowerCase(Locale.ROOT);
+                    if (!TEMPLATE_NAME.matcher(captureName).matches()) {
+                        sender.sendMessage("§cTemplate names may only contain letters, digits, _ and -.");
+                        return true;
+                    }
+
+                    File captureFile = new File(getSchematicFolder(), captureName + BinarySchematic.EXTENSION);
+                    sender.sendMessage("§eCapturing schematic " + captureFile.getName() + "...");
+                    SchematicCapture.capture(SKIBlock.this, player.getLocation(), corner1, corner2, captureFile,
+                            config.getDouble("settings.schematics.capture-tick-budget-ms", 1.0), sender::sendMessage);
+                    return true;
+                case "import":
+                    if (args.length < 2) {
+                        sender.sendMessage("§eUsage: /" + label + " import <file.yaml|file.schem> [name]");
+                        return true;
+                    }
+
+                    if (!FILE_NAME.matcher(args[1]).matches()) {
+                        sender.sendMessage("§cGive the name of a file in the schematics or plugin folder.");
+                        return true;
+                    }
+
+                    // Look in the schematics folder first, then the plugin folder
+                    File source = new File(getSchematicFolder(), args[1]);
+                    if (!source.isFile()) {
+                        source = new File(getDataFolder(), args[1]);
+                    }
+                    if (!source.isFile()) {
+                        sender.sendMessage("§cSchematic file not found: " + args[1]);
+                        return true;
+                    }
+
+                    String baseName = (args.length > 2 ? args[2] : source.getName().replaceFirst("\\.[^.]+$", "")).toLowerCase(Locale.ROOT);
+                    if (!TEMPLATE_NAME.matcher(baseName).matches()) {
+                        sender.sendMessage("§cTemplate names may only contain letters, digits, _ and -, give one: /" + label + " import " + args[1] + " <name>");
+                        return true;
+                    }
+                    File importTarget = new File(getSchematicFolder(), baseName + BinarySchematic.EXTENSION);
+                    File importSource = source;
+                    sender.sendMessage("§eImporting " + source.getName() + "...");
+                    getServer().getScheduler().runTaskAsynchronously(SKIBlock.this, () -> {
+                        String result;
+                        try {
+                            CompiledSchematic schematic = SchematicLoader.readFile(importSource);
+                            importTarget.getParentFile().mkdirs();
+                            BinarySchematic.write(schematic, importTarget, true);
+                            result = "§aImported " + schematic.size() + " blocks to " + importTarget.getName()
+                                    + " §7(" + importSource.length() + " -> " + importTarget.length() + " bytes)";
+                        } catch (IOException | RuntimeException e) {
+                            result = "§cCould not import " + importSource.getName() + ": " + e.getMessage();
+                        }
+                        String message = result;
+                        getServer().getScheduler().runTask(SKIBlock.this, () -> sender.sendMessage(message));
+                    });
+                    return true;
+                default:
+                    sender.sendMessage("§cUnknown subcommand: " + args[0]);
+                    return true;
+            }
+        }
     }
 }
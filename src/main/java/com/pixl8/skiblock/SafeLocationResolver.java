@@ -0,0 +1,229 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Finds a spot inside an island's border where a player can stand.
+ * Columns are checked against the heightmap first so empty void columns cost one lookup,
+ * and the remaining search reads the column outward from the player's Y, never above the highest block.
+ * Columns in unloaded chunks are skipped rather than loading them. Found spots are cached per island
+ * column and dropped whenever a block in that island changes, by players, physics or a paste.
+ */
+public class SafeLocationResolver implements Listener {
+    private static final int MAX_COLUMN_STEPS = 64;
+    private static final int MAX_CACHED_COLUMNS = 64;
+
+    private final IslandGrid grid;
+    private final Metrics metrics;
+    private final Map<UUID, Map<Long, Integer>> cache = new HashMap<>();
+    private long searches;
+    private long cacheHits;
+
+    public SafeLocationResolver(IslandGrid grid, Metrics metrics) {
+        this.grid = grid;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Finds a safe location inside the island border, as close as possible to a target position.
+     * If the target column has nowhere to stand, columns on the way to the island center are tried.
+     * @param island The island whose border the location must be inside
+     * @param world The island's world
+     * @param targetX Preferred X position
+     * @param targetY Preferred Y position, the search starts here
+     * @param targetZ Preferred Z position
+     * @return the center of a safe block, or null if none was found
+     */
+    public Location findSafeLocation(Island island, World world, double targetX, double targetY, double targetZ) {
+        long start = System.nanoTime();
+        try {
+            return search(island, world, targetX, targetY, targetZ);
+        } finally {
+            metrics.recordSince(Metrics.Operation.SAFE_SPOT_SEARCH, start);
+        }
+    }
+
+    private Location search(Island island, World world, double targetX, double targetY, double targetZ) {
+        searches++;
+        int startX = blockInside(targetX, island.getMinX(), island.getMaxX());
+        int startZ = blockInside(targetZ, island.getMinZ(), island.getMaxZ());
+        int centerX = (int) Math.floor(island.getX());
+        int centerZ = (int) Math.floor(island.getZ());
+        int steps = Math.min(MAX_COLUMN_STEPS, Math.max(Math.abs(centerX - startX), Math.abs(centerZ - startZ)));
+
+        Map<Long, Integer> columns = cache.computeIfAbsent(island.getOwner(), owner -> new LinkedHashMap<>());
+        for (int step = 0; step <= steps; step++) {
+            double progress = steps == 0 ? 0 : (double) step / steps;
+            int x = startX + (int) Math.round((centerX - startX) * progress);
+            int z = startZ + (int) Math.round((centerZ - startZ) * progress);
+
+            long column = IslandGrid.cellKey(x, z);
+            Integer cachedY = columns.get(column);
+            if (cachedY != null) {
+                cacheHits++;
+                metrics.increment(Metrics.Counter.SAFE_SPOT_CACHE_HITS);
+                return new Location(world, x + 0.5, cachedY, z + 0.5);
+            }
+
+            // Never load a chunk for a search, and skip columns with nothing at all, which is most of a void world
+            if (!world.isChunkLoaded(x >> 4, z >> 4)) continue;
+            int highest = world.getHighestBlockYAt(x, z);
+            if (highest < world.getMinHeight()) continue;
+
+            int y = searchColumn(world, x, z, (int) Math.floor(targetY),
+                    world.getMinHeight() + 1, Math.min(highest + 1, world.getMaxHeight() - 2));
+            if (y != Integer.MIN_VALUE) {
+                if (columns.size() >= MAX_CACHED_COLUMNS) {
+                    columns.remove(columns.keySet().iterator().next());
+                }
+                columns.put(column, y);
+                return new Location(world, x + 0.5, y, z + 0.5);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Searches a column outward from a starting Y
+     * @return the feet Y of the closest safe spot, or Integer.MIN_VALUE if there is none
+     */
+    private int searchColumn(World world, int x, int z, int startY, int lowY, int highY) {
+        int y = Math.max(lowY, Math.min(highY, startY));
+        for (int distance = 0; y - distance >= lowY || y + distance <= highY; distance++) {
+            int down = y - distance;
+            if (down >= lowY && isSafe(world, x, down, z)) return down;
+
+            int up = y + distance;
+            if (distance > 0 && up <= highY && isSafe(world, x, up, z)) return up;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    private boolean isSafe(World world, int x, int y, int z) {
+        Material below = world.getType(x, y - 1, z);
+        return below.isSolid()
+                && world.getType(x, y, z).isAir()
+                && world.getType(x, y + 1, z).isAir();
+    }
+
+    /**
+     * Picks the block whose center lies inside [min, max], closest to a target coordinate
+     */
+    private static int blockInside(double target, double min, double max) {
+        int block = (int) Math.floor(Math.max(min, Math.min(max, target)));
+        if (block + 0.5 > max) block--;
+        if (block + 0.5 < min) block++;
+        return block;
+    }
+
+    private void invalidate(Block block) {
+        Island island = grid.getIslandAt(block.getX(), block.getZ());
+        if (island != null) {
+            cache.remove(island.getOwner());
+        }
+    }
+
+    private void invalidate(List<Block> blocks) {
+        for (Block block : blocks) {
+            invalidate(block);
+        }
+    }
+
+    /**
+     * Drops every cached spot of an island
+     * @param owner The island owner
+     */
+    public void invalidate(UUID owner) {
+        cache.remove(owner);
+    }
+
+    public long getSearches() {
+        return searches;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        invalidate(event.getBlock());
+        invalidate(event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        invalidate(event.getBlock());
+        invalidate(event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        // Water and lava flowing into a column
+        invalidate(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        // Falling blocks leaving and landing, endermen, crop trampling
+        invalidate(event.getBlock());
+    }
+}
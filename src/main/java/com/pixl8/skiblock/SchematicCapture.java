@@ -0,0 +1,158 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Chest;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Captures a region of a world into a binary schematic.
+ * Only the chunk snapshots and chest contents are taken on the main thread, a few chunks per tick within a
+ * time budget, and chunks that were never generated are skipped rather than generated. Reading the blocks,
+ * building the palette and writing the file happen asynchronously.
+ */
+public final class SchematicCapture {
+    private static final int MAX_OFFSET = 511;
+
+    private SchematicCapture() {
+    }
+
+    /**
+     * Captures every non-air block between two corners, relative to an origin. Must be called from the main thread.
+     * @param plugin The plugin that runs the async work
+     * @param origin The block that becomes 0,0,0 in the schematic
+     * @param corner1 One corner of the region
+     * @param corner2 The opposite corner of the region
+     * @param target The .skis file to write
+     * @param budgetMillis Milliseconds per tick spent taking chunk snapshots
+     * @param report Receives a result message on the main thread
+     */
+    public static void capture(JavaPlugin plugin, Location origin, Location corner1, Location corner2, File target,
+                               double budgetMillis, Consumer<String> report) {
+        World world = origin.getWorld();
+        int minX = Math.min(corner1.getBlockX(), corner2.getBlockX());
+        int minY = Math.max(world.getMinHeight(), Math.min(corner1.getBlockY(), corner2.getBlockY()));
+        int minZ = Math.min(corner1.getBlockZ(), corner2.getBlockZ());
+        int maxX = Math.max(corner1.getBlockX(), corner2.getBlockX());
+        int maxY = Math.min(world.getMaxHeight() - 1, Math.max(corner1.getBlockY(), corner2.getBlockY()));
+        int maxZ = Math.max(corner1.getBlockZ(), corner2.getBlockZ());
+        int originX = origin.getBlockX();
+        int originY = origin.getBlockY();
+        int originZ = origin.getBlockZ();
+
+        if (Math.abs(minX - originX) > MAX_OFFSET || Math.abs(maxX - originX) > MAX_OFFSET
+                || Math.abs(minY - originY) > MAX_OFFSET || Math.abs(maxY - originY) > MAX_OFFSET
+                || Math.abs(minZ - originZ) > MAX_OFFSET || Math.abs(maxZ - originZ) > MAX_OFFSET) {
+            report.accept("§cThe region must be within " + MAX_OFFSET + " blocks of you.");
+            return;
+        }
+
+        Deque<int[]> chunks = new ArrayDeque<>();
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                chunks.add(new int[]{chunkX, chunkZ});
+            }
+        }
+
+        Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+        List<int[]> chestPositions = new ArrayList<>();
+        List<ItemStack[]> chestItems = new ArrayList<>();
+
+        // Reading the blocks and writing the file happen off the main thread
+        Runnable write = () -> Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            String result;
+            try {
+                CompiledSchematic.Builder builder = new CompiledSchematic.Builder();
+                Map<String, Integer> palette = new HashMap<>();
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        for (int x = minX; x <= maxX; x++) {
+                            ChunkSnapshot snapshot = snapshots.get(IslandGrid.cellKey(x >> 4, z >> 4));
+                            if (snapshot == null) continue;
+                            BlockData data = snapshot.getBlockData(x & 15, y, z & 15);
+                            if (data.getMaterial().isAir()) continue;
+
+                            int index = palette.computeIfAbsent(data.getAsString(), builder::palette);
+                            builder.block(x - originX, y - originY, z - originZ, index);
+                        }
+                    }
+                }
+                for (int i = 0; i < chestPositions.size(); i++) {
+                    int[] position = chestPositions.get(i);
+                    builder.chest(position[0], position[1], position[2], chestItems.get(i));
+                }
+
+                CompiledSchematic schematic = builder.build();
+                target.getParentFile().mkdirs();
+                BinarySchematic.write(schematic, target, true);
+                result = "§aCaptured " + schematic.size() + " blocks (" + schematic.getPaletteSize()
+                        + " block states) to " + target.getName();
+            } catch (IOException | RuntimeException e) {
+                result = "§cCould not capture the schematic: " + e.getMessage();
+            }
+
+            String message = result;
+            Bukkit.getScheduler().runTask(plugin, () -> report.accept(message));
+        });
+
+        // Snapshot every chunk in the region, and copy chest contents which snapshots do not include
+        long budgetNanos = (long) (Math.max(0.1, budgetMillis) * 1_000_000L);
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                long deadline = System.nanoTime() + budgetNanos;
+                while (!chunks.isEmpty() && System.nanoTime() < deadline) {
+                    int[] next = chunks.poll();
+                    int chunkX = next[0];
+                    int chunkZ = next[1];
+                    // Chunks that were never generated hold nothing
+                    if (!world.isChunkGenerated(chunkX, chunkZ)) continue;
+
+                    boolean wasLoaded = world.isChunkLoaded(chunkX, chunkZ);
+                    Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+                    snapshots.put(IslandGrid.cellKey(chunkX, chunkZ), chunk.getChunkSnapshot(false, false, false));
+
+                    for (BlockState state : chunk.getTileEntities()) {
+                        if (!(state instanceof Chest chest)) continue;
+                        int x = state.getX(), y = state.getY(), z = state.getZ();
+                        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) continue;
+
+                        ItemStack[] items = Arrays.stream(chest.getBlockInventory().getContents())
+                                .filter(Objects::nonNull)
+                                .map(ItemStack::clone)
+                                .toArray(ItemStack[]::new);
+                        chestPositions.add(new int[]{x - originX, y - originY, z - originZ});
+                        chestItems.add(items);
+                    }
+                    if (!wasLoaded) {
+                        world.unloadChunkRequest(chunkX, chunkZ);
+                    }
+                }
+
+                if (chunks.isEmpty()) {
+                    cancel();
+                    write.run();
+                }
+            }
+        }.runTaskTimer(plugin, 0L, 1L);
+    }
+}
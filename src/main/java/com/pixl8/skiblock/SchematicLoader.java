@@ -1,167 +1,88 @@
 package com.pixl8.skiblock;
 
-import org.bukkit.Location;
-import org.bukkit.Material;
-import org.bukkit.block.Block;
-import org.bukkit.block.Chest;
-import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.yaml.snakeyaml.Yaml;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
-public class SchematicLoader {
-    private final JavaPlugin plugin;
-    private static final String SCHEMATIC_FILE = "island1.yaml";
+/**
+ * Reads schematic files in every supported format. Caching and template lookup live in {@link SchematicRegistry}.
+ */
+public final class SchematicLoader {
+    static final String DEFAULT_SCHEMATIC = "island1";
+    private static final String SCHEMATIC_FILE = DEFAULT_SCHEMATIC + ".yaml";
 
-    public SchematicLoader(JavaPlugin plugin) {
-        this.plugin = plugin;
+    private SchematicLoader() {
     }
 
     /**
-     * Loads and builds a schematic at the specified location
-     * @param location The location to build the schematic
-     * @return true if successful, false otherwise
+     * @return true if a file name has a schematic extension this loader can read
      */
-    public boolean loadSchematic(Location location) {
-        try {
-            // First check if there's a custom schematic file in the plugin directory
-            File customSchematic = new File(plugin.getDataFolder(), SCHEMATIC_FILE);
-            if (customSchematic.exists()) {
-                // Use the custom schematic file
-                Yaml yaml = new Yaml();
-                Map<String, Object> schematicData = yaml.load(new FileReader(customSchematic));
-                
-                if (schematicData == null) {
-                    plugin.getLogger().warning("Invalid YAML format in custom schematic file");
-                    return false;
-                }
-
-                // Get the blocks data
-                Map<String, String> blocks = (Map<String, String>) schematicData.get("blocks");
-                if (blocks == null) {
-                    plugin.getLogger().warning("No blocks found in custom schematic");
-                    return false;
-                }
-
-                // Place blocks according to schematic
-                for (Map.Entry<String, String> entry : blocks.entrySet()) {
-                    String[] coords = entry.getKey().split(",");
-                    if (coords.length != 3) {
-                        continue;
-                    }
-
-                    int x = Integer.parseInt(coords[0]);
-                    int y = Integer.parseInt(coords[1]);
-                    int z = Integer.parseInt(coords[2]);
-
-                    Location blockLoc = new Location(location.getWorld(),
-                            location.getBlockX() + x,
-                            location.getBlockY() + y,
-                            location.getBlockZ() + z);
-
-                    Material material = Material.getMaterial(entry.getValue().toUpperCase());
-                    if (material != null) {
-                        Block block = blockLoc.getBlock();
-                        block.setType(material);
-
-                        // If the block is a chest, try to load its contents
-                        if (block.getState() instanceof Chest) {
-                            Map<String, List<String>> chestContents = (Map<String, List<String>>) schematicData.get("chest_contents");
-                            if (chestContents != null) {
-                                String coordsKey = x + "," + y + "," + z;
-                                if (chestContents.containsKey(coordsKey)) {
-                                    loadChestContents(block, chestContents.get(coordsKey));
-                                }
-                            }
-                        }
-                    }
-                }
-
-                return true;
-            }
-            
-            // If no custom file exists, fall back to the default schematic in the JAR
-            InputStream schematicStream = plugin.getResource(SCHEMATIC_FILE);
-            if (schematicStream == null) {
-                plugin.getLogger().warning("Schematic file not found in resources: " + SCHEMATIC_FILE);
-                return false;
-            }
-
-            // Read the YAML data from the stream
-            Yaml yaml = new Yaml();
-            Map<String, Object> schematicData = yaml.load(new InputStreamReader(schematicStream));
-            
-            if (schematicData == null) {
-                plugin.getLogger().warning("Invalid YAML format in default schematic");
-                return false;
-            }
-
-            // Get the blocks data
-            Map<String, String> blocks = (Map<String, String>) schematicData.get("blocks");
-            if (blocks == null) {
-                plugin.getLogger().warning("No blocks found in default schematic");
-                return false;
-            }
-
-            // Place blocks according to schematic
-            for (Map.Entry<String, String> entry : blocks.entrySet()) {
-                String[] coords = entry.getKey().split(",");
-                if (coords.length != 3) {
-                    continue;
-                }
-
-                int x = Integer.parseInt(coords[0]);
-                int y = Integer.parseInt(coords[1]);
-                int z = Integer.parseInt(coords[2]);
-
-                Location blockLoc = new Location(location.getWorld(),
-                        location.getBlockX() + x,
-                        location.getBlockY() + y,
-                        location.getBlockZ() + z);
+    public static boolean isSchematicFile(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(BinarySchematic.EXTENSION) || name.endsWith(".schem") || name.endsWith(".yaml") || name.endsWith(".yml");
+    }
 
-                Material material = Material.getMaterial(entry.getValue().toUpperCase());
-                if (material != null) {
-                    Block block = blockLoc.getBlock();
-                    block.setType(material);
+    /**
+     * Reads a schematic file of any supported format, chosen by its extension:
+     * binary (.skis), Sponge/WorldEdit (.schem) or YAML (anything else)
+     * @param file The schematic file
+     * @return the compiled schematic
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static CompiledSchematic readFile(File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(BinarySchematic.EXTENSION)) {
+            return BinarySchematic.read(file);
+        }
+        if (name.endsWith(".schem")) {
+            return SpongeSchematicImporter.read(file);
+        }
+        try (Reader reader = new FileReader(file)) {
+            return compileYaml(reader);
+        }
+    }
 
-                    // If the block is a chest, try to load its contents
-                    if (block.getState() instanceof Chest) {
-                        Map<String, List<String>> chestContents = (Map<String, List<String>>) schematicData.get("chest_contents");
-                        if (chestContents != null) {
-                            String coordsKey = x + "," + y + "," + z;
-                            if (chestContents.containsKey(coordsKey)) {
-                                loadChestContents(block, chestContents.get(coordsKey));
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * Reads the default schematic bundled in the plugin JAR
+     * @param plugin The plugin whose JAR contains the schematic
+     * @return the compiled schematic
+     * @throws IOException if the resource is missing or cannot be parsed
+     */
+    public static CompiledSchematic readDefault(JavaPlugin plugin) throws IOException {
+        InputStream schematicStream = plugin.getResource(SCHEMATIC_FILE);
+        if (schematicStream == null) {
+            throw new IOException("Schematic file not found in resources: " + SCHEMATIC_FILE);
+        }
 
-            return true;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error loading schematic: " + e.getMessage());
-            return false;
+        try (Reader reader = new InputStreamReader(schematicStream)) {
+            return compileYaml(reader);
         }
     }
 
-    private void loadChestContents(Block block, List<String> contents) {
-        if (!(block.getState() instanceof Chest chest)) return;
-        
-        for (String content : contents) {
-            String[] parts = content.split(":");
-            if (parts.length != 2) continue;
+    @SuppressWarnings("unchecked")
+    private static CompiledSchematic compileYaml(Reader reader) throws IOException {
+        Yaml yaml = new Yaml();
+        Map<String, Object> schematicData = yaml.load(reader);
 
-            Material material = Material.getMaterial(parts[0]);
-            if (material == null) continue;
+        if (schematicData == null) {
+            throw new IOException("Invalid YAML format");
+        }
 
-            int amount = Integer.parseInt(parts[1]);
-            ItemStack item = new ItemStack(material, amount);
-            chest.getBlockInventory().addItem(item);
+        // Get the blocks data
+        Map<String, String> blocks = (Map<String, String>) schematicData.get("blocks");
+        if (blocks == null) {
+            throw new IOException("No blocks found");
         }
+
+        Map<String, List<String>> chestContents = (Map<String, List<String>>) schematicData.get("chest_contents");
+        return CompiledSchematic.compile(blocks, chestContents);
     }
 }
@@ -0,0 +1,350 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.permissions.Permissible;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Indexes the island templates in the schematics folder by name.
+ * Only file metadata is read up front; a template's blocks are read and compiled off the main thread
+ * the first time it is used and kept in an LRU cache bounded by estimated memory.
+ * A {@link WatchService} picks up added, changed and removed files, so nothing is checked on disk per use.
+ * The default template may also come from the plugin folder (the original island1.yaml location) or the JAR.
+ * Everything except the watcher thread runs on the main thread.
+ */
+public class SchematicRegistry {
+    // Extensions in order of preference when a template exists in several formats
+    private static final String[] EXTENSIONS = {BinarySchematic.EXTENSION, ".schem", ".yaml", ".yml"};
+    // The plugin folder also holds the plugin's own .yml state files, which are never templates
+    private static final String[] DATA_FOLDER_EXTENSIONS = {BinarySchematic.EXTENSION, ".schem", ".yaml"};
+
+    private final JavaPlugin plugin;
+    private final File folder;
+    private final String defaultName;
+    private final long cacheBytes;
+    private final Map<String, Template> templates = new HashMap<>();
+    private final LinkedHashMap<String, CompiledSchematic> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<CompiledSchematic>> loading = new HashMap<>();
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+    private WatchService watcher;
+
+    /**
+     * Metadata of an island template
+     */
+    public static final class Template {
+        private final String name;
+        private final File file;
+        private final long size;
+        private final long lastModified;
+
+        private Template(String name, File file) {
+            this.name = name;
+            this.file = file;
+            this.size = file != null ? file.length() : 0L;
+            this.lastModified = file != null ? file.lastModified() : 0L;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the schematic file, or null for the default bundled in the JAR
+         */
+        public File getFile() {
+            return file;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    public SchematicRegistry(JavaPlugin plugin, File folder, String defaultName, long cacheBytes) {
+        this.plugin = plugin;
+        this.folder = folder;
+        this.defaultName = defaultName.toLowerCase(Locale.ROOT);
+        this.cacheBytes = cacheBytes;
+    }
+
+    /**
+     * Indexes every template and starts watching for file changes
+     */
+    public void start() {
+        folder.mkdirs();
+        scan();
+
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            folder.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            plugin.getDataFolder().toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not watch the schematics folder, template changes need a restart: " + e.getMessage());
+            return;
+        }
+        Thread watchThread = new Thread(this::watch, "SKIBlock schematic watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Stops watching for file changes
+     */
+    public void shutdown() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not close the schematic watcher: " + e.getMessage());
+            }
+            watcher = null;
+        }
+    }
+
+    /**
+     * Rebuilds the template index from disk and empties the cache
+     */
+    public void scan() {
+        templates.clear();
+        cache.clear();
+        cachedBytes = 0;
+
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (SchematicLoader.isSchematicFile(file.getName())) {
+                    refresh(baseName(file.getName()));
+                }
+            }
+        }
+        refresh(defaultName);
+        plugin.getLogger().info("Indexed " + templates.size() + " island template(s)");
+    }
+
+    /**
+     * Returns a template's compiled schematic, reading it in the background if it is not cached
+     * @param name The template name
+     * @return a future completed on the main thread with the schematic, or null if the template does not exist or is invalid
+     */
+    public CompletableFuture<CompiledSchematic> load(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        CompiledSchematic cached = cache.get(key);
+        if (cached != null) {
+            hits++;
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Template template = templates.get(key);
+        if (template == null) return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<CompiledSchematic> pending = loading.get(key);
+        if (pending != null) return pending;
+
+        misses++;
+        CompletableFuture<CompiledSchematic> future = new CompletableFuture<>();
+        loading.put(key, future);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            CompiledSchematic schematic;
+            try {
+                schematic = template.file != null ? SchematicLoader.readFile(template.file) : SchematicLoader.readDefault(plugin);
+            } catch (IOException | RuntimeException e) {
+                plugin.getLogger().warning("Error compiling schematic " + template.name + ": " + e.getMessage());
+                schematic = null;
+            }
+
+            CompiledSchematic result = schematic;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                loading.remove(key);
+                // Only cache it if the file was not changed while it was being read
+                if (result != null && templates.get(key) == template) {
+                    put(key, result);
+                }
+                future.complete(result);
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Returns a template's schematic if it is cached, otherwise starts loading it
+     * @param name The template name
+     * @return the schematic, or null if it is not loaded yet
+     */
+    public CompiledSchematic getIfLoaded(String name) {
+        CompletableFuture<CompiledSchematic> future = load(name);
+        return future.isDone() ? future.join() : null;
+    }
+
+    /**
+     * Checks whether someone may use a template. The default template is open to everyone,
+     * others need skiblock.template.&lt;name&gt;
+     */
+    public boolean canUse(Permissible permissible, String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        return key.equals(defaultName) || permissible.hasPermission("skiblock.template." + key);
+    }
+
+    public String getDefaultName() {
+        return defaultName;
+    }
+
+    public Template getTemplate(String name) {
+        return templates.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public Collection<Template> getTemplates() {
+        return Collections.unmodifiableCollection(templates.values());
+    }
+
+    public int getCachedCount() {
+        return cache.size();
+    }
+
+    public long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public long getCacheLimit() {
+        return cacheBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    private void put(String key, CompiledSchematic schematic) {
+        CompiledSchematic previous = cache.put(key, schematic);
+        if (previous != null) {
+            cachedBytes -= previous.estimateBytes();
+        }
+        cachedBytes += schematic.estimateBytes();
+
+        // Evict least recently used templates, but always keep the one just loaded
+        Iterator<Map.Entry<String, CompiledSchematic>> it = cache.entrySet().iterator();
+        while (cachedBytes > cacheBytes && cache.size() > 1 && it.hasNext()) {
+            Map.Entry<String, CompiledSchematic> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            cachedBytes -= eldest.getValue().estimateBytes();
+            it.remove();
+        }
+    }
+
+    /**
+     * Re-reads the metadata of one template and drops its cached body
+     */
+    private void refresh(String name) {
+        CompiledSchematic previous = cache.remove(name);
+        if (previous != null) {
+            cachedBytes -= previous.estimateBytes();
+        }
+
+        File file = findFile(folder, name, EXTENSIONS);
+        if (file == null && name.equals(defaultName)) {
+            // The default may still be in the plugin folder, or fall back to the copy in the JAR
+            file = findFile(plugin.getDataFolder(), name, DATA_FOLDER_EXTENSIONS);
+            if (file == null) {
+                templates.put(name, new Template(name, null));
+                return;
+            }
+        }
+
+        if (file != null) {
+            templates.put(name, new Template(name, file));
+        } else {
+            templates.remove(name);
+        }
+    }
+
+    private static File findFile(File directory, String name, String[] extensions) {
+        for (String extension : extensions) {
+            File file = new File(directory, name + extension);
+            if (file.isFile()) return file;
+        }
+        return null;
+    }
+
+    private boolean isDefaultFile(String fileName) {
+        if (!baseName(fileName).equals(defaultName)) return false;
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        for (String extension : DATA_FOLDER_EXTENSIONS) {
+            if (lower.endsWith(extension)) return true;
+        }
+        return false;
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return (dot > 0 ? fileName.substring(0, dot) : fileName).toLowerCase(Locale.ROOT);
+    }
+
+    private void watch() {
+        WatchService service = watcher;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                // In the plugin folder only the default template's own file matters
+                boolean dataFolder = plugin.getDataFolder().toPath().equals(key.watchable());
+                List<String> changed = new ArrayList<>();
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    } else if (event.context() instanceof Path path) {
+                        String fileName = path.toString();
+                        if (dataFolder ? isDefaultFile(fileName) : SchematicLoader.isSchematicFile(fileName)) {
+                            changed.add(baseName(fileName));
+                        }
+                    }
+                }
+                key.reset();
+
+                if (!plugin.isEnabled()) return;
+                boolean rescan = overflow;
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (rescan) {
+                        scan();
+                        return;
+                    }
+                    for (String name : changed) {
+                        refresh(name);
+                        plugin.getLogger().info("Reloaded island template " + name);
+                    }
+                });
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.ChunkSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The blocks of one 16x16x16 chunk section as a palette of block data strings plus one palette index per block,
+ * indexed (y << 8) | (z << 4) | x. Its encoded form is what {@link SnapshotStore} hashes and compresses, so two
+ * sections with the same blocks always encode to the same bytes, whichever island or snapshot they come from.
+ */
+public final class SnapshotSection {
+    public static final int VOLUME = 4096;
+    public static final String AIR = "minecraft:air";
+
+    private final String[] palette;
+    private final int[] blocks;
+
+    private SnapshotSection(String[] palette, int[] blocks) {
+        this.palette = palette;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Copies a section out of a chunk snapshot; safe to call off the main thread
+     * @param baseY The lowest block Y of the section
+     */
+    public static SnapshotSection copy(ChunkSnapshot snapshot, int baseY) {
+        List<String> palette = new ArrayList<>();
+        Map<String, Integer> paletteIndex = new HashMap<>();
+        int[] blocks = new int[VOLUME];
+        for (int i = 0; i < VOLUME; i++) {
+            String blockData = snapshot.getBlockData(i & 15, baseY + (i >> 8), (i >> 4) & 15).getAsString();
+            Integer index = paletteIndex.get(blockData);
+            if (index == null) {
+                index = palette.size();
+                palette.add(blockData);
+                paletteIndex.put(blockData, index);
+            }
+            blocks[i] = index;
+        }
+        return new SnapshotSection(palette.toArray(new String[0]), blocks);
+    }
+
+    /**
+     * @return the section as bytes: the palette, then nothing for a single block type, one byte per block
+     * for up to 256 types, or two bytes per block
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(VOLUME + palette.length * 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(palette.length);
+            for (String entry : palette) {
+                out.writeUTF(entry);
+            }
+            if (palette.length > 256) {
+                for (int block : blocks) {
+                    out.writeShort(block);
+                }
+            } else if (palette.length > 1) {
+                for (int block : blocks) {
+                    out.writeByte(block);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a section written by {@link #encode}
+     * @throws IOException if the bytes are not a valid section
+     */
+    public static SnapshotSection decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int size = in.readUnsignedShort();
+        if (size == 0) throw new IOException("Section has an empty palette");
+
+        String[] palette = new String[size];
+        for (int i = 0; i < size; i++) {
+            palette[i] = in.readUTF();
+        }
+        int[] blocks = new int[VOLUME];
+        if (size > 1) {
+            for (int i = 0; i < VOLUME; i++) {
+                int block = size > 256 ? in.readUnsignedShort() : in.readUnsignedByte();
+                if (block >= size) throw new IOException("Section block " + i + " is outside the palette");
+                blocks[i] = block;
+            }
+        }
+        return new SnapshotSection(palette, blocks);
+    }
+
+    /**
+     * @return the hex SHA-256 of encoded section bytes, which names the section in the store
+     */
+    public static String hash(byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest(data)) {
+            hex.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return the block data string at a block index
+     */
+    public String get(int index) {
+        return palette[blocks[index]];
+    }
+}
@@ -0,0 +1,519 @@
+package com.pixl8.skiblock;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Local, content-addressed store of island snapshots.
+ * Chunk sections are kept once each in objects/, named by the SHA-256 of their encoded blocks and
+ * deflate-compressed; a snapshot is a small manifest in islands/&lt;owner&gt;/ listing the hash of every
+ * non-empty section of the island's chunks. A section that did not change since the previous snapshot, or that
+ * another island shares (such as an untouched part of the starter island), is never written twice, and
+ * sections no manifest refers to any more are removed by {@link #collect}.
+ * Methods that touch the disk block and belong off the main thread.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x534B5301;
+    private static final String MANIFEST_EXTENSION = ".snap";
+
+    private final File objectFolder;
+    private final File islandFolder;
+    private final Logger logger;
+    // Snapshots of each island, newest first; lists are replaced whole so they can be read without the lock
+    private final Map<UUID, List<Snapshot>> index = new ConcurrentHashMap<>();
+    // Compressed size of every stored section by hash, guarded by this
+    private final Map<String, Long> objects = new HashMap<>();
+    private volatile int objectCount;
+    private volatile long objectBytes;
+
+    /**
+     * One stored snapshot of an island
+     */
+    public static final class Snapshot {
+        private final long created;
+        private final int sections;
+        private final int newSections;
+        private final long newBytes;
+        private final long fileBytes;
+
+        private Snapshot(long created, int sections, int newSections, long newBytes, long fileBytes) {
+            this.created = created;
+            this.sections = sections;
+            this.newSections = newSections;
+            this.newBytes = newBytes;
+            this.fileBytes = fileBytes;
+        }
+
+        /**
+         * @return when the snapshot was taken, in epoch milliseconds; also its id
+         */
+        public long getCreated() {
+            return created;
+        }
+
+        public int getSections() {
+            return sections;
+        }
+
+        /**
+         * @return the sections this snapshot added to the store, the rest were already there
+         */
+        public int getNewSections() {
+            return newSections;
+        }
+
+        public long getNewBytes() {
+            return newBytes;
+        }
+    }
+
+    /**
+     * The contents of a snapshot: a chunk range relative to the island's centre chunk, and the hash of each
+     * non-empty section in it. Sections that are not listed were empty.
+     */
+    public static final class Manifest {
+        private final long created;
+        private final int minChunkX;
+        private final int maxChunkX;
+        private final int minChunkZ;
+        private final int maxChunkZ;
+        private final Map<Long, String> sections;
+
+        /**
+         * @param sections Section hashes by {@link #sectionKey}
+         */
+        public Manifest(long created, int minChunkX, int maxChunkX, int minChunkZ, int maxChunkZ, Map<Long, String> sections) {
+            this.created = created;
+            this.minChunkX = minChunkX;
+            this.maxChunkX = maxChunkX;
+            this.minChunkZ = minChunkZ;
+            this.maxChunkZ = maxChunkZ;
+            this.sections = sections;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public int getMinChunkX() {
+            return minChunkX;
+        }
+
+        public int getMaxChunkX() {
+            return maxChunkX;
+        }
+
+        public int getMinChunkZ() {
+            return minChunkZ;
+        }
+
+        public int getMaxChunkZ() {
+            return maxChunkZ;
+        }
+
+        /**
+         * @return the hash of a section, or null if it was empty
+         */
+        public String getSection(int chunkX, int chunkZ, int sectionY) {
+            return sections.get(sectionKey(chunkX, chunkZ, sectionY));
+        }
+
+        public Set<String> getHashes() {
+            return new HashSet<>(sections.values());
+        }
+
+        private boolean sameBlocks(Manifest other) {
+            return minChunkX == other.minChunkX && maxChunkX == other.maxChunkX
+                    && minChunkZ == other.minChunkZ && maxChunkZ == other.maxChunkZ
+                    && sections.equals(other.sections);
+        }
+    }
+
+    public SnapshotStore(File folder, Logger logger) {
+        this.objectFolder = new File(folder, "objects");
+        this.islandFolder = new File(folder, "islands");
+        this.logger = logger;
+    }
+
+    /**
+     * Packs a section position relative to the island's centre chunk into a manifest key
+     * @param sectionY The section's block Y divided by 16
+     */
+    public static long sectionKey(int chunkX, int chunkZ, int sectionY) {
+        return (long) (chunkX & 0xFFFF) << 32 | (long) (chunkZ & 0xFFFF) << 16 | (sectionY & 0xFFFF);
+    }
+
+    /**
+     * Lists the stored sections and snapshots, dropping files left half-written by a crash
+     */
+    public synchronized void load() {
+        objects.clear();
+        index.clear();
+        long bytes = 0;
+
+        File[] shards = objectFolder.listFiles(File::isDirectory);
+        if (shards != null) {
+            for (File shard : shards) {
+                File[] files = shard.listFiles(File::isFile);
+                if (files == null) continue;
+                for (File file : files) {
+                    if (file.getName().endsWith(".tmp")) {
+                        file.delete();
+                        continue;
+                    }
+                    objects.put(file.getName(), file.length());
+                    bytes += file.length();
+                }
+            }
+        }
+        objectCount = objects.size();
+        objectBytes = bytes;
+
+        File[] owners = islandFolder.listFiles(File::isDirectory);
+        if (owners == null) return;
+        for (File folder : owners) {
+            UUID owner;
+            try {
+                owner = UUID.fromString(folder.getName());
+            } catch (IllegalArgumentException e) {
+                logger.warning("Ignoring snapshots for invalid UUID: " + folder.getName());
+                continue;
+            }
+
+            List<Snapshot> snapshots = new ArrayList<>();
+            File[] files = folder.listFiles(File::isFile);
+            if (files == null) continue;
+            for (File file : files) {
+                if (file.getName().endsWith(".tmp")) {
+                    file.delete();
+                    continue;
+                }
+                if (!file.getName().endsWith(MANIFEST_EXTENSION)) continue;
+                try {
+                    snapshots.add(readSnapshot(file));
+                } catch (IOException e) {
+                    logger.warning("Could not read snapshot " + file.getPath() + ": " + e.getMessage());
+                }
+            }
+            if (!snapshots.isEmpty()) {
+                snapshots.sort(Comparator.comparingLong(Snapshot::getCreated).reversed());
+                index.put(owner, Collections.unmodifiableList(snapshots));
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot, storing only the sections that are not in the store yet
+     * @param sections Encoded section bytes by hash, for at least every hash the manifest lists that is not stored yet
+     * @return the new snapshot, or null if the island has not changed since its last snapshot
+     */
+    public synchronized Snapshot commit(UUID owner, Manifest manifest, Map<String, byte[]> sections) throws IOException {
+        List<Snapshot> existing = index.getOrDefault(owner, Collections.emptyList());
+        if (!existing.isEmpty() && manifest.sameBlocks(read(owner, existing.get(0).created))) return null;
+
+        int newSections = 0;
+        long newBytes = 0;
+        for (String hash : manifest.getHashes()) {
+            if (objects.containsKey(hash)) continue;
+            byte[] data = sections.get(hash);
+            if (data == null) throw new IOException("Missing the blocks of section " + hash);
+
+            long size = writeObject(hash, data);
+            objects.put(hash, size);
+            objectCount = objects.size();
+            objectBytes += size;
+            newSections++;
+            newBytes += size;
+        }
+
+        File file = manifestFile(owner, manifest.created);
+        file.getParentFile().mkdirs();
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(manifest.created);
+            out.writeInt(newSections);
+            out.writeLong(newBytes);
+            out.writeShort(manifest.minChunkX);
+            out.writeShort(manifest.maxChunkX);
+            out.writeShort(manifest.minChunkZ);
+            out.writeShort(manifest.maxChunkZ);
+            out.writeInt(manifest.sections.size());
+            for (Map.Entry<Long, String> entry : manifest.sections.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+        }
+        replace(tempFile, file);
+
+        Snapshot snapshot = new Snapshot(manifest.created, manifest.sections.size(), newSections, newBytes, file.length());
+        List<Snapshot> updated = new ArrayList<>(existing.size() + 1);
+        updated.add(snapshot);
+        updated.addAll(existing);
+        index.put(owner, Collections.unmodifiableList(updated));
+        return snapshot;
+    }
+
+    /**
+     * @return an island's snapshots, newest first
+     */
+    public List<Snapshot> list(UUID owner) {
+        return index.getOrDefault(owner, Collections.emptyList());
+    }
+
+    /**
+     * Reads the contents of a snapshot
+     * @param created The snapshot's id, see {@link Snapshot#getCreated}
+     */
+    public synchronized Manifest read(UUID owner, long created) throws IOException {
+        return readManifest(manifestFile(owner, created));
+    }
+
+    /**
+     * Reads the encoded blocks of a stored section, checking them against their hash
+     */
+    public synchronized byte[] readSection(String hash) throws IOException {
+        byte[] data;
+        try (InputStream in = new InflaterInputStream(new BufferedInputStream(new FileInputStream(objectFile(hash))))) {
+            data = in.readAllBytes();
+        }
+        if (!SnapshotSection.hash(data).equals(hash)) throw new IOException("Section " + hash + " is corrupt");
+        return data;
+    }
+
+    /**
+     * Drops the snapshots of one island past the retention limits. The sections they used stay until the next {@link #collect}.
+     * @param keep Snapshots to keep at most
+     * @param maxAgeMillis Age past which snapshots are dropped, 0 for no limit
+     * @param keepNewest Whether to keep the newest snapshot even past both limits
+     * @return the number of snapshots dropped
+     */
+    public synchronized int prune(UUID owner, int keep, long maxAgeMillis, boolean keepNewest) throws IOException {
+        List<Snapshot> snapshots = index.get(owner);
+        if (snapshots == null) return 0;
+
+        long cutoff = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        List<Snapshot> kept = new ArrayList<>();
+        for (int i = 0; i < snapshots.size(); i++) {
+            Snapshot snapshot = snapshots.get(i);
+            if ((i == 0 && keepNewest) || (kept.size() < keep && snapshot.created >= cutoff)) {
+                kept.add(snapshot);
+            } else {
+                Files.deleteIfExists(manifestFile(owner, snapshot.created).toPath());
+            }
+        }
+
+        if (kept.isEmpty()) {
+            index.remove(owner);
+            new File(islandFolder, owner.toString()).delete();
+        } else {
+            index.put(owner, Collections.unmodifiableList(kept));
+        }
+        return snapshots.size() - kept.size();
+    }
+
+    /**
+     * Removes the sections no snapshot refers to any more. Past the disk limit it first drops the oldest snapshots
+     * that are not the newest of their island, until the rest fit. Reads every manifest once.
+     * @param maxBytes Disk limit for sections and manifests together, 0 for none
+     * @return the bytes freed
+     */
+    public synchronized long collect(long maxBytes) throws IOException {
+        // Count how many snapshots use each section
+        Map<String, Integer> references = new HashMap<>();
+        List<Map.Entry<UUID, Snapshot>> droppable = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<UUID, List<Snapshot>> entry : index.entrySet()) {
+            List<Snapshot> snapshots = entry.getValue();
+            for (int i = 0; i < snapshots.size(); i++) {
+                Snapshot snapshot = snapshots.get(i);
+                Manifest manifest;
+                try {
+                    manifest = read(entry.getKey(), snapshot.created);
+                } catch (IOException e) {
+                    // Without its manifest the snapshot cannot be restored, and would keep its sections from being collected
+                    logger.warning("Dropping unreadable snapshot of " + entry.getKey() + ": " + e.getMessage());
+                    drop(entry.getKey(), snapshot);
+                    continue;
+                }
+                for (String hash : manifest.getHashes()) {
+                    references.merge(hash, 1, Integer::sum);
+                }
+                total += snapshot.fileBytes;
+                if (i > 0) {
+                    droppable.add(Map.entry(entry.getKey(), snapshot));
+                }
+            }
+        }
+        for (String hash : references.keySet()) {
+            total += objects.getOrDefault(hash, 0L);
+        }
+
+        long freed = 0;
+        if (maxBytes > 0 && total > maxBytes) {
+            droppable.sort(Comparator.comparingLong(entry -> entry.getValue().created));
+            for (Map.Entry<UUID, Snapshot> entry : droppable) {
+                if (total <= maxBytes) break;
+
+                Snapshot snapshot = entry.getValue();
+                for (String hash : read(entry.getKey(), snapshot.created).getHashes()) {
+                    if (references.merge(hash, -1, Integer::sum) == 0) {
+                        references.remove(hash);
+                        total -= objects.getOrDefault(hash, 0L);
+                    }
+                }
+                drop(entry.getKey(), snapshot);
+                total -= snapshot.fileBytes;
+                freed += snapshot.fileBytes;
+            }
+            if (total > maxBytes) {
+                logger.warning(String.format("Island snapshots use %.1f MB even with only the newest of each island kept",
+                        total / 1048576.0));
+            }
+        }
+
+        for (Iterator<Map.Entry<String, Long>> iterator = objects.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (references.containsKey(entry.getKey())) continue;
+
+            Files.deleteIfExists(objectFile(entry.getKey()).toPath());
+            iterator.remove();
+            objectBytes -= entry.getValue();
+            freed += entry.getValue();
+        }
+        objectCount = objects.size();
+        return freed;
+    }
+
+    private void drop(UUID owner, Snapshot snapshot) throws IOException {
+        Files.deleteIfExists(manifestFile(owner, snapshot.created).toPath());
+        List<Snapshot> kept = new ArrayList<>(index.getOrDefault(owner, Collections.emptyList()));
+        kept.remove(snapshot);
+        if (kept.isEmpty()) {
+            index.remove(owner);
+        } else {
+            index.put(owner, Collections.unmodifiableList(kept));
+        }
+    }
+
+    private long writeObject(String hash, byte[] data) throws IOException {
+        File file = objectFile(hash);
+        file.getParentFile().mkdirs();
+        File tempFile = new File(file.getParentFile(), hash + ".tmp");
+        try (OutputStream out = new DeflaterOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.write(data);
+        }
+        replace(tempFile, file);
+        return file.length();
+    }
+
+    private static Snapshot readSnapshot(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a snapshot manifest");
+            long created = in.readLong();
+            int newSections = in.readInt();
+            long newBytes = in.readLong();
+            in.skipNBytes(8);
+            int sections = in.readInt();
+            return new Snapshot(created, sections, newSections, newBytes, file.length());
+        }
+    }
+
+    private static Manifest readManifest(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a snapshot manifest");
+            long created = in.readLong();
+            // Skip the new section count and bytes, only needed for listing
+            in.skipNBytes(12);
+            int minChunkX = in.readShort();
+            int maxChunkX = in.readShort();
+            int minChunkZ = in.readShort();
+            int maxChunkZ = in.readShort();
+            int count = in.readInt();
+            if (count < 0) throw new IOException("Negative section count");
+            Map<Long, String> sections = new HashMap<>(Math.min(count, 65536) * 2);
+            for (int i = 0; i < count; i++) {
+                sections.put(in.readLong(), in.readUTF());
+            }
+            return new Manifest(created, minChunkX, maxChunkX, minChunkZ, maxChunkZ, sections);
+        }
+    }
+
+    private static void replace(File tempFile, File file) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private File objectFile(String hash) {
+        // Spread sections over 256 folders so none grows huge
+        return new File(new File(objectFolder, hash.substring(0, 2)), hash);
+    }
+
+    private File manifestFile(UUID owner, long created) {
+        return new File(new File(islandFolder, owner.toString()), created + MANIFEST_EXTENSION);
+    }
+
+    /**
+     * @return the owners of every island with snapshots
+     */
+    public Set<UUID> getOwners() {
+        return new HashSet<>(index.keySet());
+    }
+
+    public int getIslandCount() {
+        return index.size();
+    }
+
+    public int getSnapshotCount() {
+        int count = 0;
+        for (List<Snapshot> snapshots : index.values()) {
+            count += snapshots.size();
+        }
+        return count;
+    }
+
+    public int getSectionCount() {
+        return objectCount;
+    }
+
+    /**
+     * @return the bytes used by stored sections and manifests
+     */
+    public long getDiskBytes() {
+        long bytes = objectBytes;
+        for (List<Snapshot> snapshots : index.values()) {
+            for (Snapshot snapshot : snapshots) {
+                bytes += snapshot.fileBytes;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,150 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports Sponge schematic files (.schem, versions 1 to 3) as written by WorldEdit and FAWE.
+ * Blocks keep their full block states; chests keep their items, other block entity data is dropped.
+ */
+public final class SpongeSchematicImporter {
+    private SpongeSchematicImporter() {
+    }
+
+    /**
+     * Reads a gzip-compressed Sponge schematic
+     * @param file The .schem file
+     * @return the compiled schematic, relative to the origin it was copied from
+     * @throws IOException if the file cannot be read or is not a Sponge schematic
+     */
+    @SuppressWarnings("unchecked")
+    public static CompiledSchematic read(File file) throws IOException {
+        Map<String, Object> root;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            root = NbtReader.readRoot(in);
+        }
+
+        // Version 3 nests everything in a "Schematic" compound
+        if (root.get("Schematic") instanceof Map) {
+            root = (Map<String, Object>) root.get("Schematic");
+        }
+        int version = root.get("Version") instanceof Integer v ? v : 1;
+        int width = getShort(root, "Width");
+        int height = getShort(root, "Height");
+        int length = getShort(root, "Length");
+
+        Map<String, Object> blocks = version >= 3 ? (Map<String, Object>) root.get("Blocks") : root;
+        if (blocks == null) {
+            throw new IOException("Schematic has no blocks");
+        }
+        Map<String, Object> palette = (Map<String, Object>) blocks.get("Palette");
+        byte[] data = (byte[]) blocks.get(version >= 3 ? "Data" : "BlockData");
+        if (palette == null || data == null) {
+            throw new IOException("Schematic has no block palette or data");
+        }
+
+        int[] offset = getOffset(root, version);
+        CompiledSchematic.Builder builder = new CompiledSchematic.Builder();
+
+        // Map the file's palette ids onto builder entries, air is simply left out
+        int maxId = 0;
+        for (Object id : palette.values()) {
+            maxId = Math.max(maxId, (Integer) id);
+        }
+        int[] paletteIndex = new int[maxId + 1];
+        Arrays.fill(paletteIndex, -1);
+        for (Map.Entry<String, Object> entry : palette.entrySet()) {
+            String blockData = entry.getKey();
+            if (!isAir(blockData)) {
+                paletteIndex[(Integer) entry.getValue()] = builder.palette(blockData);
+            }
+        }
+
+        // Block data is a varint per position, x fastest, then z, then y
+        int position = 0;
+        int i = 0;
+        int total = width * height * length;
+        while (i < data.length && position < total) {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (i >= data.length) throw new IOException("Truncated block data");
+                b = data[i++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            if (value < paletteIndex.length && paletteIndex[value] >= 0) {
+                int x = position % width;
+                int z = (position / width) % length;
+                int y = position / (width * length);
+                builder.block(offset[0] + x, offset[1] + y, offset[2] + z, paletteIndex[value]);
+            }
+            position++;
+        }
+
+        Object blockEntities = blocks.get(version == 1 ? "TileEntities" : "BlockEntities");
+        if (blockEntities instanceof List) {
+            for (Object entity : (List<Object>) blockEntities) {
+                addChest(builder, (Map<String, Object>) entity, offset);
+            }
+        }
+        return builder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addChest(CompiledSchematic.Builder builder, Map<String, Object> entity, int[] offset) {
+        if (!(entity.get("Pos") instanceof int[] pos) || pos.length != 3) return;
+
+        // Version 3 keeps the block entity's own data in a nested compound
+        Map<String, Object> contents = entity.get("Data") instanceof Map ? (Map<String, Object>) entity.get("Data") : entity;
+        if (!(contents.get("Items") instanceof List)) return;
+
+        List<ItemStack> items = new ArrayList<>();
+        for (Object value : (List<Object>) contents.get("Items")) {
+            Map<String, Object> item = (Map<String, Object>) value;
+            Material material = item.get("id") instanceof String id ? Material.matchMaterial(id) : null;
+            Object count = item.containsKey("Count") ? item.get("Count") : item.get("count");
+            if (material != null && count instanceof Number amount && amount.intValue() > 0) {
+                items.add(new ItemStack(material, amount.intValue()));
+            }
+        }
+        builder.chest(offset[0] + pos[0], offset[1] + pos[1], offset[2] + pos[2], items.toArray(new ItemStack[0]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int[] getOffset(Map<String, Object> root, int version) {
+        // WorldEdit writes the absolute minimum to Offset in version 2 and the relative offset to its metadata
+        if (version < 3 && root.get("Metadata") instanceof Map) {
+            Map<String, Object> metadata = (Map<String, Object>) root.get("Metadata");
+            if (metadata.get("WEOffsetX") instanceof Integer x && metadata.get("WEOffsetY") instanceof Integer y
+                    && metadata.get("WEOffsetZ") instanceof Integer z) {
+                return new int[]{x, y, z};
+            }
+        }
+        return root.get("Offset") instanceof int[] offset && offset.length == 3 ? offset : new int[3];
+    }
+
+    private static int getShort(Map<String, Object> root, String key) throws IOException {
+        if (!(root.get(key) instanceof Short value)) {
+            throw new IOException("Schematic has no " + key);
+        }
+        return value & 0xFFFF;
+    }
+
+    private static boolean isAir(String blockData) {
+        return blockData.equals("minecraft:air") || blockData.equals("minecraft:cave_air") || blockData.equals("minecraft:void_air");
+    }
+}
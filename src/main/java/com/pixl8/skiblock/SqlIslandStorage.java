@@ -0,0 +1,264 @@
+package com.pixl8.skiblock;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Stores islands as rows of a shared {@link IslandDatabase} with optimistic versioning.
+ * Every row has a version that each write bumps, and a write only applies if the row still has the
+ * version this server last read, so two servers can never silently overwrite each other. A write that
+ * loses is dropped and the stored island is handed back through {@link #pollChanges}, so the other
+ * server's change wins. Deleted islands keep a tombstone row, so other servers see the deletion.
+ */
+public class SqlIslandStorage implements IslandStorage {
+    private static final String COLUMNS = "owner, world, x, y, z, yaw, pitch, border_radius, deleted, version, updated_at";
+
+    private final IslandDatabase database;
+    private final Metrics metrics;
+    // The row version this server last read or wrote for each owner
+    private final Map<UUID, Long> versions = new ConcurrentHashMap<>();
+    // Islands that won against one of our writes and still have to be applied locally
+    private final ConcurrentLinkedQueue<Row> lostWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    private record Row(UUID owner, Island island, long version) {
+    }
+
+    public SqlIslandStorage(IslandDatabase database, Metrics metrics) {
+        this.database = database;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void load(Consumer<Island> consumer) throws IOException {
+        // Tombstones are read too, so recreating a deleted island updates its row instead of conflicting
+        List<Row> rows = database.run(connection -> {
+            try (PreparedStatement select = connection.prepareStatement("SELECT " + COLUMNS + " FROM skiblock_islands")) {
+                return readRows(select);
+            }
+        });
+        for (Row row : rows) {
+            versions.put(row.owner, row.version);
+            if (row.island != null) {
+                consumer.accept(row.island);
+            }
+        }
+    }
+
+    @Override
+    public void write(Collection<UUID> changed, IslandRegistry registry) throws IOException {
+        long now = System.currentTimeMillis();
+        Map<UUID, Long> written = new HashMap<>();
+        List<Row> lost = new ArrayList<>();
+
+        database.run(connection -> {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(database.getDialect().insertIgnore()
+                    + " skiblock_islands (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 1, ?)");
+                 PreparedStatement update = connection.prepareStatement("UPDATE skiblock_islands SET "
+                         + "world = ?, x = ?, y = ?, z = ?, yaw = ?, pitch = ?, border_radius = ?, deleted = ?, "
+                         + "version = version + 1, updated_at = ? WHERE owner = ? AND version = ?")) {
+                for (UUID owner : changed) {
+                    Island island = registry.get(owner);
+                    Long version = versions.get(owner);
+                    if (version == null) {
+                        // Never stored, so there is nothing to delete
+                        if (island == null) continue;
+
+                        insert.setString(1, owner.toString());
+                        bind(insert, 2, island);
+                        insert.setLong(10, now);
+                        if (insert.executeUpdate() == 1) {
+                            written.put(owner, 1L);
+                            continue;
+                        }
+                    } else {
+                        if (island != null) {
+                            bind(update, 1, island);
+                        } else {
+                            bindDeleted(update, 1);
+                        }
+                        update.setLong(9, now);
+                        update.setString(10, owner.toString());
+                        update.setLong(11, version);
+                        if (update.executeUpdate() == 1) {
+                            written.put(owner, version + 1);
+                            continue;
+                        }
+                    }
+
+                    // Another server changed the island since we read it
+                    Row current = readRow(connection, owner);
+                    if (current != null) {
+                        lost.add(current);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return null;
+        });
+
+        versions.putAll(written);
+        if (!lost.isEmpty()) {
+            conflicts.addAndGet(lost.size());
+            metrics.add(Metrics.Counter.STORE_CONFLICTS, lost.size());
+            lostWrites.addAll(lost);
+        }
+    }
+
+    /**
+     * Reads one island straight from the database, bypassing every cache
+     * @param owner The island owner
+     * @return the island, or null if the player has none
+     */
+    public Island read(UUID owner) throws IOException {
+        long start = System.nanoTime();
+        Row row = database.run(connection -> readRow(connection, owner));
+        metrics.recordSince(Metrics.Operation.ISLAND_FETCH, start);
+        if (row == null) return null;
+
+        versions.put(owner, row.version);
+        return row.island;
+    }
+
+    /**
+     * Compares the stored version of an island with the one this server last read or wrote
+     * @return true if no other server has written the island since
+     */
+    public boolean isCurrent(UUID owner) throws IOException {
+        Long known = versions.get(owner);
+        Long stored = database.run(connection -> {
+            try (PreparedStatement select = connection.prepareStatement("SELECT version FROM skiblock_islands WHERE owner = ?")) {
+                select.setString(1, owner.toString());
+                try (ResultSet result = select.executeQuery()) {
+                    return result.next() ? result.getLong("version") : null;
+                }
+            }
+        });
+        return known == null ? stored == null : known.equals(stored);
+    }
+
+    /**
+     * Finds islands that changed since a point in time and that this server has not seen yet,
+     * plus every island that won against one of our writes
+     * @param sinceMillis Wall clock time to look back to
+     * @param consumer Receives the owner and the island, or null if it was deleted
+     */
+    public void pollChanges(long sinceMillis, BiConsumer<UUID, Island> consumer) throws IOException {
+        List<Row> rows = database.run(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT " + COLUMNS + " FROM skiblock_islands WHERE updated_at >= ?")) {
+                select.setLong(1, sinceMillis);
+                return readRows(select);
+            }
+        });
+
+        Row lost;
+        while ((lost = lostWrites.poll()) != null) {
+            rows.add(lost);
+        }
+        for (Row row : rows) {
+            Long known = versions.get(row.owner);
+            if (known != null && known >= row.version) continue;
+
+            versions.put(row.owner, row.version);
+            consumer.accept(row.owner, row.island);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, int index, Island island) throws SQLException {
+        statement.setString(index, island.getWorldName());
+        statement.setDouble(index + 1, island.getX());
+        statement.setDouble(index + 2, island.getY());
+        statement.setDouble(index + 3, island.getZ());
+        statement.setFloat(index + 4, island.getYaw());
+        statement.setFloat(index + 5, island.getPitch());
+        statement.setInt(index + 6, island.getBorderRadius());
+        statement.setInt(index + 7, 0);
+    }
+
+    private static void bindDeleted(PreparedStatement statement, int index) throws SQLException {
+        statement.setString(index, "");
+        for (int i = 1; i <= 5; i++) {
+            statement.setDouble(index + i, 0);
+        }
+        statement.setInt(index + 6, 0);
+        statement.setInt(index + 7, 1);
+    }
+
+    private static Row readRow(Connection connection, UUID owner) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM skiblock_islands WHERE owner = ?")) {
+            select.setString(1, owner.toString());
+            List<Row> rows = readRows(select);
+            return rows.isEmpty() ? null : rows.get(0);
+        }
+    }
+
+    private static List<Row> readRows(PreparedStatement select) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (ResultSet result = select.executeQuery()) {
+            while (result.next()) {
+                UUID owner = UUID.fromString(result.getString("owner"));
+                Island island = result.getInt("deleted") != 0 ? null : new Island(owner,
+                        result.getString("world"),
+                        result.getDouble("x"),
+                        result.getDouble("y"),
+                        result.getDouble("z"),
+                        result.getFloat("yaw"),
+                        result.getFloat("pitch"),
+                        result.getInt("border_radius"));
+                rows.add(new Row(owner, island, result.getLong("version")));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return the number of writes dropped because another server changed the island first
+     */
+    public long getConflicts() {
+        return conflicts.get();
+    }
+
+    /**
+     * @return true if nothing has been stored yet
+     */
+    public boolean isEmpty() throws IOException {
+        return database.run(connection -> {
+            try (PreparedStatement select = connection.prepareStatement("SELECT 1 FROM skiblock_islands LIMIT 1");
+                 ResultSet result = select.executeQuery()) {
+                return !result.next();
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "sql";
+    }
+
+    @Override
+    public void close() throws IOException {
+        database.close();
+    }
+}
@@ -0,0 +1,79 @@
+package com.pixl8.skiblock;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Grid cell reservations shared by every server using the same {@link IslandDatabase}.
+ * A cell is reserved by inserting its row, and the primary key lets only one insert win,
+ * so two servers can never hand out the same island coordinates.
+ */
+public class SqlSlotReservations {
+    private final IslandDatabase database;
+    private final String node;
+
+    public SqlSlotReservations(IslandDatabase database, String node) {
+        this.database = database;
+        this.node = node;
+    }
+
+    /**
+     * @return the cell keys every server has reserved, see {@link IslandGrid#cellKey}
+     */
+    public Set<Long> loadReserved() throws IOException {
+        return database.run(connection -> {
+            Set<Long> cells = new HashSet<>();
+            try (PreparedStatement select = connection.prepareStatement("SELECT cell_x, cell_z FROM skiblock_cells");
+                 ResultSet result = select.executeQuery()) {
+                while (result.next()) {
+                    cells.add(IslandGrid.cellKey(result.getInt("cell_x"), result.getInt("cell_z")));
+                }
+            }
+            return cells;
+        });
+    }
+
+    /**
+     * Reserves a cell for this server
+     * @return true if the cell is now reserved by this server, false if another server has it
+     */
+    public boolean reserve(int cellX, int cellZ) throws IOException {
+        return database.run(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(database.getDialect().insertIgnore()
+                    + " skiblock_cells (cell_x, cell_z, node, reserved_at) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, cellX);
+                insert.setInt(2, cellZ);
+                insert.setString(3, node);
+                insert.setLong(4, System.currentTimeMillis());
+                if (insert.executeUpdate() == 1) return true;
+            }
+
+            // Cells this server reserved before a restart are still ours
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT node FROM skiblock_cells WHERE cell_x = ? AND cell_z = ?")) {
+                select.setInt(1, cellX);
+                select.setInt(2, cellZ);
+                try (ResultSet result = select.executeQuery()) {
+                    return result.next() && node.equals(result.getString("node"));
+                }
+            }
+        });
+    }
+
+    /**
+     * Frees a cell whose island was deleted, whichever server reserved it
+     */
+    public void release(int cellX, int cellZ) throws IOException {
+        database.run(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM skiblock_cells WHERE cell_x = ? AND cell_z = ?")) {
+                delete.setInt(1, cellX);
+                delete.setInt(2, cellZ);
+                return delete.executeUpdate();
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Measures server tick rate from the main thread.
+ * A task runs every tick and records the time since its previous run, so long ticks show up
+ * as long intervals; TPS is averaged over the last {@value #WINDOW} intervals.
+ */
+public class TickMonitor {
+    private static final int WINDOW = 100;
+    private static final long TICK_NANOS = 50_000_000L;
+
+    private final long[] intervals = new long[WINDOW];
+    private long intervalTotal;
+    private int index;
+    private int samples;
+    private long lastTick;
+    private long lastInterval;
+    private BukkitTask task;
+
+    /**
+     * Starts sampling ticks
+     * @param plugin The plugin that owns the sampling task
+     */
+    public void start(JavaPlugin plugin) {
+        lastTick = System.nanoTime();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        lastInterval = now - lastTick;
+        lastTick = now;
+
+        intervalTotal += lastInterval - intervals[index];
+        intervals[index] = lastInterval;
+        index = (index + 1) % WINDOW;
+        if (samples < WINDOW) samples++;
+    }
+
+    /**
+     * @return ticks per second over the sampling window, capped at 20
+     */
+    public double getTps() {
+        if (samples == 0) return 20.0;
+        double averageInterval = (double) intervalTotal / samples;
+        return Math.min(20.0, 20.0 * TICK_NANOS / averageInterval);
+    }
+
+    /**
+     * @return the length of the most recent tick in milliseconds
+     */
+    public double getLastTickMillis() {
+        return lastInterval / 1_000_000.0;
+    }
+}
@@ -1,37 +1,63 @@
 package com.pixl8.skiblock;
 
-import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.generator.BiomeProvider;
 import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.generator.WorldInfo;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
+/**
+ * Generates an empty ocean-biome world.
+ * Every vanilla generation step is switched off and no generate* hook writes a block,
+ * so a void chunk is just the freshly allocated all-air chunk and can be generated off the main thread.
+ */
 public class VoidGenerator extends ChunkGenerator {
     private static final int SPAWN_HEIGHT = 64;
+    private static final BiomeProvider BIOMES = new VoidBiomeProvider();
 
     @Override
-    public ChunkGenerator.ChunkData generateChunkData(World world, Random random, int chunkX, int chunkZ, ChunkGenerator.BiomeGrid biome) {
-        ChunkGenerator.ChunkData chunkData = createChunkData(world);
-        
-        // Set all blocks to air
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                for (int y = 0; y < world.getMaxHeight(); y++) {
-                    chunkData.setBlock(x, y, z, Material.AIR);
-                }
-            }
-        }
-        
-        // Set biome to ocean for the entire chunk
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                biome.setBiome(x, z, org.bukkit.block.Biome.OCEAN);
-            }
-        }
-        
-        return chunkData;
+    public boolean shouldGenerateNoise() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateSurface() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateCaves() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateDecorations() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateMobs() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateStructures() {
+        return false;
+    }
+
+    @Override
+    public boolean isParallelCapable() {
+        return true;
+    }
+
+    @Override
+    public BiomeProvider getDefaultBiomeProvider(WorldInfo worldInfo) {
+        return BIOMES;
     }
 
     @Override
@@ -48,4 +74,21 @@ public class VoidGenerator extends ChunkGenerator {
     public String toString() {
         return "VoidGenerator";
     }
+
+    /**
+     * Sets the biome to ocean for the entire world
+     */
+    private static class VoidBiomeProvider extends BiomeProvider {
+        private static final List<Biome> BIOMES = Collections.singletonList(Biome.OCEAN);
+
+        @Override
+        public Biome getBiome(WorldInfo worldInfo, int x, int y, int z) {
+            return Biome.OCEAN;
+        }
+
+        @Override
+        public List<Biome> getBiomes(WorldInfo worldInfo) {
+            return BIOMES;
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Stores every island as a comma-joined string (world,x,y,z,yaw,pitch,borderRadius) in a single
+ * YAML document (island_data.yml).
+ * Each write rewrites the whole file through a temp file and rename.
+ */
+public class YamlIslandStorage implements IslandStorage {
+    private final File dataFile;
+    private final File tempFile;
+    private final Logger logger;
+    private final int borderRadius;
+
+    public YamlIslandStorage(File dataFile, Logger logger, int borderRadius) {
+        this.dataFile = dataFile;
+        this.tempFile = new File(dataFile.getParentFile(), dataFile.getName() + ".tmp");
+        this.logger = logger;
+        this.borderRadius = borderRadius;
+        if (!dataFile.exists()) {
+            try {
+                dataFile.createNewFile();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not create island data file", e);
+            }
+        }
+    }
+
+    @Override
+    public void load(Consumer<Island> consumer) {
+        FileConfiguration config = YamlConfiguration.loadConfiguration(dataFile);
+        for (String key : config.getKeys(false)) {
+            try {
+                UUID uuid = UUID.fromString(key);
+                Island island = deserializeIsland(uuid, config.getString(key));
+                if (island != null) {
+                    consumer.accept(island);
+                }
+            } catch (Exception e) {
+                logger.warning("Failed to load island data for UUID: " + key);
+            }
+        }
+    }
+
+    @Override
+    public void write(Collection<UUID> changed, IslandRegistry registry) throws IOException {
+        // YAML cannot be patched in place, so every write is a full snapshot
+        YamlConfiguration yaml = new YamlConfiguration();
+        for (Island island : registry.values()) {
+            yaml.set(island.getOwner().toString(), serializeIsland(island));
+        }
+
+        Files.write(tempFile.toPath(), yaml.saveToString().getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(tempFile.toPath(), dataFile.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "yaml";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public File getDataFile() {
+        return dataFile;
+    }
+
+    private String serializeIsland(Island island) {
+        return String.format(Locale.ROOT, "%s,%f,%f,%f,%f,%f,%d",
+                island.getWorldName(),
+                island.getX(),
+                island.getY(),
+                island.getZ(),
+                island.getYaw(),
+                island.getPitch(),
+                island.getBorderRadius());
+    }
+
+    private Island deserializeIsland(UUID owner, String locString) {
+        if (locString == null) return null;
+        String[] parts = locString.split(",");
+        // Entries written before per-island borders have no radius and use the configured one
+        if (parts.length != 6 && parts.length != 7) return null;
+
+        return new Island(
+                owner,
+                parts[0],
+                Double.parseDouble(parts[1]),
+                Double.parseDouble(parts[2]),
+                Double.parseDouble(parts[3]),
+                Float.parseFloat(parts[4]),
+                Float.parseFloat(parts[5]),
+                parts.length == 7 ? Integer.parseInt(parts[6]) : borderRadius
+        );
+    }
+}
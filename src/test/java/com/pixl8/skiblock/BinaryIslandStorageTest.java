@@ -0,0 +1,158 @@
+package com.pixl8.skiblock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryIslandStorageTest {
+    private static final Logger LOGGER = Logger.getLogger("BinaryIslandStorageTest");
+    private static final int HEADER_SIZE = 16;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void roundTripsIslands() throws IOException {
+        File file = folder.resolve("islands.dat").toFile();
+        IslandRegistry registry = new IslandRegistry();
+        Island first = new Island(new UUID(1L, 2L), "skiblock", 100.5, 64.0, -200.25, 90f, -12.5f, 75);
+        Island second = new Island(new UUID(3L, 4L), "skiblock_nether", -1e6, 320.0, 1e6, -180f, 90f, 1);
+        registry.put(first);
+        registry.put(second);
+
+        try (BinaryIslandStorage storage = new BinaryIslandStorage(file, LOGGER, 50)) {
+            storage.write(List.of(first.getOwner(), second.getOwner()), registry);
+        }
+
+        List<Island> loaded = load(file);
+        assertEquals(2, loaded.size());
+        assertSame(first, find(loaded, first.getOwner()));
+        assertSame(second, find(loaded, second.getOwner()));
+    }
+
+    @Test
+    void reusesTheSlotOfADeletedIsland() throws IOException {
+        File file = folder.resolve("islands.dat").toFile();
+        IslandRegistry registry = new IslandRegistry();
+        Island first = new Island(new UUID(1L, 1L), "skiblock", 0, 64, 0, 0f, 0f, 50);
+        Island second = new Island(new UUID(2L, 2L), "skiblock", 200, 64, 0, 0f, 0f, 50);
+        Island third = new Island(new UUID(3L, 3L), "skiblock", 400, 64, 0, 0f, 0f, 50);
+        registry.put(first);
+        registry.put(second);
+
+        try (BinaryIslandStorage storage = new BinaryIslandStorage(file, LOGGER, 50)) {
+            storage.write(List.of(first.getOwner(), second.getOwner()), registry);
+            registry.remove(first.getOwner());
+            storage.write(List.of(first.getOwner()), registry);
+            registry.put(third);
+            storage.write(List.of(third.getOwner()), registry);
+        }
+
+        assertEquals(HEADER_SIZE + 2 * BinaryIslandStorage.RECORD_SIZE, file.length());
+        List<Island> loaded = load(file);
+        assertEquals(2, loaded.size());
+        assertSame(second, find(loaded, second.getOwner()));
+        assertSame(third, find(loaded, third.getOwner()));
+    }
+
+    @Test
+    void skipsACorruptRecord() throws IOException {
+        File file = folder.resolve("islands.dat").toFile();
+        IslandRegistry registry = new IslandRegistry();
+        Island first = new Island(new UUID(1L, 1L), "skiblock", 0, 64, 0, 0f, 0f, 50);
+        Island second = new Island(new UUID(2L, 2L), "skiblock", 200, 64, 0, 0f, 0f, 50);
+        registry.put(first);
+        registry.put(second);
+        try (BinaryIslandStorage storage = new BinaryIslandStorage(file, LOGGER, 50)) {
+            storage.write(List.of(first.getOwner(), second.getOwner()), registry);
+        }
+
+        // Flip a bit in the X coordinate of the first record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(HEADER_SIZE + 20);
+            int b = raf.read();
+            raf.seek(HEADER_SIZE + 20);
+            raf.write(b ^ 1);
+        }
+
+        List<Island> loaded = load(file);
+        assertEquals(1, loaded.size());
+        assertEquals(second.getOwner(), loaded.get(0).getOwner());
+    }
+
+    @Test
+    void usesTheConfiguredRadiusForRecordsWithoutOne() throws IOException {
+        File file = folder.resolve("islands.dat").toFile();
+        IslandRegistry registry = new IslandRegistry();
+        Island island = new Island(new UUID(1L, 1L), "skiblock", 0, 64, 0, 0f, 0f, 0);
+        registry.put(island);
+        try (BinaryIslandStorage storage = new BinaryIslandStorage(file, LOGGER, 50)) {
+            storage.write(List.of(island.getOwner()), registry);
+        }
+
+        List<Island> loaded = load(file);
+        assertEquals(50, loaded.get(0).getBorderRadius());
+    }
+
+    @Test
+    void rejectsAForeignFile() throws IOException {
+        File file = folder.resolve("islands.dat").toFile();
+        Files.write(file.toPath(), "not an island file at all".getBytes());
+
+        assertThrows(IOException.class, () -> new BinaryIslandStorage(file, LOGGER, 50));
+    }
+
+    @Test
+    void skipsAWorldNameThatDoesNotFit() throws IOException {
+        File file = folder.resolve("islands.dat").toFile();
+        IslandRegistry registry = new IslandRegistry();
+        Island tooLong = new Island(new UUID(1L, 1L), "a_world_name_longer_than_thirty_two_bytes", 0, 64, 0, 0f, 0f, 50);
+        Island island = new Island(new UUID(2L, 2L), "skiblock", 200, 64, 0, 0f, 0f, 50);
+        registry.put(tooLong);
+        registry.put(island);
+
+        try (BinaryIslandStorage storage = new BinaryIslandStorage(file, LOGGER, 50)) {
+            storage.write(List.of(tooLong.getOwner(), island.getOwner()), registry);
+        }
+
+        assertEquals(HEADER_SIZE + BinaryIslandStorage.RECORD_SIZE, file.length());
+        List<Island> loaded = load(file);
+        assertEquals(1, loaded.size());
+        assertSame(island, loaded.get(0));
+    }
+
+    private static List<Island> load(File file) throws IOException {
+        List<Island> loaded = new ArrayList<>();
+        try (BinaryIslandStorage storage = new BinaryIslandStorage(file, LOGGER, 50)) {
+            storage.load(loaded::add);
+        }
+        return loaded;
+    }
+
+    private static Island find(List<Island> islands, UUID owner) {
+        return islands.stream().filter(island -> island.getOwner().equals(owner)).findFirst().orElseThrow();
+    }
+
+    private static void assertSame(Island expected, Island actual) {
+        assertEquals(expected.getOwner(), actual.getOwner());
+        assertEquals(expected.getWorldName(), actual.getWorldName());
+        assertEquals(expected.getX(), actual.getX());
+        assertEquals(expected.getY(), actual.getY());
+        assertEquals(expected.getZ(), actual.getZ());
+        assertEquals(expected.getYaw(), actual.getYaw());
+        assertEquals(expected.getPitch(), actual.getPitch());
+        assertEquals(expected.getBorderRadius(), actual.getBorderRadius());
+    }
+}
@@ -0,0 +1,198 @@
+package com.pixl8.skiblock;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinarySchematicTest {
+
+    @Test
+    void roundTripsBlocksAndChests() throws IOException {
+        CompiledSchematic schematic = sample();
+        assertSame(schematic, BinarySchematic.read(new ByteArrayInputStream(write(schematic, false))));
+    }
+
+    @Test
+    void roundTripsACompressedBody() throws IOException {
+        CompiledSchematic schematic = sample();
+        assertSame(schematic, BinarySchematic.read(new ByteArrayInputStream(write(schematic, true))));
+    }
+
+    @Test
+    void roundTripsAnEmptySchematic() throws IOException {
+        CompiledSchematic schematic = new CompiledSchematic.Builder().build();
+        assertEquals(0, BinarySchematic.read(new ByteArrayInputStream(write(schematic, false))).size());
+    }
+
+    @Test
+    void roundTripsVarInts() throws IOException {
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int value : values) {
+            BinarySchematic.writeVarInt(out, value);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        int[] read = new int[values.length];
+        for (int i = 0; i < read.length; i++) {
+            read[i] = BinarySchematic.readVarInt(in);
+        }
+        assertArrayEquals(values, read);
+    }
+
+    @Test
+    void rejectsAnotherFormat() {
+        byte[] data = "blocks:\n  0,0,0: STONE\n".getBytes();
+        assertThrows(IOException.class, () -> BinarySchematic.read(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    void rejectsAnUnknownVersion() throws IOException {
+        byte[] data = write(sample(), false);
+        data[4] = 99;
+        assertThrows(IOException.class, () -> BinarySchematic.read(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    void rejectsAPaletteIndexOutOfRange() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x534B4953);
+        out.writeByte(1);
+        out.writeByte(0);
+        BinarySchematic.writeVarInt(out, 1);
+        BinarySchematic.writeVarInt(out, "minecraft:stone".length());
+        out.writeBytes("minecraft:stone");
+        for (int i = 0; i < 3; i++) {
+            BinarySchematic.writeVarInt(out, 0); // Minimum corner
+        }
+        for (int i = 0; i < 3; i++) {
+            BinarySchematic.writeVarInt(out, 1); // Size
+        }
+        BinarySchematic.writeVarInt(out, 1);
+        BinarySchematic.writeVarInt(out, 0);
+        BinarySchematic.writeVarInt(out, 5); // Only entry 0 exists
+
+        assertThrows(IOException.class, () -> BinarySchematic.read(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    void rejectsATruncatedBody() throws IOException {
+        byte[] data = write(sample(), false);
+        for (int length : new int[]{2, 6, data.length / 2, data.length - 1}) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(EOFException.class, () -> BinarySchematic.read(new ByteArrayInputStream(truncated)));
+        }
+    }
+
+    @Test
+    void readsVersionOneChests() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x534B4953);
+        out.writeByte(1);
+        out.writeByte(0);
+        BinarySchematic.writeVarInt(out, 1);
+        BinarySchematic.writeVarInt(out, "minecraft:chest".length());
+        out.writeBytes("minecraft:chest");
+        for (int i = 0; i < 3; i++) {
+            BinarySchematic.writeVarInt(out, 0); // Minimum corner
+        }
+        for (int i = 0; i < 3; i++) {
+            BinarySchematic.writeVarInt(out, 1); // Size
+        }
+        BinarySchematic.writeVarInt(out, 1);
+        BinarySchematic.writeVarInt(out, 0);
+        BinarySchematic.writeVarInt(out, 0);
+        BinarySchematic.writeVarInt(out, 1); // One chest on block 0
+        BinarySchematic.writeVarInt(out, 0);
+        BinarySchematic.writeVarInt(out, 1);
+        BinarySchematic.writeVarInt(out, "DIRT".length());
+        out.writeBytes("DIRT");
+        BinarySchematic.writeVarInt(out, 5); // No meta in version 1
+
+        CompiledSchematic schematic = BinarySchematic.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(1, schematic.getChestCount());
+        ItemStack[] items = schematic.getChestItems(0);
+        assertEquals(1, items.length);
+        assertEquals(Material.DIRT, items[0].getType());
+        assertEquals(5, items[0].getAmount());
+    }
+
+    @Test
+    void rejectsAnOverlongVarInt() {
+        byte[] data = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0};
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        assertThrows(IOException.class, () -> BinarySchematic.readVarInt(in));
+    }
+
+    private static CompiledSchematic sample() {
+        CompiledSchematic.Builder builder = new CompiledSchematic.Builder();
+        int stone = builder.palette("minecraft:stone");
+        int log = builder.palette("minecraft:oak_log[axis=x]");
+        int chest = builder.palette(Material.CHEST);
+        for (int x = -3; x <= 3; x++) {
+            for (int z = -3; z <= 3; z++) {
+                builder.block(x, -1, z, stone);
+            }
+        }
+        builder.block(0, 0, 0, log);
+        builder.block(0, 5, 0, log);
+        builder.block(2, 0, -2, chest);
+        builder.chest(2, 0, -2, new ItemStack[]{new ItemStack(Material.DIRT, 3), new ItemStack(Material.OAK_LOG, 64)});
+        return builder.build();
+    }
+
+    private static byte[] write(CompiledSchematic schematic, boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySchematic.write(schematic, out, gzip);
+        return out.toByteArray();
+    }
+
+    private static void assertSame(CompiledSchematic expected, CompiledSchematic actual) {
+        assertEquals(blocks(expected), blocks(actual));
+        assertEquals(expected.getChestCount(), actual.getChestCount());
+        for (int chest = 0; chest < expected.getChestCount(); chest++) {
+            int expectedBlock = expected.getChestBlock(chest);
+            int actualBlock = actual.getChestBlock(chest);
+            assertEquals(expected.getX(expectedBlock), actual.getX(actualBlock));
+            assertEquals(expected.getY(expectedBlock), actual.getY(actualBlock));
+            assertEquals(expected.getZ(expectedBlock), actual.getZ(actualBlock));
+
+            ItemStack[] expectedItems = expected.getChestItems(chest);
+            ItemStack[] actualItems = actual.getChestItems(chest);
+            assertEquals(expectedItems.length, actualItems.length);
+            for (int i = 0; i < expectedItems.length; i++) {
+                assertEquals(expectedItems[i].getType(), actualItems[i].getType());
+                assertEquals(expectedItems[i].getAmount(), actualItems[i].getAmount());
+            }
+        }
+    }
+
+    /**
+     * @return the block data string at every position
+     */
+    private static Map<String, String> blocks(CompiledSchematic schematic) {
+        Map<String, String> blocks = new HashMap<>();
+        for (int i = 0; i < schematic.size(); i++) {
+            String position = schematic.getX(i) + "," + schematic.getY(i) + "," + schematic.getZ(i);
+            blocks.put(position, schematic.getPaletteEntry(schematic.getPaletteIndex(i)));
+        }
+        return blocks;
+    }
+}
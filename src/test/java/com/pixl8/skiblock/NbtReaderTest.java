@@ -0,0 +1,163 @@
+package com.pixl8.skiblock;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NbtReaderTest {
+
+    @Test
+    void readsEveryTagType() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("Schematic");
+
+        out.writeByte(1);
+        out.writeUTF("byte");
+        out.writeByte(-5);
+        out.writeByte(2);
+        out.writeUTF("short");
+        out.writeShort(300);
+        out.writeByte(3);
+        out.writeUTF("int");
+        out.writeInt(-70000);
+        out.writeByte(4);
+        out.writeUTF("long");
+        out.writeLong(1L << 40);
+        out.writeByte(5);
+        out.writeUTF("float");
+        out.writeFloat(1.5f);
+        out.writeByte(6);
+        out.writeUTF("double");
+        out.writeDouble(-2.25);
+        out.writeByte(7);
+        out.writeUTF("bytes");
+        out.writeInt(3);
+        out.write(new byte[]{1, 2, 3});
+        out.writeByte(8);
+        out.writeUTF("string");
+        out.writeUTF("minecraft:stone");
+        out.writeByte(9);
+        out.writeUTF("list");
+        out.writeByte(8);
+        out.writeInt(2);
+        out.writeUTF("a");
+        out.writeUTF("b");
+        out.writeByte(10);
+        out.writeUTF("compound");
+        out.writeByte(3);
+        out.writeUTF("inner");
+        out.writeInt(7);
+        out.writeByte(0);
+        out.writeByte(11);
+        out.writeUTF("ints");
+        out.writeInt(2);
+        out.writeInt(10);
+        out.writeInt(-10);
+        out.writeByte(12);
+        out.writeUTF("longs");
+        out.writeInt(1);
+        out.writeLong(Long.MIN_VALUE);
+        out.writeByte(0);
+
+        Map<String, Object> root = read(bytes.toByteArray());
+        assertEquals((byte) -5, root.get("byte"));
+        assertEquals((short) 300, root.get("short"));
+        assertEquals(-70000, root.get("int"));
+        assertEquals(1L << 40, root.get("long"));
+        assertEquals(1.5f, root.get("float"));
+        assertEquals(-2.25, root.get("double"));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) root.get("bytes"));
+        assertEquals("minecraft:stone", root.get("string"));
+        assertEquals(List.of("a", "b"), root.get("list"));
+        assertEquals(Map.of("inner", 7), root.get("compound"));
+        assertArrayEquals(new int[]{10, -10}, (int[]) root.get("ints"));
+        assertArrayEquals(new long[]{Long.MIN_VALUE}, (long[]) root.get("longs"));
+    }
+
+    @Test
+    void rejectsARootThatIsNotACompound() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(8);
+        out.writeUTF("root");
+        out.writeUTF("value");
+
+        assertThrows(IOException.class, () -> read(bytes.toByteArray()));
+    }
+
+    @Test
+    void rejectsAnUnknownTag() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+        out.writeByte(13);
+        out.writeUTF("unknown");
+
+        assertThrows(IOException.class, () -> read(bytes.toByteArray()));
+    }
+
+    @Test
+    void rejectsANegativeLength() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+        out.writeByte(11);
+        out.writeUTF("ints");
+        out.writeInt(-1);
+
+        assertThrows(IOException.class, () -> read(bytes.toByteArray()));
+    }
+
+    @Test
+    void rejectsDeepNesting() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+        out.writeByte(9);
+        out.writeUTF("list");
+        // Lists of lists, deeper than any schematic needs
+        for (int i = 0; i < 1000; i++) {
+            out.writeByte(9);
+            out.writeInt(1);
+        }
+
+        assertThrows(IOException.class, () -> read(bytes.toByteArray()));
+    }
+
+    @Test
+    void rejectsTruncatedData() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+        out.writeByte(12);
+        out.writeUTF("longs");
+        out.writeInt(4);
+        out.writeLong(1L);
+        byte[] data = bytes.toByteArray();
+
+        assertThrows(EOFException.class, () -> read(data));
+        assertThrows(EOFException.class, () -> read(Arrays.copyOf(data, 2)));
+    }
+
+    private static Map<String, Object> read(byte[] data) throws IOException {
+        return NbtReader.readRoot(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+}
@@ -0,0 +1,119 @@
+package com.pixl8.skiblock;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotSectionTest {
+
+    @Test
+    void roundTripsASingleBlockType() throws IOException {
+        byte[] data = encode(new String[]{SnapshotSection.AIR}, null);
+        assertEquals(2 + 2 + SnapshotSection.AIR.length(), data.length);
+
+        SnapshotSection section = SnapshotSection.decode(data);
+        assertEquals(SnapshotSection.AIR, section.get(0));
+        assertEquals(SnapshotSection.AIR, section.get(SnapshotSection.VOLUME - 1));
+        assertArrayEquals(data, section.encode());
+    }
+
+    @Test
+    void roundTripsByteIndices() throws IOException {
+        String[] palette = {SnapshotSection.AIR, "minecraft:stone", "minecraft:oak_log[axis=x]"};
+        int[] blocks = new int[SnapshotSection.VOLUME];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = i % 7 == 0 ? 2 : i % 3 == 0 ? 1 : 0;
+        }
+        byte[] data = encode(palette, blocks);
+
+        SnapshotSection section = SnapshotSection.decode(data);
+        for (int i = 0; i < blocks.length; i++) {
+            assertEquals(palette[blocks[i]], section.get(i));
+        }
+        assertArrayEquals(data, section.encode());
+    }
+
+    @Test
+    void roundTripsShortIndices() throws IOException {
+        String[] palette = new String[300];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = "minecraft:block_" + i;
+        }
+        int[] blocks = new int[SnapshotSection.VOLUME];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = i % palette.length;
+        }
+        byte[] data = encode(palette, blocks);
+
+        SnapshotSection section = SnapshotSection.decode(data);
+        assertEquals("minecraft:block_299", section.get(299));
+        assertEquals("minecraft:block_0", section.get(300));
+        assertArrayEquals(data, section.encode());
+    }
+
+    @Test
+    void hashesByContent() throws IOException {
+        byte[] stone = encode(new String[]{"minecraft:stone"}, null);
+        byte[] dirt = encode(new String[]{"minecraft:dirt"}, null);
+
+        assertEquals(64, SnapshotSection.hash(stone).length());
+        assertEquals(SnapshotSection.hash(stone), SnapshotSection.hash(stone.clone()));
+        assertNotEquals(SnapshotSection.hash(stone), SnapshotSection.hash(dirt));
+    }
+
+    @Test
+    void rejectsAnEmptyPalette() throws IOException {
+        byte[] data = encode(new String[0], null);
+        assertThrows(IOException.class, () -> SnapshotSection.decode(data));
+    }
+
+    @Test
+    void rejectsAnIndexOutsideThePalette() throws IOException {
+        int[] blocks = new int[SnapshotSection.VOLUME];
+        blocks[100] = 5;
+        byte[] data = encode(new String[]{SnapshotSection.AIR, "minecraft:stone"}, blocks);
+        assertThrows(IOException.class, () -> SnapshotSection.decode(data));
+    }
+
+    @Test
+    void rejectsTruncatedData() throws IOException {
+        int[] blocks = new int[SnapshotSection.VOLUME];
+        byte[] data = encode(new String[]{SnapshotSection.AIR, "minecraft:stone"}, blocks);
+        for (int length : new int[]{1, 5, data.length - 1}) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(EOFException.class, () -> SnapshotSection.decode(truncated));
+        }
+    }
+
+    /**
+     * Writes a section the way {@link SnapshotSection#encode} lays it out
+     * @param blocks Palette index per block, or null for a single block type
+     */
+    static byte[] encode(String[] palette, int[] blocks) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(palette.length);
+        for (String entry : palette) {
+            out.writeUTF(entry);
+        }
+        if (blocks != null) {
+            for (int block : blocks) {
+                if (palette.length > 256) {
+                    out.writeShort(block);
+                } else {
+                    out.writeByte(block);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,218 @@
+package com.pixl8.skiblock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotStoreTest {
+    private static final Logger LOGGER = Logger.getLogger("SnapshotStoreTest");
+    private static final UUID FIRST = new UUID(1L, 1L);
+    private static final UUID SECOND = new UUID(2L, 2L);
+
+    @TempDir
+    Path folder;
+
+    private final Map<String, byte[]> blocks = new HashMap<>();
+    private String stone;
+    private String dirt;
+    private String log;
+    private SnapshotStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stone = add(SnapshotSectionTest.encode(new String[]{"minecraft:stone"}, null));
+        dirt = add(SnapshotSectionTest.encode(new String[]{"minecraft:dirt"}, null));
+        log = add(SnapshotSectionTest.encode(new String[]{"minecraft:oak_log"}, null));
+        store = new SnapshotStore(folder.toFile(), LOGGER);
+        store.load();
+    }
+
+    @Test
+    void roundTripsAManifest() throws IOException {
+        Map<Long, String> sections = new HashMap<>();
+        sections.put(SnapshotStore.sectionKey(0, 0, 4), stone);
+        sections.put(SnapshotStore.sectionKey(-1, 2, -4), stone);
+        sections.put(SnapshotStore.sectionKey(3, -3, 19), dirt);
+
+        SnapshotStore.Snapshot snapshot = store.commit(FIRST, manifest(1000L, sections), blocks);
+        assertEquals(3, snapshot.getSections());
+        assertEquals(2, snapshot.getNewSections());
+
+        SnapshotStore.Manifest manifest = store.read(FIRST, 1000L);
+        assertEquals(1000L, manifest.getCreated());
+        assertEquals(-1, manifest.getMinChunkX());
+        assertEquals(3, manifest.getMaxChunkX());
+        assertEquals(-3, manifest.getMinChunkZ());
+        assertEquals(2, manifest.getMaxChunkZ());
+        assertEquals(stone, manifest.getSection(0, 0, 4));
+        assertEquals(stone, manifest.getSection(-1, 2, -4));
+        assertEquals(dirt, manifest.getSection(3, -3, 19));
+        assertNull(manifest.getSection(0, 0, 5));
+        assertArrayEquals(blocks.get(dirt), store.readSection(dirt));
+    }
+
+    @Test
+    void storesSharedSectionsOnce() throws IOException {
+        store.commit(FIRST, manifest(1000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), stone)), blocks);
+        SnapshotStore.Snapshot second = store.commit(SECOND,
+                manifest(1001L, Map.of(SnapshotStore.sectionKey(0, 0, 4), stone, SnapshotStore.sectionKey(0, 0, 5), dirt)), blocks);
+
+        assertEquals(1, second.getNewSections());
+        assertEquals(2, store.getSectionCount());
+    }
+
+    @Test
+    void skipsAnUnchangedIsland() throws IOException {
+        Map<Long, String> sections = Map.of(SnapshotStore.sectionKey(0, 0, 4), stone);
+        store.commit(FIRST, manifest(1000L, sections), blocks);
+
+        assertNull(store.commit(FIRST, manifest(2000L, sections), blocks));
+        assertEquals(1, store.list(FIRST).size());
+    }
+
+    @Test
+    void failsWithoutTheBlocksOfANewSection() {
+        Map<Long, String> sections = Map.of(SnapshotStore.sectionKey(0, 0, 4), stone);
+        assertThrows(IOException.class, () -> store.commit(FIRST, manifest(1000L, sections), Map.of()));
+    }
+
+    @Test
+    void reloadsFromDisk() throws IOException {
+        store.commit(FIRST, manifest(1000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), stone)), blocks);
+        store.commit(FIRST, manifest(2000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), dirt)), blocks);
+        store.commit(SECOND, manifest(1500L, Map.of(SnapshotStore.sectionKey(0, 0, 4), log)), blocks);
+
+        SnapshotStore reloaded = new SnapshotStore(folder.toFile(), LOGGER);
+        reloaded.load();
+        assertEquals(2, reloaded.getIslandCount());
+        assertEquals(3, reloaded.getSnapshotCount());
+        assertEquals(3, reloaded.getSectionCount());
+        assertEquals(store.getDiskBytes(), reloaded.getDiskBytes());
+
+        List<SnapshotStore.Snapshot> snapshots = reloaded.list(FIRST);
+        assertEquals(2000L, snapshots.get(0).getCreated());
+        assertEquals(1000L, snapshots.get(1).getCreated());
+        assertEquals(1, snapshots.get(0).getNewSections());
+        assertEquals(dirt, reloaded.read(FIRST, 2000L).getSection(0, 0, 4));
+    }
+
+    @Test
+    void collectsSectionsOfPrunedSnapshots() throws IOException {
+        store.commit(FIRST, manifest(1000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), stone)), blocks);
+        store.commit(FIRST, manifest(2000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), dirt)), blocks);
+
+        assertEquals(1, store.prune(FIRST, 1, 0L, true));
+        assertTrue(store.collect(0L) > 0);
+        assertEquals(1, store.getSectionCount());
+        assertThrows(IOException.class, () -> store.readSection(stone));
+        assertArrayEquals(blocks.get(dirt), store.readSection(dirt));
+    }
+
+    @Test
+    void dropsOldSnapshotsPastTheDiskLimitButKeepsTheNewest() throws IOException {
+        store.commit(FIRST, manifest(1000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), stone)), blocks);
+        store.commit(FIRST, manifest(2000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), dirt)), blocks);
+        store.commit(SECOND, manifest(1500L, Map.of(SnapshotStore.sectionKey(0, 0, 4), log)), blocks);
+
+        store.collect(1L);
+        assertEquals(1, store.list(FIRST).size());
+        assertEquals(2000L, store.list(FIRST).get(0).getCreated());
+        assertEquals(1, store.list(SECOND).size());
+        assertEquals(2, store.getSectionCount());
+    }
+
+    @Test
+    void detectsACorruptSection() throws IOException {
+        store.commit(FIRST, manifest(1000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), stone)), blocks);
+
+        // Replace the stored blocks with another section's, under the same name
+        File object = folder.resolve("objects").resolve(stone.substring(0, 2)).resolve(stone).toFile();
+        try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(object.toPath()))) {
+            out.write(blocks.get(dirt));
+        }
+        assertThrows(IOException.class, () -> store.readSection(stone));
+    }
+
+    @Test
+    void rejectsACorruptManifest() throws IOException {
+        store.commit(FIRST, manifest(1000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), stone)), blocks);
+        File file = folder.resolve("islands").resolve(FIRST.toString()).resolve("1000.snap").toFile();
+
+        // A negative section count
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4 + 8 + 4 + 8 + 8);
+            raf.writeInt(-1);
+        }
+        assertThrows(IOException.class, () -> store.read(FIRST, 1000L));
+
+        // Cut off inside the section list
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4 + 8 + 4 + 8 + 8);
+            raf.writeInt(1);
+            raf.setLength(raf.length() - 3);
+        }
+        assertThrows(IOException.class, () -> store.read(FIRST, 1000L));
+
+        // Not a manifest at all
+        Files.write(file.toPath(), "not a manifest".getBytes());
+        assertThrows(IOException.class, () -> store.read(FIRST, 1000L));
+    }
+
+    @Test
+    void skipsUnreadableAndHalfWrittenFilesOnLoad() throws IOException {
+        store.commit(FIRST, manifest(1000L, Map.of(SnapshotStore.sectionKey(0, 0, 4), stone)), blocks);
+        Path islandFolder = folder.resolve("islands").resolve(FIRST.toString());
+        Files.write(islandFolder.resolve("2000.snap"), new byte[]{1, 2, 3});
+        Files.write(islandFolder.resolve("3000.snap.tmp"), new byte[]{1, 2, 3});
+        Files.createDirectories(folder.resolve("islands").resolve("not-a-uuid"));
+
+        SnapshotStore reloaded = new SnapshotStore(folder.toFile(), LOGGER);
+        reloaded.load();
+        assertEquals(1, reloaded.getSnapshotCount());
+        assertEquals(1000L, reloaded.list(FIRST).get(0).getCreated());
+        assertTrue(Files.notExists(islandFolder.resolve("3000.snap.tmp")));
+    }
+
+    private String add(byte[] data) {
+        String hash = SnapshotSection.hash(data);
+        blocks.put(hash, data);
+        return hash;
+    }
+
+    /**
+     * @return a manifest whose chunk range covers every listed section
+     */
+    private static SnapshotStore.Manifest manifest(long created, Map<Long, String> sections) {
+        int minX = 0, maxX = 0, minZ = 0, maxZ = 0;
+        for (long key : sections.keySet()) {
+            int x = (short) (key >> 32);
+            int z = (short) (key >> 16);
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+        return new SnapshotStore.Manifest(created, minX, maxX, minZ, maxZ, new HashMap<>(sections));
+    }
+}